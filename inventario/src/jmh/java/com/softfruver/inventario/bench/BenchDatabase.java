@@ -0,0 +1,152 @@
+package com.softfruver.inventario.bench;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Conexión y datos de prueba para los benchmarks.
+ *
+ * Nunca toca la BD de la app: cada instancia crea una BD desechable
+ * (softfruver_bench_xxxxxxxx) copiando la plantilla bench.db.plantilla, que debe
+ * tener el esquema softfruver ya migrado, y la borra en close(). Los datos BENCH
+ * (y el usuario de LoginBenchmark) mueren con ella.
+ *
+ * Propiedades: bench.db.servidor (jdbc:postgresql://host:puerto), bench.db.user,
+ * bench.db.plantilla; la clave va en bench.db.password o en PGPASSWORD.
+ */
+public final class BenchDatabase implements AutoCloseable {
+
+    public static final int PRODUCTOS = 20;
+    public static final int PAGOS_POR_TIPO = 2_000;
+    public static final String USUARIO = "BENCH login";
+
+    public final HikariDataSource dataSource;
+    public final JdbcTemplate jdbc;
+    public final NamedParameterJdbcTemplate jdbcNamed;
+    public final TransactionTemplate tx;
+
+    public Long clienteId;
+    public Long proveedorId;
+    public List<Long> productoIds;
+
+    private final String servidor;
+    private final String usuario;
+    private final String clave;
+    private final String nombre;
+
+    public BenchDatabase() {
+        this.servidor = System.getProperty("bench.db.servidor", "jdbc:postgresql://127.0.0.1:5432");
+        this.usuario = System.getProperty("bench.db.user", "postgres");
+        this.clave = System.getProperty("bench.db.password", System.getenv().getOrDefault("PGPASSWORD", ""));
+        String plantilla = System.getProperty("bench.db.plantilla", "softfruver_bench_plantilla");
+        if (!plantilla.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("bench.db.plantilla inválida: " + plantilla);
+        }
+        this.nombre = "softfruver_bench_" + UUID.randomUUID().toString().substring(0, 8);
+        // La plantilla no puede tener conexiones abiertas mientras se copia
+        admin("create database " + nombre + " template " + plantilla);
+
+        HikariConfig cfg = new HikariConfig();
+        cfg.setJdbcUrl(servidor + "/" + nombre + "?reWriteBatchedInserts=true");
+        cfg.setUsername(usuario);
+        cfg.setPassword(clave);
+        cfg.setMaximumPoolSize(4);
+        this.dataSource = new HikariDataSource(cfg);
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbcNamed = new NamedParameterJdbcTemplate(jdbc);
+        this.tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /** Crea (si faltan) cliente, proveedor, productos con stock y pagos BENCH. */
+    public BenchDatabase seed() {
+        jdbc.update("""
+                insert into softfruver.cliente (nombre, creado_en, actualizado_en)
+                select 'BENCH cliente', now(), now()
+                 where not exists (select 1 from softfruver.cliente where nombre = 'BENCH cliente')
+                """);
+        jdbc.update("""
+                insert into softfruver.proveedor (nombre, creado_en, actualizado_en)
+                select 'BENCH proveedor', now(), now()
+                 where not exists (select 1 from softfruver.proveedor where nombre = 'BENCH proveedor')
+                """);
+        clienteId = jdbc.queryForObject(
+                "select id from softfruver.cliente where nombre = 'BENCH cliente'", Long.class);
+        proveedorId = jdbc.queryForObject(
+                "select id from softfruver.proveedor where nombre = 'BENCH proveedor'", Long.class);
+
+        jdbc.update("""
+                insert into softfruver.producto (nombre)
+                select 'BENCH producto ' || lpad(g::text, 2, '0')
+                  from generate_series(1, ?) g
+                 where not exists (select 1 from softfruver.producto p
+                                    where p.nombre = 'BENCH producto ' || lpad(g::text, 2, '0'))
+                """, PRODUCTOS);
+        productoIds = jdbc.queryForList(
+                "select id from softfruver.producto where nombre like 'BENCH producto %' order by nombre",
+                Long.class);
+
+        // Stock abundante: las ventas de los benchmarks se revierten, pero el trigger valida stock
+        Long compraStock = jdbc.queryForObject("""
+                select count(*) from softfruver.compra c where c.proveedor_id = ?
+                """, Long.class, proveedorId);
+        if (compraStock == null || compraStock == 0) {
+            jdbc.update("insert into softfruver.compra (proveedor_id, total) values (?, 0)", proveedorId);
+            Long compraId = jdbc.queryForObject(
+                    "select currval(pg_get_serial_sequence('softfruver.compra','id'))", Long.class);
+            for (Long pid : productoIds) {
+                jdbc.update("""
+                        insert into softfruver.compra_item (compra_id, producto_id, cantidad_kg, precio_unit)
+                        values (?, ?, 1000000, 1)
+                        """, compraId, pid);
+            }
+        }
+
+        // Pagos para medir el listado (UNION ALL + mapeo)
+        jdbc.update("""
+                insert into softfruver.pago_cliente (cliente_id, monto, metodo, fecha_pago, creado_en, actualizado_en)
+                select ?, 1000 + g, 'EFECTIVO'::softfruver.metodo_pago, now() - (g || ' hours')::interval, now(), now()
+                  from generate_series(1, ? - (select count(*) from softfruver.pago_cliente where cliente_id = ?)) g
+                """, clienteId, PAGOS_POR_TIPO, clienteId);
+        jdbc.update("""
+                insert into softfruver.pago_proveedor (proveedor_id, monto, metodo, fecha_pago, creado_en, actualizado_en)
+                select ?, 1000 + g, 'TRANSFERENCIA'::softfruver.metodo_pago, now() - (g || ' hours')::interval, now(), now()
+                  from generate_series(1, ? - (select count(*) from softfruver.pago_proveedor where proveedor_id = ?)) g
+                """, proveedorId, PAGOS_POR_TIPO, proveedorId);
+        return this;
+    }
+
+    /** Usuario BENCH (SECRETARIA, activo) con el hash dado, solo en la BD desechable. */
+    public void usuario(String passHash) {
+        jdbc.update("""
+                insert into softfruver.usuario (username, pass_hash, rol, activo, creado_en, actualizado_en)
+                values (?, ?, 'SECRETARIA'::softfruver.rol_usuario, true, now(), now())
+                on conflict (username) do update set pass_hash = excluded.pass_hash, activo = true
+                """, USUARIO, passHash);
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+        admin("drop database if exists " + nombre + " with (force)");
+    }
+
+    private void admin(String sql) {
+        try (Connection c = DriverManager.getConnection(servidor + "/postgres", usuario, clave);
+             Statement st = c.createStatement()) {
+            st.execute(sql);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Bench: falló '" + sql + "': " + ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.softfruver.inventario.bench;
+
+import com.softfruver.inventario.repository.ComprasRepository;
+import com.softfruver.inventario.service.ComprasService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura de compras contra PostgreSQL: cabecera sola, cabecera + insertItems (batch)
+ * y insertCompra (cabecera e ítems en una sola sentencia).
+ * Cada invocación se revierte al final.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComprasBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int items;
+
+    private BenchDatabase db;
+    private ComprasRepository repo;
+    private List<ComprasService.ItemNuevaCompra> detalle;
+
+    @Setup
+    public void setup() {
+        db = new BenchDatabase().seed();
+        repo = new ComprasRepository(db.jdbcNamed, db.jdbc);
+        detalle = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Long pid = db.productoIds.get(i % db.productoIds.size());
+            detalle.add(new ComprasService.ItemNuevaCompra(pid, new BigDecimal("10.5"), new BigDecimal("2100")));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Long insertCabecera() {
+        return db.tx.execute(status -> {
+            Long id = repo.insertCabecera(db.proveedorId, LocalDate.now());
+            status.setRollbackOnly();
+            return id;
+        });
+    }
+
+    @Benchmark
+    public Long insertCabeceraEItems() {
+        return db.tx.execute(status -> {
+            Long id = repo.insertCabecera(db.proveedorId, LocalDate.now());
+            repo.insertItems(id, detalle);
+            status.setRollbackOnly();
+            return id;
+        });
+    }
+
+    @Benchmark
+    public Long insertCompra() {
+        return db.tx.execute(status -> {
+            Long id = repo.insertCompra(db.proveedorId, LocalDate.now(), detalle);
+            status.setRollbackOnly();
+            return id;
+        });
+    }
+}
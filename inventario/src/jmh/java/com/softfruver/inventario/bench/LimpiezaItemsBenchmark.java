@@ -0,0 +1,49 @@
+package com.softfruver.inventario.bench;
+
+import com.softfruver.inventario.service.ComprasService;
+import com.softfruver.inventario.service.VentasService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Limpieza de ítems del formulario (sin BD): una de cada cuatro filas es inválida. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LimpiezaItemsBenchmark {
+
+    @Param({"5", "50"})
+    public int filas;
+
+    private List<VentasService.ItemNuevaVenta> itemsVenta;
+    private List<ComprasService.ItemNuevaCompra> itemsCompra;
+
+    @Setup
+    public void setup() {
+        itemsVenta = new ArrayList<>();
+        itemsCompra = new ArrayList<>();
+        for (int i = 0; i < filas; i++) {
+            Long pid = (i % 4 == 3) ? null : (long) i + 1;
+            BigDecimal cant = new BigDecimal("2.5");
+            BigDecimal prec = new BigDecimal("3200");
+            itemsVenta.add(new VentasService.ItemNuevaVenta(pid, cant, prec));
+            itemsCompra.add(new ComprasService.ItemNuevaCompra(pid, cant, prec));
+        }
+    }
+
+    @Benchmark
+    public List<VentasService.ItemNuevaVenta> limpiarVenta() {
+        return VentasService.limpiarItems(itemsVenta);
+    }
+
+    @Benchmark
+    public List<ComprasService.ItemNuevaCompra> limpiarCompra() {
+        return ComprasService.limpiarItems(itemsCompra);
+    }
+}
@@ -0,0 +1,102 @@
+package com.softfruver.inventario.bench;
+
+import com.softfruver.inventario.security.UsuarioDetailsService;
+import com.softfruver.inventario.user.RolUsuario;
+import com.softfruver.inventario.user.Usuario;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login (búsqueda del usuario + verificación BCrypt) con 12 hilos a la vez, como
+ * un cambio de turno: logins por segundo y latencia por login (p99 en la salida
+ * de SampleTime). ttlMs=0 es sin caché de usuarios.
+ *
+ * Es el DaoAuthenticationProvider de la app sin HTTP ni sesión (captcha, CSRF).
+ * El usuario BENCH existe solo en la BD desechable de BenchDatabase.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(12)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    private static final String CLAVE = "bench-clave-123";
+
+    @Param({"10", "12"})
+    public int costo;
+
+    @Param({"0", "60000"})
+    public long ttlMs;
+
+    private BenchDatabase db;
+    private DaoAuthenticationProvider proveedor;
+
+    @Setup
+    public void setup() {
+        db = new BenchDatabase();
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(costo);
+        db.usuario(encoder.encode(CLAVE));
+
+        proveedor = new DaoAuthenticationProvider(new UsuarioDetailsService(fuenteJdbc(db), ttlMs, 200));
+        proveedor.setPasswordEncoder(encoder);
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Authentication loginsPorSegundo() {
+        return login();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Authentication latenciaLogin() {
+        return login();
+    }
+
+    private Authentication login() {
+        return proveedor.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(BenchDatabase.USUARIO, CLAVE));
+    }
+
+    // El benchmark no levanta JPA: los usuarios salen por JDBC, de la BD desechable
+    private static UsuarioDetailsService.Fuente fuenteJdbc(BenchDatabase db) {
+        return new UsuarioDetailsService.Fuente() {
+            @Override
+            public Optional<Usuario> buscarActivo(String username) {
+                return db.jdbc.query("""
+                        select username, pass_hash, rol::text as rol
+                        from softfruver.usuario
+                        where username = ? and activo
+                        """, rs -> {
+                    if (!rs.next()) return Optional.empty();
+                    Usuario u = new Usuario();
+                    u.setUsername(rs.getString("username"));
+                    u.setPassHash(rs.getString("pass_hash"));
+                    u.setRol(RolUsuario.valueOf(rs.getString("rol")));
+                    return Optional.of(u);
+                }, username);
+            }
+
+            @Override
+            public void guardar(Usuario u) {
+                db.jdbc.update("""
+                        update softfruver.usuario set pass_hash = ?, actualizado_en = now()
+                        where username = ?
+                        """, u.getPassHash(), u.getUsername());
+            }
+        };
+    }
+}
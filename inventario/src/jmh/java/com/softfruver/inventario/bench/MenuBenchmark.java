@@ -0,0 +1,60 @@
+package com.softfruver.inventario.bench;
+
+import com.softfruver.inventario.repository.DashboardRepository;
+import com.softfruver.inventario.service.DashboardService;
+import com.softfruver.inventario.web.EventosSse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia del resumen de /menu (p99 en la salida de SampleTime), en los dos
+ * modos de softfruver.dashboard.modo: "resumen" (una lectura de resumen_diario)
+ * y "paralelo" (las seis consultas en vivo a la vez sobre el executor).
+ *
+ * El executor es un pool fijo de 8 hilos de plataforma, como el
+ * applicationTaskExecutor de Spring Boot en Java 17; con Java 21 y
+ * spring.threads.virtual.enabled serían hilos virtuales.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuBenchmark {
+
+    @Param({"resumen", "paralelo"})
+    public String modo;
+
+    private BenchDatabase db;
+    private ExecutorService executor;
+    private EventosSse eventos;
+    private DashboardService service;
+
+    @Setup
+    public void setup() {
+        db = new BenchDatabase().seed();
+        executor = Executors.newFixedThreadPool(8);
+        eventos = new EventosSse(60_000);
+        service = new DashboardService(new DashboardRepository(db.jdbcNamed, 2000), executor, modo, 2000, eventos);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        eventos.cerrar();
+        db.close();
+    }
+
+    @Benchmark
+    public DashboardService.ResumenMenu menu() {
+        DashboardService.ResumenMenu r = service.resumenDeHoy();
+        if (r.parcial()) {
+            throw new IllegalStateException("Resumen parcial: alguna consulta no llegó en el plazo");
+        }
+        return r;
+    }
+}
@@ -0,0 +1,38 @@
+package com.softfruver.inventario.bench;
+
+import com.softfruver.inventario.repository.PagosRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Primera página del listado de pagos (libro de pagos, keyset + acumulados) sobre los pagos BENCH. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PagosBenchmark {
+
+    @Param({"", "CLIENTE"})
+    public String tipo;
+
+    private BenchDatabase db;
+    private PagosRepository repo;
+
+    @Setup
+    public void setup() {
+        db = new BenchDatabase().seed();
+        repo = new PagosRepository(db.jdbcNamed, db.jdbc);
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public PagosRepository.PaginaPagos buscarPagos() {
+        return repo.buscarPagosPagina(null, null, "BENCH", tipo, null, null, null, 50);
+    }
+}
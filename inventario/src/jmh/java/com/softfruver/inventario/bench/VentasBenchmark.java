@@ -0,0 +1,70 @@
+package com.softfruver.inventario.bench;
+
+import com.softfruver.inventario.repository.VentasRepository;
+import com.softfruver.inventario.service.VentasService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ventas por segundo contra PostgreSQL (cabecera + ítems + triggers).
+ * registrarVenta es el camino actual (insertVenta, una sola sentencia);
+ * cabeceraEItems es el camino anterior (insertCabecera + batch de insertItems).
+ * Cada invocación corre en una transacción que se revierte, así el dataset no crece.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VentasBenchmark {
+
+    @Param({"1", "10"})
+    public int items;
+
+    private BenchDatabase db;
+    private VentasRepository repo;
+    private VentasService service;
+    private List<VentasService.ItemNuevaVenta> detalle;
+
+    @Setup
+    public void setup() {
+        db = new BenchDatabase().seed();
+        repo = new VentasRepository(db.jdbcNamed, db.jdbc);
+        service = new VentasService(repo, evento -> {});
+        detalle = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Long pid = db.productoIds.get(i % db.productoIds.size());
+            detalle.add(new VentasService.ItemNuevaVenta(pid, new BigDecimal("1.250"), new BigDecimal("4000")));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Long registrarVenta() {
+        return db.tx.execute(status -> {
+            Long id = service.registrarVenta(db.clienteId, LocalDate.now(), false, detalle);
+            status.setRollbackOnly();
+            return id;
+        });
+    }
+
+    @Benchmark
+    public Long cabeceraEItems() {
+        return db.tx.execute(status -> {
+            Long id = repo.insertCabecera(db.clienteId, LocalDate.now(), false);
+            repo.insertItems(id, detalle);
+            status.setRollbackOnly();
+            return id;
+        });
+    }
+}
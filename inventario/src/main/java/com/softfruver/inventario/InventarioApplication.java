@@ -2,8 +2,13 @@ package com.softfruver.inventario;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.session.SessionAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// Spring Session está siempre en el classpath: se activa solo con
+// softfruver.sesion.almacen=jdbc (SesionJdbcConfig), no por estar presente
+@SpringBootApplication(exclude = SessionAutoConfiguration.class)
+@EnableScheduling
 public class InventarioApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,51 @@
+package com.softfruver.inventario.api;
+
+import com.softfruver.inventario.service.IndiceNombres;
+import com.softfruver.inventario.service.IndicesBusqueda;
+import com.softfruver.inventario.web.RespuestaOpciones;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Autocompletar para los formularios (js/typeahead.js): devuelve como mucho
+ * {@code limite} coincidencias ya ordenadas, así la página no tiene que traer
+ * la lista completa de productos/clientes/proveedores. Con ETag por versión
+ * del índice: si no cambió desde la última tecla igual, 304 sin cuerpo.
+ */
+@RestController
+@RequestMapping("/api/buscar")
+public class BusquedaController {
+
+    private static final int LIMITE_MAX = 50;
+
+    private final IndicesBusqueda indices;
+
+    public BusquedaController(IndicesBusqueda indices) {
+        this.indices = indices;
+    }
+
+    // GET /api/buscar/productos?q=tom&limite=15
+    @GetMapping("/{catalogo}")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public ResponseEntity<List<IndiceNombres.Coincidencia>> buscar(@PathVariable String catalogo,
+                                                                   @RequestParam(name = "q", defaultValue = "") String q,
+                                                                   @RequestParam(name = "limite", defaultValue = "15") int limite,
+                                                                   WebRequest request) {
+        IndicesBusqueda.Catalogo c;
+        try {
+            c = IndicesBusqueda.Catalogo.valueOf(catalogo.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Catálogo desconocido: " + catalogo);
+        }
+        String etag = indices.etag(c);
+        if (request.checkNotModified(etag)) return null;
+        return RespuestaOpciones.conEtag(etag, indices.buscar(c, q, Math.max(1, Math.min(limite, LIMITE_MAX))));
+    }
+}
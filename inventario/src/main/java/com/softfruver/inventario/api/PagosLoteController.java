@@ -0,0 +1,38 @@
+package com.softfruver.inventario.api;
+
+import com.softfruver.inventario.service.PagosService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Planilla de cobro completa en una sola petición (la de una ruta: 40–80
+ * pagos). Todo o nada: 200 con los ids en el orden enviado, o 422 con los
+ * errores de cada fila y sin guardar ninguno.
+ *
+ * <pre>
+ * POST /api/pagos/lote
+ * [{"tipo":"CLIENTE","refId":12,"fecha":"2025-10-01","monto":35000,"metodo":"EFECTIVO"}, ...]
+ * </pre>
+ * tipo es opcional (CLIENTE por defecto). Como el resto de la app, pide el token CSRF.
+ */
+@RestController
+@RequestMapping("/api/pagos")
+public class PagosLoteController {
+
+    private final PagosService pagosService;
+
+    public PagosLoteController(PagosService pagosService) {
+        this.pagosService = pagosService;
+    }
+
+    @PostMapping("/lote")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public ResponseEntity<PagosService.ResultadoLote> registrar(@RequestBody List<PagosService.PagoLote> pagos) {
+        PagosService.ResultadoLote r = pagosService.registrarLote(pagos);
+        return ResponseEntity.status(r.ok() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY).body(r);
+    }
+}
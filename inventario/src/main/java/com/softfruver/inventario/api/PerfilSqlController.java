@@ -0,0 +1,53 @@
+package com.softfruver.inventario.api;
+
+import com.softfruver.inventario.config.PerfiladorSql;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Top de sentencias SQL por forma (ver PerfiladorSql), para administradores.
+ *   GET  /config/sql?top=20&orden=total|promedio|maximo|ejecuciones|filas
+ *   POST /config/sql/reiniciar
+ */
+@RestController
+@RequestMapping("/config/sql")
+@PreAuthorize("hasRole('ADMIN')")
+public class PerfilSqlController {
+
+    private final ObjectProvider<PerfiladorSql> perfilador;
+
+    public PerfilSqlController(ObjectProvider<PerfiladorSql> perfilador) {
+        this.perfilador = perfilador;
+    }
+
+    @GetMapping
+    public List<PerfiladorSql.Fila> top(@RequestParam(name = "top", defaultValue = "20") int top,
+                                        @RequestParam(name = "orden", defaultValue = "total") String orden) {
+        PerfiladorSql.Orden o;
+        try {
+            o = PerfiladorSql.Orden.valueOf(orden.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Orden desconocido: " + orden);
+        }
+        return activo().top(Math.max(1, Math.min(top, 500)), o);
+    }
+
+    @PostMapping("/reiniciar")
+    public void reiniciar() {
+        activo().reiniciar();
+    }
+
+    private PerfiladorSql activo() {
+        PerfiladorSql p = perfilador.getIfAvailable();
+        if (p == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "El perfilador de SQL está desactivado (softfruver.sql.perfil.activo).");
+        }
+        return p;
+    }
+}
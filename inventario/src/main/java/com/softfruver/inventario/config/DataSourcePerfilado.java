@@ -0,0 +1,256 @@
+package com.softfruver.inventario.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSource que envuelve las conexiones del pool para medir cada sentencia
+ * (ver {@link PerfiladorSql}). Mide el tiempo de execute*; las filas de un
+ * SELECT se cuentan al recorrer el ResultSet y se suman al cerrarlo.
+ *
+ * Las clases proxy (Connection, Statement, PreparedStatement, CallableStatement,
+ * ResultSet) se resuelven una sola vez; cada sentencia cuesta un handler y una
+ * instancia, sin la búsqueda y validación que hace Proxy.newProxyInstance en
+ * cada llamada. Con softfruver.sql.perfil.activo=false no se envuelve nada.
+ *
+ * unwrap/isWrapperFor pasan al objeto real, así que COPY
+ * ({@code con.unwrap(PGConnection.class)}) y las métricas de Hikari siguen funcionando.
+ */
+public class DataSourcePerfilado extends DelegatingDataSource {
+
+    private static final Constructor<?> PROXY_CONEXION = constructorProxy(Connection.class);
+    private static final Constructor<?> PROXY_STATEMENT = constructorProxy(Statement.class);
+    private static final Constructor<?> PROXY_PREPARED = constructorProxy(PreparedStatement.class);
+    private static final Constructor<?> PROXY_CALLABLE = constructorProxy(CallableStatement.class);
+    private static final Constructor<?> PROXY_RESULTSET = constructorProxy(ResultSet.class);
+
+    private final PerfiladorSql perfilador;
+
+    public DataSourcePerfilado(DataSource destino, PerfiladorSql perfilador) {
+        super(destino);
+        this.perfilador = perfilador;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conexion(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conexion(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection conexion(Connection real) {
+        return (Connection) proxy(PROXY_CONEXION, new Conexion(real));
+    }
+
+    private static Constructor<?> constructorProxy(Class<?> tipo) {
+        Object muestra = Proxy.newProxyInstance(DataSourcePerfilado.class.getClassLoader(),
+                new Class<?>[]{tipo}, (p, m, a) -> null);
+        try {
+            return muestra.getClass().getConstructor(InvocationHandler.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("Proxy sin constructor para " + tipo.getName(), ex);
+        }
+    }
+
+    private static Object proxy(Constructor<?> constructor, InvocationHandler handler) {
+        try {
+            return constructor.newInstance(handler);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No se pudo crear el proxy JDBC", ex);
+        }
+    }
+
+    // equals/hashCode por identidad del proxy (DataSourceUtils compara la conexión que entregó)
+    private static boolean esIdentidad(Method m) {
+        return m.getName().equals("equals") || m.getName().equals("hashCode");
+    }
+
+    private static Object identidad(Object proxy, Method m, Object[] args) {
+        return m.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object invocar(Object destino, Method m, Object[] args) throws Throwable {
+        try {
+            return m.invoke(destino, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    // ====== Connection ======
+    private final class Conexion implements InvocationHandler {
+        private final Connection real;
+
+        Conexion(Connection real) {
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            if (esIdentidad(m)) return identidad(proxy, m, args);
+            Object r = invocar(real, m, args);
+            if (r instanceof CallableStatement cs) {
+                return proxy(PROXY_CALLABLE, new Sentencia(cs, (String) args[0], proxy));
+            }
+            if (r instanceof PreparedStatement ps) {
+                return proxy(PROXY_PREPARED, new Sentencia(ps, (String) args[0], proxy));
+            }
+            if (r instanceof Statement st) {
+                return proxy(PROXY_STATEMENT, new Sentencia(st, null, proxy));
+            }
+            return r;
+        }
+    }
+
+    // ====== Statement / PreparedStatement ======
+    private final class Sentencia implements InvocationHandler {
+        private final Statement real;
+        private final Object conexionProxy;
+        private String sql;                                  // null en Statement hasta execute(sql)
+        private String forma;                                // la de la última ejecución
+        private final List<Object> parametros = new ArrayList<>();
+        private int lote;                                    // addBatch pendientes
+        private Lectura abierta;                             // último ResultSet sin cerrar
+
+        Sentencia(Statement real, String sql, Object conexionProxy) {
+            this.real = real;
+            this.sql = sql;
+            this.conexionProxy = conexionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            if (esIdentidad(m)) return identidad(proxy, m, args);
+            String nombre = m.getName();
+            if (nombre.startsWith("execute")) return ejecutar(proxy, m, args);
+            switch (nombre) {
+                case "addBatch" -> {
+                    lote++;
+                    if (args != null && args.length == 1 && sql == null) sql = (String) args[0];
+                }
+                case "clearBatch" -> lote = 0;
+                case "clearParameters" -> parametros.clear();
+                case "getConnection" -> {
+                    return conexionProxy;
+                }
+                case "getResultSet" -> {
+                    Object r = invocar(real, m, args);
+                    return r instanceof ResultSet rs ? lectura(rs, forma, proxy) : r;
+                }
+                case "close" -> cerrarLectura();
+                default -> {
+                    if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer i
+                            && real instanceof PreparedStatement) {
+                        parametro(i, nombre.equals("setNull") ? null : args[1]);
+                    }
+                }
+            }
+            return invocar(real, m, args);
+        }
+
+        private void parametro(int indice, Object valor) {
+            while (parametros.size() < indice) parametros.add(null);
+            parametros.set(indice - 1, valor);
+        }
+
+        private Object ejecutar(Object proxy, Method m, Object[] args) throws Throwable {
+            if (args != null && args.length >= 1 && args[0] instanceof String s) sql = s;
+            cerrarLectura();
+            long inicio = System.nanoTime();
+            Object r;
+            try {
+                r = invocar(real, m, args);
+            } catch (Throwable ex) {
+                forma = perfilador.ejecutada(sql, System.nanoTime() - inicio, 0, true, parametrosParaLog());
+                throw ex;
+            }
+            long nanos = System.nanoTime() - inicio;
+            forma = perfilador.ejecutada(sql, nanos, afectadas(r), false, parametrosParaLog());
+            if (r instanceof int[] || r instanceof long[]) lote = 0;
+            return r instanceof ResultSet rs ? lectura(rs, forma, proxy) : r;
+        }
+
+        // en un lote solo quedan los parámetros de la última fila: se informa cuántas eran
+        private List<Object> parametrosParaLog() {
+            if (lote <= 1) return parametros;
+            List<Object> r = new ArrayList<>(parametros);
+            r.add("(lote de " + lote + " filas)");
+            return r;
+        }
+
+        private static long afectadas(Object r) {
+            if (r instanceof Integer n) return Math.max(n, 0);
+            if (r instanceof Long n) return Math.max(n, 0);
+            long total = 0;
+            if (r instanceof int[] v) for (int n : v) total += Math.max(n, 0);
+            if (r instanceof long[] v) for (long n : v) total += Math.max(n, 0);
+            return total;
+        }
+
+        private Object lectura(ResultSet rs, String forma, Object sentenciaProxy) {
+            abierta = new Lectura(rs, forma, sentenciaProxy);
+            return proxy(PROXY_RESULTSET, abierta);
+        }
+
+        private void cerrarLectura() {
+            if (abierta != null) abierta.informar();
+            abierta = null;
+        }
+    }
+
+    // ====== ResultSet: cuenta filas ======
+    private final class Lectura implements InvocationHandler {
+        private final ResultSet real;
+        private final String forma;
+        private final Object sentenciaProxy;
+        private long filas;
+        private boolean informada;
+
+        Lectura(ResultSet real, String forma, Object sentenciaProxy) {
+            this.real = real;
+            this.forma = forma;
+            this.sentenciaProxy = sentenciaProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            if (esIdentidad(m)) return identidad(proxy, m, args);
+            switch (m.getName()) {
+                case "next" -> {
+                    Object r = invocar(real, m, args);
+                    if (Boolean.TRUE.equals(r)) filas++;
+                    return r;
+                }
+                case "close" -> informar();
+                case "getStatement" -> {
+                    return sentenciaProxy;
+                }
+                default -> { }
+            }
+            return invocar(real, m, args);
+        }
+
+        void informar() {
+            if (informada || forma == null) return;
+            informada = true;
+            perfilador.filasLeidas(forma, filas);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.softfruver.inventario.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Leer lo propio con réplica (ver {@link ReplicaConfig}): tras un POST/PUT/DELETE
+ * la sesión queda fijada a la primaria durante {@code softfruver.replica.leer-propias-ms}.
+ * Así el listado al que redirige un alta, edición o borrado muestra el cambio
+ * aunque la réplica todavía no lo haya recibido. Los demás usuarios siguen
+ * leyendo de la réplica.
+ */
+public class LecturaPropia extends OncePerRequestFilter {
+
+    static final String SESION_HASTA = LecturaPropia.class.getName() + ".HASTA";
+
+    private final ReplicaLectura lectura;
+    private final long ventanaMs;
+
+    public LecturaPropia(ReplicaLectura lectura, long ventanaMs) {
+        this.lectura = lectura;
+        this.ventanaMs = ventanaMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpSession sesion = request.getSession(false);
+        Object hasta = sesion == null ? null : sesion.getAttribute(SESION_HASTA);
+        lectura.fijarPrimaria(hasta instanceof Long h && System.currentTimeMillis() < h);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            lectura.fijarPrimaria(false);
+            if (escribe(request.getMethod())) marcar(request);
+        }
+    }
+
+    private void marcar(HttpServletRequest request) {
+        HttpSession sesion = request.getSession(false);
+        if (sesion == null) return;
+        try {
+            sesion.setAttribute(SESION_HASTA, System.currentTimeMillis() + ventanaMs);
+        } catch (IllegalStateException ex) {
+            // sesión invalidada por el propio request (logout)
+        }
+    }
+
+    private static boolean escribe(String metodo) {
+        return !("GET".equals(metodo) || "HEAD".equals(metodo) || "OPTIONS".equals(metodo));
+    }
+}
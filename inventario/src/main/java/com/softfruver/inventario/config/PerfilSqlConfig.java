@@ -0,0 +1,44 @@
+package com.softfruver.inventario.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Activa el perfilador de SQL (softfruver.sql.perfil.activo): envuelve el
+ * DataSource del pool en {@link DataSourcePerfilado} después de configurarlo,
+ * así Hibernate, JdbcTemplate y Flyway pasan todos por él.
+ */
+@Configuration
+@ConditionalOnProperty(name = "softfruver.sql.perfil.activo", havingValue = "true", matchIfMissing = true)
+public class PerfilSqlConfig {
+
+    @Bean
+    public PerfiladorSql perfiladorSql(Environment env) {
+        return new PerfiladorSql(
+                env.getProperty("softfruver.sql.perfil.lenta-ms", Long.class, 200L),
+                env.getProperty("softfruver.sql.perfil.max-formas", Integer.class, 2000));
+    }
+
+    // static: los BeanPostProcessor se crean antes que el resto de la configuración.
+    // Solo los pools: lo que envuelve a otro DataSource (el propio perfilador, el ruteo a la
+    // réplica de ReplicaConfig) ya llega a un pool medido y contaría cada sentencia dos veces.
+    @Bean
+    public static BeanPostProcessor perfilarDataSource(ObjectProvider<PerfiladorSql> perfilador) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (bean instanceof DataSource ds && !(bean instanceof DelegatingDataSource)) {
+                    return new DataSourcePerfilado(ds, perfilador.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
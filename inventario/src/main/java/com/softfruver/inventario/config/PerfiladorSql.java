@@ -0,0 +1,159 @@
+package com.softfruver.inventario.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Estadísticas por "forma" de SQL (literales y listas IN reemplazados por ?,
+ * espacios colapsados): ejecuciones, tiempo total/promedio/máximo, filas
+ * leídas o afectadas y errores. Las alimenta {@link DataSourcePerfilado}, así
+ * que cubre JdbcTemplate, NamedParameterJdbcTemplate y Hibernate por igual.
+ *
+ * Las sentencias que tardan {@code softfruver.sql.perfil.lenta-ms} o más se
+ * registran en el log con sus parámetros, salvo las que tocan tablas o columnas
+ * sensibles (usuarios, claves, sesiones, captcha): de esas solo va la cantidad.
+ * Los binarios nunca se escriben, solo su tamaño. El top se ve en /config/sql.
+ */
+public class PerfiladorSql {
+
+    private static final Logger log = LoggerFactory.getLogger(PerfiladorSql.class);
+
+    public static final String OTRAS = "(otras formas: límite alcanzado)";
+
+    public enum Orden { TOTAL, PROMEDIO, MAXIMO, EJECUCIONES, FILAS }
+
+    /** Una forma de SQL con sus acumulados, en milisegundos */
+    public record Fila(String sql, long ejecuciones, double totalMs, double promedioMs, double maxMs,
+                       long filas, long errores) {}
+
+    private static final Pattern COMENTARIOS = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern CADENAS = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMEROS = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+    private static final Pattern LISTAS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    // Sentencias cuyos parámetros no van al log (hashes de clave, atributos de sesión)
+    private static final Pattern SENSIBLES = Pattern.compile(
+            "\\b(usuario|pass_hash|password|clave|spring_session\\w*|captcha_usado)\\b", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_CACHE_NORMALIZADAS = 5000;
+    private static final int MAX_PARAMETRO_LOG = 200;
+
+    private final long lentaNanos;
+    private final int maxFormas;
+    private final Map<String, Acumulado> porForma = new ConcurrentHashMap<>();
+    // el SQL de un PreparedStatement se repite tal cual: se normaliza una vez
+    private final Map<String, String> normalizadas = new ConcurrentHashMap<>();
+
+    public PerfiladorSql(long lentaMs, int maxFormas) {
+        this.lentaNanos = TimeUnit.MILLISECONDS.toNanos(lentaMs);
+        this.maxFormas = maxFormas;
+    }
+
+    // ====== Registro (lo llama DataSourcePerfilado) ======
+
+    /** Ejecución terminada; devuelve la forma para sumarle las filas del ResultSet después. */
+    String ejecutada(String sql, long nanos, long filasAfectadas, boolean error, List<Object> parametros) {
+        String forma = forma(sql);
+        Acumulado a = acumulado(forma);
+        a.ejecuciones.increment();
+        a.nanos.add(nanos);
+        a.maxNanos.accumulateAndGet(nanos, Math::max);
+        if (filasAfectadas > 0) a.filas.add(filasAfectadas);
+        if (error) a.errores.increment();
+        if (nanos >= lentaNanos) {
+            log.warn("SQL lenta ({} ms{}): {} | parámetros: {}",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), error ? ", con error" : "",
+                    ESPACIOS.matcher(String.valueOf(sql)).replaceAll(" ").trim(), describir(sql, parametros));
+        }
+        return forma;
+    }
+
+    void filasLeidas(String forma, long filas) {
+        if (filas > 0) acumulado(forma).filas.add(filas);
+    }
+
+    private Acumulado acumulado(String forma) {
+        Acumulado a = porForma.get(forma);
+        if (a != null) return a;
+        if (porForma.size() >= maxFormas) return porForma.computeIfAbsent(OTRAS, k -> new Acumulado());
+        return porForma.computeIfAbsent(forma, k -> new Acumulado());
+    }
+
+    String forma(String sql) {
+        if (sql == null) return "(sin sql)";
+        String f = normalizadas.get(sql);
+        if (f == null) {
+            f = normalizar(sql);
+            if (normalizadas.size() >= MAX_CACHE_NORMALIZADAS) normalizadas.clear();
+            normalizadas.put(sql, f);
+        }
+        return f;
+    }
+
+    static String normalizar(String sql) {
+        String s = COMENTARIOS.matcher(sql).replaceAll(" ");
+        s = CADENAS.matcher(s).replaceAll("?");
+        s = NUMEROS.matcher(s).replaceAll("?");
+        s = ESPACIOS.matcher(s).replaceAll(" ").trim();
+        return LISTAS.matcher(s).replaceAll("(?, ...)");
+    }
+
+    static String describir(String sql, List<Object> parametros) {
+        if (parametros == null || parametros.isEmpty()) return "[]";
+        if (sql == null || SENSIBLES.matcher(sql).find()) return "(" + parametros.size() + " ocultos)";
+        List<String> r = new ArrayList<>(parametros.size());
+        for (Object p : parametros) {
+            String v = p instanceof byte[] b ? "(" + b.length + " bytes)" : String.valueOf(p);
+            r.add(v.length() > MAX_PARAMETRO_LOG ? v.substring(0, MAX_PARAMETRO_LOG) + "…" : v);
+        }
+        return r.toString();
+    }
+
+    // ====== Consulta ======
+
+    public List<Fila> top(int n, Orden orden) {
+        Comparator<Fila> cmp = switch (orden) {
+            case TOTAL -> Comparator.comparingDouble(Fila::totalMs);
+            case PROMEDIO -> Comparator.comparingDouble(Fila::promedioMs);
+            case MAXIMO -> Comparator.comparingDouble(Fila::maxMs);
+            case EJECUCIONES -> Comparator.comparingLong(Fila::ejecuciones);
+            case FILAS -> Comparator.comparingLong(Fila::filas);
+        };
+        List<Fila> filas = new ArrayList<>(porForma.size());
+        porForma.forEach((sql, a) -> filas.add(a.fila(sql)));
+        filas.sort(cmp.reversed());
+        return filas.size() > n ? List.copyOf(filas.subList(0, n)) : filas;
+    }
+
+    public int formas() {
+        return porForma.size();
+    }
+
+    public void reiniciar() {
+        porForma.clear();
+    }
+
+    private static final class Acumulado {
+        final LongAdder ejecuciones = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder filas = new LongAdder();
+        final LongAdder errores = new LongAdder();
+
+        Fila fila(String sql) {
+            long n = ejecuciones.sum();
+            double totalMs = nanos.sum() / 1e6;
+            return new Fila(sql, n, totalMs, n == 0 ? 0 : totalMs / n, maxNanos.get() / 1e6,
+                    filas.sum(), errores.sum());
+        }
+    }
+}
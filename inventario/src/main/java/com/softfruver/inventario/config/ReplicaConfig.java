@@ -0,0 +1,81 @@
+package com.softfruver.inventario.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Réplica de lectura (softfruver.replica.activo): dos pools, la primaria de
+ * siempre (spring.datasource.*) y la réplica (softfruver.replica.*).
+ *
+ * El DataSource de la app es un {@link LazyConnectionDataSourceProxy}: la
+ * conexión real se pide recién en la primera sentencia, y si para entonces la
+ * transacción marcó la conexión como de solo lectura
+ * ({@code @Transactional(readOnly = true)}) sale de {@link ReplicaLectura}.
+ * Todo lo demás (escrituras, lecturas sin transacción, Flyway) va a la primaria.
+ * Una transacción readOnly dentro de otra que escribe sigue en la primaria, y
+ * quien acaba de escribir lee de la primaria unos segundos ({@link LecturaPropia}).
+ *
+ * Para probar en local: dos PostgreSQL (p. ej. 5432 y 5433, la segunda como
+ * réplica por streaming o solo con el mismo esquema) y
+ * softfruver.replica.url=jdbc:postgresql://127.0.0.1:5433/softfruver.
+ * /actuator/health → replicaLectura dice cuál se está usando.
+ */
+@Configuration
+@ConditionalOnProperty(name = "softfruver.replica.activo", havingValue = "true")
+public class ReplicaConfig {
+
+    // Mismo armado que el de Spring Boot; spring.datasource.hikari.* se sigue aplicando
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primariaDataSource(DataSourceProperties props) {
+        HikariDataSource ds = props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primaria");
+        return ds;
+    }
+
+    @Bean
+    @ConfigurationProperties("softfruver.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties props, Environment env) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("replica");
+        ds.setDriverClassName(props.determineDriverClassName());
+        ds.setJdbcUrl(env.getRequiredProperty("softfruver.replica.url"));
+        ds.setUsername(env.getProperty("softfruver.replica.username", props.determineUsername()));
+        ds.setPassword(env.getProperty("softfruver.replica.password", props.determinePassword()));
+        ds.setReadOnly(true);
+        // Arranca aunque la réplica no esté; ReplicaLectura la revisa y mientras tanto lee de la primaria
+        ds.setInitializationFailTimeout(-1);
+        return ds;
+    }
+
+    @Bean
+    public ReplicaLectura replicaLectura(@Qualifier("replicaDataSource") DataSource replica,
+                                         @Qualifier("primariaDataSource") DataSource primaria,
+                                         Environment env) {
+        return new ReplicaLectura(replica, primaria,
+                env.getProperty("softfruver.replica.max-retraso-ms", Long.class, 2000L));
+    }
+
+    @Bean
+    public LecturaPropia lecturaPropia(ReplicaLectura lectura, Environment env) {
+        return new LecturaPropia(lectura, env.getProperty("softfruver.replica.leer-propias-ms", Long.class, 5000L));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primariaDataSource") DataSource primaria, ReplicaLectura lectura) {
+        LazyConnectionDataSourceProxy ds = new LazyConnectionDataSourceProxy(primaria);
+        ds.setReadOnlyDataSource(lectura);
+        return ds;
+    }
+}
@@ -0,0 +1,122 @@
+package com.softfruver.inventario.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Conexiones de solo lectura (ver {@link ReplicaConfig}): van a la réplica
+ * mientras responda y no se atrase más de {@code maxRetrasoMs}; si no, a la
+ * primaria. El estado se revisa cada {@code softfruver.replica.revisar-ms} y
+ * también cae a la primaria en cuanto una conexión a la réplica falla.
+ *
+ * Un hilo marcado con {@link #fijarPrimaria} lee siempre de la primaria: lo usa
+ * {@link LecturaPropia} para que quien acaba de escribir vea su propio cambio.
+ *
+ * En /actuator/health aparece como "replicaLectura" con el servidor en uso;
+ * siempre UP: sin réplica la app sigue funcionando contra la primaria.
+ */
+public class ReplicaLectura extends DelegatingDataSource implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLectura.class);
+
+    // Retraso de reproducción; 0 si está al día o si no es una réplica (pruebas con dos servidores sueltos)
+    private static final String SQL_RETRASO = """
+            select case
+                     when not pg_is_in_recovery() then 0
+                     when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                     else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   end::bigint
+            """;
+
+    private final DataSource primaria;
+    private final long maxRetrasoMs;
+
+    private final ThreadLocal<Boolean> soloPrimaria = new ThreadLocal<>();
+
+    private volatile boolean disponible = false;
+    private volatile String motivo = "sin revisar";
+    private volatile long retrasoMs = -1;
+
+    public ReplicaLectura(DataSource replica, DataSource primaria, long maxRetrasoMs) {
+        super(replica);
+        this.primaria = primaria;
+        this.maxRetrasoMs = maxRetrasoMs;
+    }
+
+    /** true: las lecturas de este hilo van a la primaria hasta que se llame con false */
+    public void fijarPrimaria(boolean fijar) {
+        if (fijar) soloPrimaria.set(Boolean.TRUE);
+        else soloPrimaria.remove();
+    }
+
+    private boolean usarReplica() {
+        return disponible && soloPrimaria.get() == null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (usarReplica()) {
+            try {
+                return obtainTargetDataSource().getConnection();
+            } catch (SQLException ex) {
+                marcar(false, "conexión falló: " + ex.getMessage());
+            }
+        }
+        return primaria.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (usarReplica()) {
+            try {
+                return obtainTargetDataSource().getConnection(username, password);
+            } catch (SQLException ex) {
+                marcar(false, "conexión falló: " + ex.getMessage());
+            }
+        }
+        return primaria.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${softfruver.replica.revisar-ms:5000}")
+    public void revisar() {
+        try (Connection con = obtainTargetDataSource().getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(SQL_RETRASO)) {
+            rs.next();
+            retrasoMs = rs.getLong(1);
+            if (retrasoMs > maxRetrasoMs) marcar(false, "retraso de " + retrasoMs + " ms");
+            else marcar(true, null);
+        } catch (SQLException | RuntimeException ex) {
+            retrasoMs = -1;
+            marcar(false, "no responde: " + ex.getMessage());
+        }
+    }
+
+    private void marcar(boolean ok, String porque) {
+        boolean antes = disponible;
+        disponible = ok;
+        motivo = porque;
+        if (antes && !ok) log.warn("Réplica: lecturas pasan a la primaria ({})", porque);
+        else if (!antes && ok) log.info("Réplica: lecturas vuelven a la réplica (retraso {} ms)", retrasoMs);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder h = Health.up()
+                .withDetail("usando", disponible ? "replica" : "primaria")
+                .withDetail("retrasoMs", retrasoMs)
+                .withDetail("maxRetrasoMs", maxRetrasoMs);
+        if (motivo != null) h.withDetail("motivo", motivo);
+        return h.build();
+    }
+}
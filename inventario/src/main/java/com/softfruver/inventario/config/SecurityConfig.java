@@ -1,32 +1,62 @@
 package com.softfruver.inventario.config;
 
 import com.softfruver.inventario.security.CaptchaFilter;
+import com.softfruver.inventario.security.CaptchaToken;
 import com.softfruver.inventario.security.LoginFailureHandler;
 import com.softfruver.inventario.security.LogoutSuccessHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+  private final CaptchaToken captchaToken;
+
+  public SecurityConfig(CaptchaToken captchaToken) {
+    this.captchaToken = captchaToken;
+  }
+
   @Bean
   public CaptchaFilter captchaFilter() {
-    return new CaptchaFilter();
+    return new CaptchaFilter(captchaToken);
   }
 
   @Bean
   public LoginFailureHandler loginFailureHandler() {
-    return new LoginFailureHandler();
+    return new LoginFailureHandler(captchaToken.activo());
   }
 
   @Bean
   public LogoutSuccessHandler logoutSuccessHandler() {
-    return new LogoutSuccessHandler();
+    return new LogoutSuccessHandler(captchaToken.activo());
+  }
+
+  // Actuator (health, info, prometheus) solo en el puerto de gestión
+  // (management.server.port, escuchando en 127.0.0.1): el scraper entra sin
+  // sesión ni credenciales porque desde afuera no se llega a ese puerto. Si el
+  // puerto no está configurado, los endpoints quedan en el puerto de la app y se niegan.
+  @Bean
+  @Order(1)
+  SecurityFilterChain actuatorFilterChain(HttpSecurity http,
+      @Value("${management.server.port:-1}") int puertoGestion) throws Exception {
+    http
+        .securityMatcher(EndpointRequest.toAnyEndpoint())
+        .authorizeHttpRequests(auth -> auth.anyRequest().access((autenticacion, ctx) ->
+            new AuthorizationDecision(puertoGestion > 0 && ctx.getRequest().getLocalPort() == puertoGestion)))
+        .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+    return http.build();
   }
 
   @Bean
@@ -66,6 +96,14 @@ public class SecurityConfig {
                 "frame-ancestors 'self'")))
         .sessionManagement(sm -> sm.sessionFixation().migrateSession());
 
+    // Captcha por token: nada guarda en sesión a un anónimo (CSRF en cookie; sin
+    // petición guardada, el login siempre va a /menu). La sesión nace al autenticarse.
+    if (captchaToken.activo()) {
+      http
+          .csrf(csrf -> csrf.csrfTokenRepository(new CookieCsrfTokenRepository()))
+          .requestCache(rc -> rc.requestCache(new NullRequestCache()));
+    }
+
     // Captcha ANTES del filtro de auth
     http.addFilterBefore(captchaFilter(), UsernamePasswordAuthenticationFilter.class);
 
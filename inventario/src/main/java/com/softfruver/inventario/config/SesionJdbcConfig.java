@@ -0,0 +1,79 @@
+package com.softfruver.inventario.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.FlushMode;
+import org.springframework.session.SaveMode;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.jdbc.config.annotation.web.http.EnableJdbcHttpSession;
+
+import java.time.Duration;
+
+/**
+ * Sesiones en PostgreSQL (softfruver.sesion.almacen=jdbc, tablas de V16). La
+ * dependencia va siempre; la autoconfiguración de Spring Boot está excluida
+ * (InventarioApplication), así que con almacen=memoria las sesiones siguen en
+ * Tomcat y con jdbc se configuran acá: escritura solo de los atributos que
+ * cambiaron, una vez al final de la petición.
+ *
+ * La limpieza de vencidas reemplaza a la de Spring Session (cleanupCron
+ * desactivado): en vez de un único DELETE sobre todas las vencidas, tandas
+ * cortas en transacciones separadas, y con SKIP LOCKED para que varias
+ * instancias limpiando a la vez no se esperen entre sí.
+ */
+@Configuration
+@ConditionalOnProperty(name = "softfruver.sesion.almacen", havingValue = "jdbc")
+@EnableJdbcHttpSession(tableName = "softfruver.spring_session", cleanupCron = Scheduled.CRON_DISABLED,
+        flushMode = FlushMode.ON_SAVE, saveMode = SaveMode.ON_SET_ATTRIBUTE)
+public class SesionJdbcConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SesionJdbcConfig.class);
+
+    private static final String SQL_BORRAR_TANDA = """
+            delete from softfruver.spring_session
+            where primary_id in (
+              select primary_id from softfruver.spring_session
+              where expiry_time < ?
+              limit ?
+              for update skip locked)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final int tanda;
+
+    public SesionJdbcConfig(JdbcTemplate jdbc, @Value("${softfruver.sesion.limpiar-tanda:500}") int tanda) {
+        this.jdbc = jdbc;
+        this.tanda = tanda;
+    }
+
+    // Misma duración que las sesiones de Tomcat
+    @Bean
+    SessionRepositoryCustomizer<JdbcIndexedSessionRepository> duracionSesion(
+            @Value("${server.servlet.session.timeout:30m}") Duration duracion) {
+        return repo -> repo.setDefaultMaxInactiveInterval(duracion);
+    }
+
+    @Scheduled(cron = "${softfruver.sesion.limpiar-cron:0 * * * * *}")
+    public void limpiarVencidas() {
+        long ahora = System.currentTimeMillis();
+        int total = 0;
+        try {
+            int borradas;
+            do {
+                borradas = jdbc.update(SQL_BORRAR_TANDA, ahora, tanda);
+                total += borradas;
+            } while (borradas == tanda);
+        } catch (RuntimeException ex) {
+            log.warn("Sesiones: limpieza de vencidas falló tras borrar {} ({})", total, ex.toString());
+            return;
+        }
+        if (total > 0) log.debug("Sesiones: {} vencidas borradas", total);
+    }
+}
@@ -0,0 +1,62 @@
+package com.softfruver.inventario.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer {@code softfruver.metodo} (tags clase, metodo, excepcion) para cada
+ * método público de los @Service y @Repository del proyecto. Los percentiles e
+ * histogramas se configuran en application.properties (management.metrics.distribution.*).
+ *
+ * Los repositorios Spring Data (ClienteRepository, ProveedorRepository...) no
+ * pasan por aquí: ya los mide {@code spring.data.repository.invocations}.
+ */
+@Aspect
+@Component
+public class TiemposMetodos {
+
+    public static final String METRICA = "softfruver.metodo";
+
+    private final MeterRegistry registry;
+    // el Timer sin excepción se busca una vez por método (es el camino de cada llamada)
+    private final Map<Method, Timer> exitosos = new ConcurrentHashMap<>();
+
+    public TiemposMetodos(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.softfruver.inventario..*.*(..)) && "
+            + "(@within(org.springframework.stereotype.Service) || @within(org.springframework.stereotype.Repository))")
+    public Object medir(ProceedingJoinPoint pjp) throws Throwable {
+        long inicio = System.nanoTime();
+        Method m = ((MethodSignature) pjp.getSignature()).getMethod();
+        try {
+            Object r = pjp.proceed();
+            exitosos.computeIfAbsent(m, k -> timer(pjp, "none"))
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return r;
+        } catch (Throwable ex) {
+            timer(pjp, ex.getClass().getSimpleName()).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+    }
+
+    private Timer timer(ProceedingJoinPoint pjp, String excepcion) {
+        return Timer.builder(METRICA)
+                .description("Duración de métodos de servicios y repositorios")
+                .tag("clase", pjp.getSignature().getDeclaringType().getSimpleName())
+                .tag("metodo", pjp.getSignature().getName())
+                .tag("excepcion", excepcion)
+                .register(registry);
+    }
+}
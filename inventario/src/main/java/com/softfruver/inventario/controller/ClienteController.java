@@ -1,47 +1,77 @@
 package com.softfruver.inventario.controller;
 
 import com.softfruver.inventario.service.ClienteService;
-import com.softfruver.inventario.repository.projection.ClienteListado;
+import com.softfruver.inventario.service.IndiceNombres;
+import com.softfruver.inventario.service.IndicesBusqueda;
+import com.softfruver.inventario.repository.ListadoSaldosRepository;
+import com.softfruver.inventario.web.RespuestaOpciones;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.List;
+
 @Controller
 @RequestMapping("/clientes")
 @Validated
 @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
 public class ClienteController {
 
+  private static final int TAM_PAGINA = 10;
+  private static final int TAM_PAGINA_MAX = 100;
+
   private final ClienteService service;
+  private final IndicesBusqueda indices;
 
-  public ClienteController(ClienteService service) {
+  public ClienteController(ClienteService service, IndicesBusqueda indices) {
     this.service = service;
+    this.indices = indices;
   }
 
   @GetMapping
   public String listado(
       @RequestParam(value = "estado", required = false) String estado,
       @RequestParam(value = "q", required = false) String q,
-      @PageableDefault(size = 10) Pageable pageable,
+      // cursor: última fila (despues) o primera (antes) de la página que se veía, ver ListadoSaldosRepository.Cursor
+      @RequestParam(value = "despues", required = false) String despues,
+      @RequestParam(value = "antes", required = false) String antes,
+      @RequestParam(value = "tam", defaultValue = "" + TAM_PAGINA) int tam,
+      @RequestParam(value = "total", defaultValue = "true") boolean total,
       Model model
   ) {
     boolean verArchivados = "archivados".equalsIgnoreCase(estado);
     model.addAttribute("estado", verArchivados ? "archivados" : "activos");
     model.addAttribute("q", q);
 
-    Page<ClienteListado> page = service.buscarPorEstado(verArchivados, q, pageable);
-    model.addAttribute("page", page);
+    int tamano = (tam < 1 || tam > TAM_PAGINA_MAX) ? TAM_PAGINA : tam;
+    ListadoSaldosRepository.Pagina pagina = service.buscarPorEstado(verArchivados, q,
+        ListadoSaldosRepository.Cursor.leer(despues), ListadoSaldosRepository.Cursor.leer(antes), tamano, total);
+    model.addAttribute("pagina", pagina);
+    model.addAttribute("tam", tamano);
     return "clientes/lista";
   }
 
+  // Autocompletar (JSON): activos, sin tildes ni mayúsculas, prefijo antes que coincidencia en medio.
+  // ETag = versión del índice: 304 mientras no cambien los clientes
+  @GetMapping("/typeahead")
+  @ResponseBody
+  public ResponseEntity<List<IndiceNombres.Coincidencia>> typeahead(
+      @RequestParam(value = "q", required = false) String q,
+      @RequestParam(value = "limite", defaultValue = "10") int limite,
+      WebRequest request) {
+    String etag = indices.etag(IndicesBusqueda.Catalogo.CLIENTES);
+    if (request.checkNotModified(etag)) return null;
+    return RespuestaOpciones.conEtag(etag,
+        indices.buscar(IndicesBusqueda.Catalogo.CLIENTES, q, Math.max(1, Math.min(limite, 50))));
+  }
+
   @PostMapping
   @PreAuthorize("hasRole('ADMIN')")
   public String crear(@RequestParam @NotBlank String nombre,
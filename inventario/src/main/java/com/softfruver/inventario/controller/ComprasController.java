@@ -42,10 +42,6 @@ public class ComprasController {
     model.addAttribute("q", q);
     model.addAttribute("desde", desde);
     model.addAttribute("hasta", hasta);
-
-    // datalist del filtro Proveedor
-    model.addAttribute("proveedores", comprasRepository.opcionesProveedores());
-
     return "compras/lista";
   }
 
@@ -53,8 +49,6 @@ public class ComprasController {
   @GetMapping("/nueva")
   @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
   public String nuevaCompra(Model model) {
-    model.addAttribute("proveedores", comprasRepository.opcionesProveedores());
-    model.addAttribute("productos", comprasRepository.opcionesProductos());
     model.addAttribute("hoy", LocalDate.now());
     return "compras/form";
   }
@@ -86,8 +80,6 @@ public class ComprasController {
       return "redirect:/compras/" + compraId;
 
     } catch (Exception ex) {
-      model.addAttribute("proveedores", comprasRepository.opcionesProveedores());
-      model.addAttribute("productos", comprasRepository.opcionesProductos());
       model.addAttribute("hoy", fecha != null ? fecha : LocalDate.now());
       model.addAttribute("error", ex.getMessage());
       return "compras/form";
@@ -116,21 +108,6 @@ public class ComprasController {
     return "compras/detalle";
   }
 
-  // ---------- Opciones (si las usas vía Ajax) ----------
-  @GetMapping("/opciones/proveedores")
-  @ResponseBody
-  @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
-  public List<ComprasRepository.Opcion> opcionesProveedores() {
-    return comprasRepository.opcionesProveedores();
-  }
-
-  @GetMapping("/opciones/productos")
-  @ResponseBody
-  @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
-  public List<ComprasRepository.Opcion> opcionesProductos() {
-    return comprasRepository.opcionesProductos();
-  }
-
   // ---------- EDITAR (form) ----------
   @GetMapping("/{id}/editar")
   @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
@@ -147,10 +124,6 @@ public class ComprasController {
     model.addAttribute("compraId", id);
     model.addAttribute("detalle", detalle);
 
-    // combos
-    model.addAttribute("proveedores", comprasRepository.opcionesProveedores());
-    model.addAttribute("productos", comprasRepository.opcionesProductos());
-
     return "compras/form-editar";
   }
 
@@ -183,9 +156,6 @@ public class ComprasController {
 
     } catch (Exception ex) {
       model.addAttribute("error", ex.getMessage());
-      model.addAttribute("proveedores", comprasRepository.opcionesProveedores());
-      model.addAttribute("productos", comprasRepository.opcionesProductos());
-
       var cab = comprasRepository.obtenerCabecera(id);
       var detalle = comprasRepository.obtenerDetalle(id);
       model.addAttribute("cab", cab);
@@ -0,0 +1,69 @@
+package com.softfruver.inventario.controller;
+
+import com.softfruver.inventario.service.ExportacionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Descargas CSV para contabilidad, p. ej. /exportar/ventas?desde=2026-01-01&hasta=2026-01-31.
+ * El cuerpo se escribe en un hilo aparte (StreamingResponseBody) directamente
+ * desde el cursor de la BD: memoria constante y los primeros bytes salen enseguida.
+ */
+@Controller
+@RequestMapping("/exportar")
+public class ExportacionController {
+
+    private static final MediaType CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final ExportacionService exportacion;
+
+    public ExportacionController(ExportacionService exportacion) {
+        this.exportacion = exportacion;
+    }
+
+    @GetMapping("/ventas")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public ResponseEntity<StreamingResponseBody> ventas(
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return descarga("ventas", desde, hasta, out -> exportacion.ventas(desde, hasta, out));
+    }
+
+    @GetMapping("/compras")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public ResponseEntity<StreamingResponseBody> compras(
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return descarga("compras", desde, hasta, out -> exportacion.compras(desde, hasta, out));
+    }
+
+    @GetMapping("/pagos")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public ResponseEntity<StreamingResponseBody> pagos(
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return descarga("pagos", desde, hasta, out -> exportacion.pagos(desde, hasta, out));
+    }
+
+    // ventas_2026-01-01_2026-01-31.csv ("inicio"/"hoy" si falta un extremo)
+    private static ResponseEntity<StreamingResponseBody> descarga(String nombre, LocalDate desde, LocalDate hasta,
+                                                                  StreamingResponseBody cuerpo) {
+        String archivo = nombre + "_" + (desde != null ? desde : "inicio") + "_" + (hasta != null ? hasta : "hoy") + ".csv";
+        return ResponseEntity.ok()
+                .contentType(CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(archivo).build().toString())
+                .body(cuerpo);
+    }
+}
@@ -2,12 +2,18 @@ package com.softfruver.inventario.controller;
 
 import com.softfruver.inventario.repository.InventarioRepository;
 import com.softfruver.inventario.repository.projection.InventarioItem;
+import com.softfruver.inventario.service.InventarioService;
+import com.softfruver.inventario.service.StockProyeccion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Controller
@@ -15,20 +21,51 @@ import java.util.List;
 public class InventarioController {
 
     private final InventarioRepository inventarioRepository;
+    private final StockProyeccion stock;
+    private final InventarioService inventarioService;
 
     @GetMapping("/inventario")
     public String lista(@RequestParam(name = "q", required = false) String q, Model model) {
         final String criterio = (q == null) ? "" : q.trim();
 
-        List<InventarioItem> items = criterio.isEmpty()
-                ? inventarioRepository.listar()
-                : inventarioRepository.buscar(criterio);
+        // En memoria si la proyección está cargada; si no, como antes contra la BD
+        if (stock.disponible()) {
+            model.addAttribute("items", criterio.isEmpty() ? stock.listar() : stock.buscar(criterio));
+            model.addAttribute("totalProductos", stock.totalProductos());
+            model.addAttribute("totalAlertas", stock.totalAlertas());
+        } else {
+            List<InventarioItem> items = criterio.isEmpty()
+                    ? inventarioRepository.listar()
+                    : inventarioRepository.buscar(criterio);
 
-        model.addAttribute("items", items);
-        model.addAttribute("totalProductos", inventarioRepository.totalProductos());
-        model.addAttribute("totalAlertas", inventarioRepository.totalAlertas());
+            model.addAttribute("items", items);
+            model.addAttribute("totalProductos", inventarioRepository.totalProductos());
+            model.addAttribute("totalAlertas", inventarioRepository.totalAlertas());
+        }
         model.addAttribute("q", criterio);
 
         return "inventario/lista";
     }
+
+    // Umbral de stock bajo por producto (vacío = volver al de por defecto)
+    @PostMapping("/inventario/umbral")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public String guardarUmbral(@RequestParam Long productoId,
+                                @RequestParam(required = false) String umbralKg,
+                                @RequestParam(name = "q", required = false) String q,
+                                RedirectAttributes ra) {
+        try {
+            BigDecimal umbral = (umbralKg == null || umbralKg.isBlank())
+                    ? null
+                    : new BigDecimal(umbralKg.trim().replace(',', '.'));
+            inventarioService.guardarUmbral(productoId, umbral);
+            ra.addFlashAttribute("ok", "umbral");
+        } catch (NumberFormatException ex) {
+            ra.addFlashAttribute("err", "Umbral inválido: " + umbralKg);
+        } catch (IllegalArgumentException ex) {
+            ra.addFlashAttribute("err", ex.getMessage());
+        }
+        if (q != null && !q.isBlank()) ra.addAttribute("q", q.trim());
+        return "redirect:/inventario";
+    }
 }
@@ -2,15 +2,23 @@ package com.softfruver.inventario.controller;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.Locale;
 
+import org.springframework.dao.DataAccessException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.softfruver.inventario.repository.PagosRepository;
+import com.softfruver.inventario.service.CatalogoOpciones;
 import com.softfruver.inventario.service.PagosService;
 
 @Controller
@@ -19,13 +27,18 @@ public class PagosController {
 
     private final PagosRepository pagosRepository;
     private final PagosService pagosService;
+    private final CatalogoOpciones opciones;
 
-    public PagosController(PagosRepository pagosRepository, PagosService pagosService) {
+    public PagosController(PagosRepository pagosRepository, PagosService pagosService,
+                           CatalogoOpciones opciones) {
         this.pagosRepository = pagosRepository;
         this.pagosService = pagosService;
+        this.opciones = opciones;
     }
 
     // ---------- Lista ----------
+    private static final int TAM_PAGINA = 50;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
     public String listaPagos(
@@ -33,21 +46,28 @@ public class PagosController {
             @RequestParam(name = "tipo", required = false) String tipo, // CLIENTE | PROVEEDOR | null
             @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
             @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            // cursor: última fila de la página anterior
+            @RequestParam(name = "antesDe", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(name = "antesId", required = false) Long antesId,
+            @RequestParam(name = "antesTipo", required = false) String antesTipo,
             Model model) {
 
         final String filtro = (q == null || q.isBlank()) ? null : q.trim();
         final String tipoNorm = (tipo == null || tipo.isBlank()) ? null : tipo.trim().toUpperCase();
 
-        var items = pagosRepository.buscarPagos(desde, hasta, filtro, tipoNorm);
+        PagosRepository.PaginaPagos pagina = pagosRepository.buscarPagosPagina(
+                desde, hasta, filtro, tipoNorm, antesDe, antesId, antesTipo, TAM_PAGINA);
 
-        model.addAttribute("items", items);
+        model.addAttribute("items", pagina.items());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("esPrimeraPagina", antesId == null);
         model.addAttribute("q", q);
         model.addAttribute("tipo", tipoNorm);
         model.addAttribute("desde", desde);
         model.addAttribute("hasta", hasta);
 
-        model.addAttribute("clientes", pagosRepository.opcionesClientes());
-        model.addAttribute("proveedores", pagosRepository.opcionesProveedores());
+        model.addAttribute("clientes", opciones.clientes());
+        model.addAttribute("proveedores", opciones.proveedores());
 
         return "pagos/lista";
     }
@@ -56,8 +76,8 @@ public class PagosController {
     @GetMapping("/nuevo")
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
     public String nuevoPago(Model model) {
-        model.addAttribute("clientes", pagosRepository.opcionesClientes());
-        model.addAttribute("proveedores", pagosRepository.opcionesProveedores());
+        model.addAttribute("clientes", opciones.clientes());
+        model.addAttribute("proveedores", opciones.proveedores());
         model.addAttribute("hoy", LocalDate.now());
         return "pagos/form";
     }
@@ -74,22 +94,103 @@ public class PagosController {
             Model model) {
         try {
             Long pagoId = pagosService.registrarPago(tipo, refId, fecha, monto, metodo);
-            return "redirect:/pagos/" + pagoId;
+            return "redirect:" + ruta(tipo, pagoId);
 
         } catch (Exception ex) {
-            model.addAttribute("clientes", pagosRepository.opcionesClientes());
-            model.addAttribute("proveedores", pagosRepository.opcionesProveedores());
+            model.addAttribute("clientes", opciones.clientes());
+            model.addAttribute("proveedores", opciones.proveedores());
             model.addAttribute("hoy", (fecha != null ? fecha : LocalDate.now()));
             model.addAttribute("error", ex.getMessage());
             return "pagos/form";
         }
     }
 
+    // ---------- Cobros de ruta (lote) ----------
+    /** Fila de la planilla tal como se escribió, con sus errores al volver a mostrarla */
+    public record FilaLote(Long refId, String refNombre, BigDecimal monto, String metodo, List<String> errores) {}
+
+    @GetMapping("/lote")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public String nuevoLote(Model model) {
+        if (!model.containsAttribute("hoy")) model.addAttribute("hoy", LocalDate.now());
+        model.addAttribute("filas", List.of());
+        // Token de la planilla: reenviar el mismo POST (F5, doble clic) no la guarda dos veces
+        model.addAttribute("loteToken", UUID.randomUUID());
+        return "pagos/lote";
+    }
+
+    @PostMapping("/lote")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public String guardarLote(
+            @RequestParam("fecha") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(name = "refId", required = false) List<Long> refIds,
+            @RequestParam(name = "monto", required = false) List<BigDecimal> montos,
+            @RequestParam(name = "metodo", required = false) List<String> metodos,
+            @RequestParam(name = "loteToken", required = false) UUID token,
+            @RequestParam MultiValueMap<String, String> form, // refNombre sin partir por comas
+            RedirectAttributes ra,
+            Model model) {
+
+        // Las filas que quedaron en blanco no cuentan
+        List<FilaLote> filas = new ArrayList<>();
+        List<String> refNombres = form.get("refNombre");
+        int n = refIds == null ? 0 : refIds.size();
+        for (int i = 0; i < n; i++) {
+            Long refId = refIds.get(i);
+            BigDecimal monto = valor(montos, i);
+            if (refId == null && monto == null) continue;
+            filas.add(new FilaLote(refId, valor(refNombres, i), monto, valor(metodos, i), new ArrayList<>()));
+        }
+
+        List<PagosService.PagoLote> pagos = filas.stream()
+                .map(f -> new PagosService.PagoLote("CLIENTE", f.refId(), fecha, f.monto(), f.metodo()))
+                .toList();
+        model.addAttribute("hoy", fecha);
+        model.addAttribute("loteToken", token);
+        model.addAttribute("filas", filas);
+        PagosService.ResultadoLote r;
+        try {
+            r = pagosService.registrarLote(token, pagos);
+        } catch (DataAccessException ex) {
+            model.addAttribute("error", "No se guardó ningún pago: " + ex.getMostSpecificCause().getMessage());
+            return "pagos/lote";
+        }
+
+        // Guardado: redirect para que recargar la página no reenvíe el POST
+        if (r.ok()) {
+            ra.addFlashAttribute("guardados", r.ids());
+            ra.addFlashAttribute("hoy", fecha);
+            return "redirect:/pagos/lote";
+        }
+
+        // Errores de fila junto a su fila; los generales (fila 0) arriba
+        List<String> generales = new ArrayList<>();
+        for (PagosService.ErrorFila e : r.errores()) {
+            if (e.fila() >= 1 && e.fila() <= filas.size()) filas.get(e.fila() - 1).errores().add(e.mensaje());
+            else generales.add(e.mensaje());
+        }
+        model.addAttribute("error", generales.isEmpty()
+                ? "No se guardó ningún pago: revise las filas marcadas."
+                : String.join(" ", generales));
+        return "pagos/lote";
+    }
+
+    private static <T> T valor(List<T> lista, int i) {
+        return lista != null && i < lista.size() ? lista.get(i) : null;
+    }
+
+    // Los ids se repiten entre cobros y pagos: las rutas llevan el tipo (/pagos/cliente/7)
+    private static final String RUTA = "/{tipo:cliente|proveedor}/{id}";
+
+    private static String ruta(String tipo, Long id) {
+        return "/pagos/" + tipo.trim().toLowerCase(Locale.ROOT) + "/" + id;
+    }
+
     // ---------- Detalle ----------
-    @GetMapping("/{id}")
+    @GetMapping(RUTA)
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
-    public String verPago(@PathVariable Long id, Model model) {
-        var cab = pagosRepository.obtenerCabecera(id);
+    public String verPago(@PathVariable String tipo, @PathVariable Long id, Model model) {
+        var cab = pagosRepository.obtenerCabecera(tipo.toUpperCase(Locale.ROOT), id);
         if (cab == null) {
             model.addAttribute("items", List.of());
             model.addAttribute("error", "El pago " + id + " no existe.");
@@ -101,10 +202,10 @@ public class PagosController {
     }
 
     // ---------- Editar (form) ----------
-    @GetMapping("/{id}/editar")
+    @GetMapping(RUTA + "/editar")
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
-    public String editarPago(@PathVariable Long id, Model model) {
-        var cab = pagosRepository.obtenerCabecera(id);
+    public String editarPago(@PathVariable String tipo, @PathVariable Long id, Model model) {
+        var cab = pagosRepository.obtenerCabecera(tipo.toUpperCase(Locale.ROOT), id);
         if (cab == null) {
             model.addAttribute("error", "El pago " + id + " no existe.");
             model.addAttribute("items", List.of());
@@ -112,31 +213,33 @@ public class PagosController {
         }
         model.addAttribute("cab", cab);
         model.addAttribute("pagoId", id);
-        model.addAttribute("clientes", pagosRepository.opcionesClientes());
-        model.addAttribute("proveedores", pagosRepository.opcionesProveedores());
+        model.addAttribute("clientes", opciones.clientes());
+        model.addAttribute("proveedores", opciones.proveedores());
         return "pagos/form-editar";
     }
 
     // ---------- Actualizar ----------
-    @PostMapping("/{id}")
+    // El tipo es el de la ruta: cambiarlo sería otro pago (otra tabla), no una edición
+    @PostMapping(RUTA)
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
     public String actualizarPago(
+            @PathVariable String tipo,
             @PathVariable Long id,
-            @RequestParam("tipo") String tipo,
             @RequestParam("refId") Long refId,
             @RequestParam("fecha") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
             @RequestParam("monto") BigDecimal monto,
             @RequestParam("metodo") String metodo,
             Model model) {
+        String t = tipo.toUpperCase(Locale.ROOT);
         try {
-            pagosService.modificarPago(id, tipo, refId, fecha, monto, metodo);
-            return "redirect:/pagos/" + id;
+            pagosService.modificarPago(id, t, refId, fecha, monto, metodo);
+            return "redirect:" + ruta(t, id);
 
         } catch (Exception ex) {
             model.addAttribute("error", ex.getMessage());
-            model.addAttribute("clientes", pagosRepository.opcionesClientes());
-            model.addAttribute("proveedores", pagosRepository.opcionesProveedores());
-            var cab = pagosRepository.obtenerCabecera(id);
+            model.addAttribute("clientes", opciones.clientes());
+            model.addAttribute("proveedores", opciones.proveedores());
+            var cab = pagosRepository.obtenerCabecera(t, id);
             model.addAttribute("cab", cab);
             model.addAttribute("pagoId", id);
             return "pagos/form-editar";
@@ -144,15 +247,15 @@ public class PagosController {
     }
 
     // ---------- Eliminar ----------
-    @PostMapping("/{id}/eliminar")
+    @PostMapping(RUTA + "/eliminar")
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
-    public String eliminarPago(@PathVariable Long id, Model model) {
+    public String eliminarPago(@PathVariable String tipo, @PathVariable Long id, Model model) {
         try {
-            pagosService.eliminarPago(id);
+            pagosService.eliminarPago(tipo, id);
             return "redirect:/pagos";
         } catch (Exception ex) {
             model.addAttribute("error", ex.getMessage());
-            return "redirect:/pagos/" + id;
+            return "redirect:" + ruta(tipo, id);
         }
     }
 }
@@ -1,12 +1,9 @@
 package com.softfruver.inventario.controller;
 
-import com.softfruver.inventario.repository.projection.ProveedorListado;
+import com.softfruver.inventario.repository.ListadoSaldosRepository;
 import com.softfruver.inventario.service.ProveedorService;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,6 +17,9 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
 public class ProveedorController {
 
+  private static final int TAM_PAGINA = 10;
+  private static final int TAM_PAGINA_MAX = 100;
+
   private final ProveedorService service;
 
   public ProveedorController(ProveedorService service) {
@@ -30,15 +30,22 @@ public class ProveedorController {
   public String listado(
       @RequestParam(value = "estado", required = false) String estado,
       @RequestParam(value = "q", required = false) String q,
-      @PageableDefault(size = 10) Pageable pageable,
+      // cursor: última fila (despues) o primera (antes) de la página que se veía, ver ListadoSaldosRepository.Cursor
+      @RequestParam(value = "despues", required = false) String despues,
+      @RequestParam(value = "antes", required = false) String antes,
+      @RequestParam(value = "tam", defaultValue = "" + TAM_PAGINA) int tam,
+      @RequestParam(value = "total", defaultValue = "true") boolean total,
       Model model
   ) {
     boolean verArchivados = "archivados".equalsIgnoreCase(estado);
-    Page<ProveedorListado> page = service.buscarPorEstado(verArchivados, q, pageable);
+    int tamano = (tam < 1 || tam > TAM_PAGINA_MAX) ? TAM_PAGINA : tam;
+    ListadoSaldosRepository.Pagina pagina = service.buscarPorEstado(verArchivados, q,
+        ListadoSaldosRepository.Cursor.leer(despues), ListadoSaldosRepository.Cursor.leer(antes), tamano, total);
 
     model.addAttribute("estado", verArchivados ? "archivados" : "activos");
     model.addAttribute("q", q);
-    model.addAttribute("page", page);
+    model.addAttribute("pagina", pagina);
+    model.addAttribute("tam", tamano);
     return "proveedores/lista";
   }
 
@@ -2,6 +2,7 @@ package com.softfruver.inventario.controller;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,8 +11,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import com.softfruver.inventario.repository.VentasRepository;
+import com.softfruver.inventario.service.VentasImportService;
 import com.softfruver.inventario.service.VentasService;
 
 @Controller
@@ -20,41 +23,64 @@ public class VentasController {
 
     private final VentasRepository ventasRepository;
     private final VentasService ventasService;
+    private final VentasImportService ventasImportService;
 
-    public VentasController(VentasRepository ventasRepository, VentasService ventasService) {
+    public VentasController(VentasRepository ventasRepository, VentasService ventasService,
+                            VentasImportService ventasImportService) {
         this.ventasRepository = ventasRepository;
         this.ventasService = ventasService;
+        this.ventasImportService = ventasImportService;
     }
 
     // ---------- Lista ----------
+    private static final int TAM_PAGINA = 50;
+    private static final int TAM_PAGINA_MAX = 200;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
     public String listaVentas(
             @RequestParam(name = "q", required = false) String q, // nombre del cliente
             @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
             @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            // cursor: última fila de la página anterior
+            @RequestParam(name = "antesDe", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(name = "antesId", required = false) Long antesId,
             Model model) {
         String cli = (q == null || q.isBlank()) ? null : q.trim();
 
-        List<VentasRepository.VentaItemListado> items = ventasRepository.buscarVentas(desde, hasta, cli);
+        VentasRepository.PaginaVentas pagina =
+                ventasRepository.buscarVentasPagina(desde, hasta, cli, antesDe, antesId, TAM_PAGINA);
 
-        model.addAttribute("items", items);
+        model.addAttribute("items", pagina.items());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("esPrimeraPagina", antesId == null);
         model.addAttribute("q", q);
         model.addAttribute("desde", desde);
         model.addAttribute("hasta", hasta);
 
-        // Para el datalist del filtro Cliente
-        model.addAttribute("clientes", ventasRepository.opcionesClientes());
-
         return "ventas/lista";
     }
 
+    // ---------- Lista (JSON, mismo cursor que la vista) ----------
+    @GetMapping("/pagina")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public VentasRepository.PaginaVentas paginaVentas(
+            @RequestParam(name = "q", required = false) String q,
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(name = "antesDe", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(name = "antesId", required = false) Long antesId,
+            @RequestParam(name = "tam", defaultValue = "" + TAM_PAGINA) int tam) {
+        String cli = (q == null || q.isBlank()) ? null : q.trim();
+        int limite = (tam < 1 || tam > TAM_PAGINA_MAX) ? TAM_PAGINA : tam;
+        return ventasRepository.buscarVentasPagina(desde, hasta, cli, antesDe, antesId, limite);
+    }
+
     // ---------- Nueva venta (form) ----------
     @GetMapping("/nueva")
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
     public String nuevaVenta(Model model) {
-        model.addAttribute("clientes", ventasRepository.opcionesClientes());
-        model.addAttribute("productos", ventasRepository.opcionesProductos());
         model.addAttribute("hoy", LocalDate.now());
         return "ventas/form";
     }
@@ -87,15 +113,46 @@ public class VentasController {
             return "redirect:/ventas/" + ventaId;
 
         } catch (Exception ex) {
-            // Re-cargar combos y devolver el form con error
-            model.addAttribute("clientes", ventasRepository.opcionesClientes());
-            model.addAttribute("productos", ventasRepository.opcionesProductos());
+            // Devolver el form con error
             model.addAttribute("hoy", fecha != null ? fecha : LocalDate.now());
             model.addAttribute("error", ex.getMessage());
             return "ventas/form";
         }
     }
 
+    // ---------- Importar ventas (cierre del día) ----------
+    @GetMapping("/importar")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public String importarForm(Model model) {
+        model.addAttribute("csvCabecera", VentasImportService.CSV_CABECERA);
+        return "ventas/importar";
+    }
+
+    @PostMapping("/importar")
+    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
+    public String importar(@RequestParam("archivo") MultipartFile archivo, Model model) {
+        model.addAttribute("csvCabecera", VentasImportService.CSV_CABECERA);
+        if (archivo == null || archivo.isEmpty()) {
+            model.addAttribute("error", "Seleccione un archivo CSV o JSON.");
+            return "ventas/importar";
+        }
+        try {
+            List<String> errores = new ArrayList<>();
+            List<VentasImportService.VentaImportada> ventas =
+                    ventasImportService.leer(archivo.getOriginalFilename(), archivo.getInputStream(), errores);
+            if (!errores.isEmpty()) {
+                model.addAttribute("errores", errores);
+                return "ventas/importar";
+            }
+            VentasImportService.Resultado r = ventasImportService.importar(ventas);
+            model.addAttribute("resultado", r);
+            if (!r.ok()) model.addAttribute("errores", r.errores());
+        } catch (Exception ex) {
+            model.addAttribute("error", ex.getMessage());
+        }
+        return "ventas/importar";
+    }
+
     // ---------- Detalle ----------
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
@@ -118,21 +175,6 @@ public class VentasController {
         return "ventas/detalle";
     }
 
-    // ---------- Opciones (si las usas vía Ajax) ----------
-    @GetMapping("/opciones/clientes")
-    @ResponseBody
-    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
-    public List<VentasRepository.Opcion> opcionesClientes() {
-        return ventasRepository.opcionesClientes();
-    }
-
-    @GetMapping("/opciones/productos")
-    @ResponseBody
-    @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
-    public List<VentasRepository.Opcion> opcionesProductos() {
-        return ventasRepository.opcionesProductos();
-    }
-
     // EDITAR (form)
     @GetMapping("/{id}/editar")
     @PreAuthorize("hasAnyRole('ADMIN','SECRETARIA')")
@@ -149,9 +191,6 @@ public class VentasController {
         model.addAttribute("ventaId", id);
         model.addAttribute("detalle", detalle);
 
-        // combos
-        model.addAttribute("clientes", ventasRepository.opcionesClientes());
-        model.addAttribute("productos", ventasRepository.opcionesProductos());
 
         return "ventas/form-editar"; // crea esta vista (puedes reutilizar el form con valores precargados)
     }
@@ -184,10 +223,8 @@ public class VentasController {
             return "redirect:/ventas/" + id;
 
         } catch (Exception ex) {
-            // recargar combos y volver al form de edición con error
+            // volver al form de edición con error
             model.addAttribute("error", ex.getMessage());
-            model.addAttribute("clientes", ventasRepository.opcionesClientes());
-            model.addAttribute("productos", ventasRepository.opcionesProductos());
 
             var cab = ventasRepository.obtenerCabecera(id);
             var detalle = ventasRepository.obtenerDetalle(id);
@@ -4,11 +4,11 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -36,8 +36,6 @@ public class ComprasRepository {
             BigDecimal cantidadKg,
             BigDecimal precioUnitario) {}
 
-    public record Opcion(Long id, String nombre) {}
-
     // Exponemos proveedorId para el form-editar
     public record CompraCabecera(
             Long id,
@@ -49,6 +47,7 @@ public class ComprasRepository {
     public record NuevaCompraItem(Long productoId, BigDecimal cantidadKg, BigDecimal precioUnit) {}
 
     // ====== LISTA (con resumen de productos) ======
+    @Transactional(readOnly = true)
     public List<CompraItem> buscarCompras(LocalDate desde, LocalDate hasta, String proveedorNombre) {
         String sql = """
                 select
@@ -144,59 +143,74 @@ public class ComprasRepository {
                 rs.getBigDecimal("precioUnitario")));
     }
 
-    // ====== OPCIONES ======
-    public List<Opcion> opcionesProveedores() {
-        String sql = """
-                select id, nombre
-                from softfruver.proveedor
-                order by nombre
-                """;
-        return jdbcNamed.query(sql, (rs, i) -> new Opcion(rs.getLong("id"), rs.getString("nombre")));
-    }
-
-    public List<Opcion> opcionesProductos() {
-        String sql = """
-                select id, nombre
-                from softfruver.producto
-                order by nombre
-                """;
-        return jdbcNamed.query(sql, (rs, i) -> new Opcion(rs.getLong("id"), rs.getString("nombre")));
-    }
-
-    // ====== INSERT CABECERA (INSERT + currval + UPDATE fecha) ======
+    // ====== INSERT CABECERA (un solo INSERT ... RETURNING) ======
     public Long insertCabecera(Long proveedorId, LocalDate fecha) {
-        final String insertSql = "insert into softfruver.compra (proveedor_id, total) values (?, ?)";
-
+        final String sql = """
+                insert into softfruver.compra (proveedor_id, total, fecha_compra)
+                values (?, ?, ?)
+                returning id
+                """;
         try {
-            jdbc.update(con -> {
-                PreparedStatement ps = con.prepareStatement(insertSql);
+            Long id = jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
                 ps.setLong(1, proveedorId);
                 ps.setBigDecimal(2, BigDecimal.ZERO);
+                ps.setTimestamp(3, Timestamp.valueOf(fecha.atStartOfDay()));
                 return ps;
-            });
-
-            Long id = jdbc.queryForObject(
-                    "select currval(pg_get_serial_sequence('softfruver.compra','id'))",
-                    Long.class);
+            }, rs -> rs.next() ? rs.getLong(1) : null);
             if (id == null)
-                throw new IllegalStateException("No se obtuvo ID generado (currval() = null).");
+                throw new IllegalStateException("No se obtuvo ID generado (returning id = null).");
+            return id;
 
-            final String updateSql = "update softfruver.compra set fecha_compra = ? where id = ?";
-            LocalDateTime ldt = fecha.atStartOfDay();
-            Timestamp ts = Timestamp.valueOf(ldt);
+        } catch (Exception ex) {
+            String msg = "Error al insertar cabecera de compra. proveedor_id=" +
+                    proveedorId + ", fecha=" + fecha + ". Causa: " + ex.getClass().getName() + " - " + ex.getMessage();
+            throw new RuntimeException(msg, ex);
+        }
+    }
 
-            jdbc.update(con -> {
-                PreparedStatement ps = con.prepareStatement(updateSql);
-                ps.setTimestamp(1, ts);
-                ps.setLong(2, id);
+    // ====== INSERT COMPRA COMPLETA (cabecera + ítems en un solo viaje) ======
+    // CTE con INSERT ... RETURNING de la cabecera y los ítems desde arrays (unnest).
+    // Los triggers de compra_item (inventario y total) corren al final de la sentencia.
+    public Long insertCompra(Long proveedorId, LocalDate fecha, List<? extends Object> items) {
+        final String sql = """
+                with cab as (
+                  insert into softfruver.compra (proveedor_id, total, fecha_compra)
+                  values (?, 0, ?)
+                  returning id
+                ), det as (
+                  insert into softfruver.compra_item (compra_id, producto_id, cantidad_kg, precio_unit)
+                  select cab.id, u.producto_id, u.cantidad_kg, u.precio_unit
+                    from cab, unnest(?::bigint[], ?::numeric[], ?::numeric[]) as u(producto_id, cantidad_kg, precio_unit)
+                )
+                select id from cab
+                """;
+        Long[] productos = new Long[items.size()];
+        BigDecimal[] cantidades = new BigDecimal[items.size()];
+        BigDecimal[] precios = new BigDecimal[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            NuevaCompraItem it = aItem(items.get(i));
+            productos[i] = it.productoId();
+            cantidades[i] = it.cantidadKg();
+            precios[i] = it.precioUnit();
+        }
+        try {
+            Long id = jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setLong(1, proveedorId);
+                ps.setTimestamp(2, Timestamp.valueOf(fecha.atStartOfDay()));
+                ps.setArray(3, con.createArrayOf("bigint", productos));
+                ps.setArray(4, con.createArrayOf("numeric", cantidades));
+                ps.setArray(5, con.createArrayOf("numeric", precios));
                 return ps;
-            });
-
+            }, rs -> rs.next() ? rs.getLong(1) : null);
+            if (id == null)
+                throw new IllegalStateException("No se obtuvo ID generado (returning id = null).");
             return id;
 
         } catch (Exception ex) {
-            String msg = "Error al insertar/actualizar cabecera de compra. proveedor_id=" +
-                    proveedorId + ", fecha=" + fecha + ". Causa: " + ex.getClass().getName() + " - " + ex.getMessage();
+            String msg = "Error al insertar compra. proveedor_id=" + proveedorId + ", fecha=" + fecha +
+                    ", items=" + items.size() + ". Causa: " + ex.getClass().getName() + " - " + ex.getMessage();
             throw new RuntimeException(msg, ex);
         }
     }
@@ -221,26 +235,11 @@ public class ComprasRepository {
                 """;
         try {
             jdbc.batchUpdate(sql, items, items.size(), (ps, obj) -> {
-                Long productoId;
-                BigDecimal cantidadKg;
-                BigDecimal precioUnit;
-
-                if (obj instanceof NuevaCompraItem it) {
-                    productoId = it.productoId();
-                    cantidadKg = it.cantidadKg();
-                    precioUnit = it.precioUnit();
-                } else if (obj instanceof com.softfruver.inventario.service.ComprasService.ItemNuevaCompra it) {
-                    productoId = it.productoId();
-                    cantidadKg = it.cantidadKg();
-                    precioUnit = it.precioUnit();
-                } else {
-                    throw new IllegalArgumentException("Tipo de item no soportado: " + obj);
-                }
-
+                NuevaCompraItem it = aItem(obj);
                 ps.setLong(1, compraId);
-                ps.setLong(2, productoId);
-                ps.setBigDecimal(3, cantidadKg);
-                ps.setBigDecimal(4, precioUnit);
+                ps.setLong(2, it.productoId());
+                ps.setBigDecimal(3, it.cantidadKg());
+                ps.setBigDecimal(4, it.precioUnit());
             });
         } catch (Exception ex) {
             String msg = "Error al insertar ítems de compra. compra_id=" + compraId +
@@ -249,11 +248,43 @@ public class ComprasRepository {
         }
     }
 
+    // Acepta NuevaCompraItem o ComprasService.ItemNuevaCompra
+    private static NuevaCompraItem aItem(Object obj) {
+        if (obj instanceof NuevaCompraItem it) {
+            return it;
+        } else if (obj instanceof com.softfruver.inventario.service.ComprasService.ItemNuevaCompra it) {
+            return new NuevaCompraItem(it.productoId(), it.cantidadKg(), it.precioUnit());
+        }
+        throw new IllegalArgumentException("Tipo de item no soportado: " + obj);
+    }
+
     // ====== DELETE DETALLE / CABECERA ======
     public void deleteItems(Long compraId) {
         jdbc.update("delete from softfruver.compra_item where compra_id = ?", compraId);
     }
 
+    // Detalle "crudo" (sin join a producto) para comparar contra lo editado
+    public List<NuevaCompraItem> lineasDetalle(Long compraId) {
+        return jdbc.query(
+                "select producto_id, cantidad_kg, precio_unit from softfruver.compra_item where compra_id = ?",
+                (rs, i) -> new NuevaCompraItem(
+                        rs.getLong("producto_id"),
+                        rs.getBigDecimal("cantidad_kg"),
+                        rs.getBigDecimal("precio_unit")),
+                compraId);
+    }
+
+    // Borra solo las líneas de los productos indicados (triggers descuentan su stock)
+    public void deleteItemsDeProductos(Long compraId, List<Long> productoIds) {
+        if (productoIds.isEmpty()) return;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("compraId", compraId)
+                .addValue("productos", productoIds);
+        jdbcNamed.update(
+                "delete from softfruver.compra_item where compra_id = :compraId and producto_id in (:productos)",
+                params);
+    }
+
     public void deleteCabecera(Long compraId) {
         jdbc.update("delete from softfruver.compra where id = ?", compraId);
     }
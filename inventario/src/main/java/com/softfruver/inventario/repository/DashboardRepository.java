@@ -1,75 +1,121 @@
 package com.softfruver.inventario.repository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Map;
 
+// Solo lecturas. Las agregaciones en vivo van a la réplica (readOnly, ver
+// ReplicaConfig); resumen() no: se recalcula justo después de cada commit para
+// empujarlo por SSE y la réplica podría no tener todavía ese movimiento.
 @Repository
 public class DashboardRepository {
   private final NamedParameterJdbcTemplate jdbc;
+  // Consultas en vivo (modo paralelo): con queryTimeout el servidor cancela la
+  // consulta al vencer el plazo; cancelar el Future no detiene un SELECT en curso.
+  private final NamedParameterJdbcTemplate vivo;
 
-  public DashboardRepository(NamedParameterJdbcTemplate jdbc) {
+  public DashboardRepository(NamedParameterJdbcTemplate jdbc,
+                             @Value("${softfruver.dashboard.timeout-ms:2000}") long timeoutMs) {
     this.jdbc = jdbc;
+    JdbcTemplate t = new JdbcTemplate(jdbc.getJdbcTemplate().getDataSource());
+    t.setQueryTimeout((int) Math.max(1, (timeoutMs + 999) / 1000)); // JDBC: segundos enteros
+    this.vivo = new NamedParameterJdbcTemplate(t);
+  }
+
+  public record Resumen(long ventasCount, BigDecimal ventasTotal,
+                        long comprasCount, BigDecimal comprasTotal,
+                        long pagosCount, BigDecimal pagosTotal) {}
+
+  // --- RESUMEN PRECALCULADO (tabla resumen_diario, mantenida por triggers; ver V10) ---
+  // Un día es una lectura por PK; semana o mes suman a lo sumo 31 filas.
+  public Resumen resumen(LocalDate desde, LocalDate hasta) {
+    String sql = """
+      SELECT COALESCE(SUM(ventas_count),0)  AS ventas_count,
+             COALESCE(SUM(ventas_total),0)  AS ventas_total,
+             COALESCE(SUM(compras_count),0) AS compras_count,
+             COALESCE(SUM(compras_total),0) AS compras_total,
+             COALESCE(SUM(pagos_count),0)   AS pagos_count,
+             COALESCE(SUM(pagos_total),0)   AS pagos_total
+      FROM softfruver.resumen_diario
+      WHERE fecha BETWEEN :desde AND :hasta
+    """;
+    return jdbc.queryForObject(sql, Map.of("desde", desde, "hasta", hasta), (rs, i) -> new Resumen(
+        rs.getLong("ventas_count"),
+        rs.getBigDecimal("ventas_total"),
+        rs.getLong("compras_count"),
+        rs.getBigDecimal("compras_total"),
+        rs.getLong("pagos_count"),
+        rs.getBigDecimal("pagos_total")));
   }
 
   // --- COMPRAS ---
+  @Transactional(readOnly = true)
   public long contarCompras(Instant ini, Instant fin) {
     String sql = """
       SELECT COUNT(*) 
       FROM softfruver.compra 
       WHERE fecha_compra >= :ini AND fecha_compra < :fin
     """;
-    return jdbc.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), Long.class);
+    return vivo.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), Long.class);
   }
 
+  @Transactional(readOnly = true)
   public BigDecimal totalCompras(Instant ini, Instant fin) {
     String sql = """
       SELECT COALESCE(SUM(total),0) 
       FROM softfruver.compra 
       WHERE fecha_compra >= :ini AND fecha_compra < :fin
     """;
-    return jdbc.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), BigDecimal.class);
+    return vivo.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), BigDecimal.class);
   }
 
   // --- VENTAS ---
+  @Transactional(readOnly = true)
   public long contarVentas(Instant ini, Instant fin) {
     String sql = """
       SELECT COUNT(*) 
       FROM softfruver.venta 
       WHERE fecha_venta >= :ini AND fecha_venta < :fin
     """;
-    return jdbc.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), Long.class);
+    return vivo.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), Long.class);
   }
 
+  @Transactional(readOnly = true)
   public BigDecimal totalVentas(Instant ini, Instant fin) {
     String sql = """
       SELECT COALESCE(SUM(total),0) 
       FROM softfruver.venta 
       WHERE fecha_venta >= :ini AND fecha_venta < :fin
     """;
-    return jdbc.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), BigDecimal.class);
+    return vivo.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), BigDecimal.class);
   }
 
   // --- PAGOS: cliente + proveedor ---
+  @Transactional(readOnly = true)
   public long contarPagos(Instant ini, Instant fin) {
     String sql = """
       SELECT 
         (SELECT COUNT(*) FROM softfruver.pago_cliente   WHERE fecha_pago >= :ini AND fecha_pago < :fin)
       + (SELECT COUNT(*) FROM softfruver.pago_proveedor WHERE fecha_pago >= :ini AND fecha_pago < :fin)
     """;
-    return jdbc.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), Long.class);
+    return vivo.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), Long.class);
   }
 
+  @Transactional(readOnly = true)
   public BigDecimal totalPagos(Instant ini, Instant fin) {
     String sql = """
       SELECT 
         COALESCE((SELECT SUM(monto) FROM softfruver.pago_cliente   WHERE fecha_pago >= :ini AND fecha_pago < :fin),0)
       + COALESCE((SELECT SUM(monto) FROM softfruver.pago_proveedor WHERE fecha_pago >= :ini AND fecha_pago < :fin),0)
     """;
-    return jdbc.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), BigDecimal.class);
+    return vivo.queryForObject(sql, Map.of("ini", Timestamp.from(ini), "fin", Timestamp.from(fin)), BigDecimal.class);
   }
 }
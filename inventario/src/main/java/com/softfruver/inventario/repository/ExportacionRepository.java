@@ -0,0 +1,107 @@
+package com.softfruver.inventario.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+/**
+ * Consultas de exportación (CSV para contabilidad). No arman listas: cada fila
+ * va al RowCallbackHandler apenas llega.
+ *
+ * Usa su propio JdbcTemplate con fetch size acotado: dentro de una transacción
+ * (autocommit apagado) el driver de PostgreSQL abre un cursor y trae las filas
+ * de a {@code softfruver.exportar.fetch-size}, así la memoria no depende del rango.
+ * Por eso los métodos deben llamarse desde un @Transactional (ExportacionService).
+ */
+@Repository
+public class ExportacionRepository {
+
+    private final NamedParameterJdbcTemplate cursor;
+
+    public ExportacionRepository(DataSource dataSource,
+                                 @Value("${softfruver.exportar.fetch-size:500}") int fetchSize) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.setFetchSize(fetchSize);
+        this.cursor = new NamedParameterJdbcTemplate(jdbc);
+    }
+
+    private static MapSqlParameterSource rango(LocalDate desde, LocalDate hasta) {
+        return new MapSqlParameterSource()
+                .addValue("desde", desde)
+                .addValue("hasta", hasta);
+    }
+
+    // Una fila por ítem (ventas sin ítems salen con producto vacío), en orden cronológico
+    public void recorrerVentas(LocalDate desde, LocalDate hasta, RowCallbackHandler fila) {
+        String sql = """
+                select v.id                          as venta_id,
+                       cast(v.fecha_venta as date)   as fecha,
+                       v.cliente_id                  as cliente_id,
+                       c.nombre                      as cliente,
+                       v.es_credito                  as es_credito,
+                       vi.producto_id                as producto_id,
+                       p.nombre                      as producto,
+                       vi.cantidad_kg                as cantidad_kg,
+                       vi.precio_unit                as precio_unit,
+                       vi.cantidad_kg * vi.precio_unit as subtotal,
+                       v.total                       as total_venta
+                from softfruver.venta v
+                join softfruver.cliente c on c.id = v.cliente_id
+                left join softfruver.venta_item vi on vi.venta_id = v.id
+                left join softfruver.producto p on p.id = vi.producto_id
+                where v.fecha_venta >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp)
+                  and v.fecha_venta <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp)
+                order by v.fecha_venta, v.id, p.nombre
+                """;
+        cursor.query(sql, rango(desde, hasta), fila);
+    }
+
+    public void recorrerCompras(LocalDate desde, LocalDate hasta, RowCallbackHandler fila) {
+        String sql = """
+                select co.id                         as compra_id,
+                       cast(co.fecha_compra as date) as fecha,
+                       co.proveedor_id               as proveedor_id,
+                       pr.nombre                     as proveedor,
+                       ci.producto_id                as producto_id,
+                       p.nombre                      as producto,
+                       ci.cantidad_kg                as cantidad_kg,
+                       ci.precio_unit                as precio_unit,
+                       ci.cantidad_kg * ci.precio_unit as subtotal,
+                       co.total                      as total_compra
+                from softfruver.compra co
+                join softfruver.proveedor pr on pr.id = co.proveedor_id
+                left join softfruver.compra_item ci on ci.compra_id = co.id
+                left join softfruver.producto p on p.id = ci.producto_id
+                where co.fecha_compra >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp)
+                  and co.fecha_compra <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp)
+                order by co.fecha_compra, co.id, p.nombre
+                """;
+        cursor.query(sql, rango(desde, hasta), fila);
+    }
+
+    // Pagos de clientes y a proveedores juntos, por fecha (libro de pagos, V14)
+    public void recorrerPagos(LocalDate desde, LocalDate hasta, RowCallbackHandler fila) {
+        String sql = """
+                select l.pago_id                          as pago_id,
+                       cast(l.fecha_pago as date)         as fecha,
+                       l.tipo                             as tipo,
+                       l.ref_id                           as ref_id,
+                       coalesce(c.nombre, p.nombre)       as ref_nombre,
+                       l.monto                            as monto,
+                       l.metodo::text                     as metodo
+                from softfruver.pago_libro l
+                left join softfruver.cliente c   on l.tipo = 'CLIENTE'   and c.id = l.ref_id
+                left join softfruver.proveedor p on l.tipo = 'PROVEEDOR' and p.id = l.ref_id
+                where l.fecha_pago >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp)
+                  and l.fecha_pago <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp)
+                order by l.fecha_pago, l.tipo, l.pago_id
+                """;
+        cursor.query(sql, rango(desde, hasta), fila);
+    }
+}
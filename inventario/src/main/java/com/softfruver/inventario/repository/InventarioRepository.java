@@ -2,52 +2,71 @@ package com.softfruver.inventario.repository;
 
 import com.softfruver.inventario.repository.projection.InventarioItem;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public class InventarioRepository {
 
     private final JdbcTemplate jdbc;
-    // El umbral lo usamos solo si en algún momento filtras en SQL directo;
-    // hoy el conteo de alertas usa la vista v_stock_alerta.
-    @SuppressWarnings("unused")
-    private static final double UMBRAL_ALERTA_KG = 20.0;
+    private final NamedParameterJdbcTemplate jdbcNamed;
 
-    public InventarioRepository(JdbcTemplate jdbc) {
+    public InventarioRepository(JdbcTemplate jdbc, NamedParameterJdbcTemplate jdbcNamed) {
         this.jdbc = jdbc;
+        this.jdbcNamed = jdbcNamed;
     }
 
-    /** Lista TODOS los productos con su stock (usa la vista creada en V8) */
+    /** Fila con id y umbral para la proyección de stock en memoria */
+    public record StockProducto(long productoId, String nombre, double stockKg, double umbralKg) {
+        public boolean enAlerta() {
+            return stockKg <= umbralKg;
+        }
+    }
+
+    private static InventarioItem item(ResultSet rs) throws SQLException {
+        return new InventarioItem(
+            rs.getLong("producto_id"),
+            rs.getString("nombre"),
+            rs.getDouble("stock_kg"),
+            rs.getDouble("umbral_kg")
+        );
+    }
+
+    private static StockProducto stock(ResultSet rs) throws SQLException {
+        return new StockProducto(
+            rs.getLong("producto_id"),
+            rs.getString("nombre"),
+            rs.getDouble("stock_kg"),
+            rs.getDouble("umbral_kg")
+        );
+    }
+
+    /** Lista TODOS los productos con su stock y umbral (vista de V11) */
     public List<InventarioItem> listar() {
         final String sql = """
-            SELECT nombre, stock_kg
-            FROM softfruver.v_inventario_listado
+            SELECT producto_id, nombre, stock_kg, umbral_kg
+            FROM softfruver.v_inventario_umbral
             ORDER BY nombre
         """;
-        return jdbc.query(sql, (rs, i) ->
-            new InventarioItem(
-                rs.getString("nombre"),
-                rs.getDouble("stock_kg")
-            )
-        );
+        return jdbc.query(sql, (rs, i) -> item(rs));
     }
 
     /** Búsqueda por nombre (case-insensitive, con ILIKE) */
     public List<InventarioItem> buscar(String q) {
         final String sql = """
-            SELECT nombre, stock_kg
-            FROM softfruver.v_inventario_listado
+            SELECT producto_id, nombre, stock_kg, umbral_kg
+            FROM softfruver.v_inventario_umbral
             WHERE nombre ILIKE ?
             ORDER BY nombre
         """;
-        return jdbc.query(sql, ps -> ps.setString(1, "%" + q + "%"),
-            (rs, i) -> new InventarioItem(
-                rs.getString("nombre"),
-                rs.getDouble("stock_kg")
-            )
-        );
+        return jdbc.query(sql, ps -> ps.setString(1, "%" + q + "%"), (rs, i) -> item(rs));
     }
 
     /** Total de productos del catálogo (tabla real) */
@@ -57,10 +76,47 @@ public class InventarioRepository {
         return n != null ? n : 0L;
     }
 
-    /** Total de alertas (usa la vista ya calculada por tu dump) */
+    /** Total de alertas (stock ≤ umbral de cada producto, vista redefinida en V11) */
     public long totalAlertas() {
-        final String sql = "SELECT COUNT(*) FROM softfruver.v_stock_alerta";
+        final String sql = "SELECT COUNT(*) FROM softfruver.v_inventario_alerta";
         final Long n = jdbc.queryForObject(sql, Long.class);
         return n != null ? n : 0L;
     }
+
+    /** Stock de todos los productos (carga inicial y reconciliación de la proyección) */
+    public List<StockProducto> stockTodos() {
+        final String sql = "SELECT producto_id, nombre, stock_kg, umbral_kg FROM softfruver.v_inventario_umbral";
+        return jdbc.query(sql, (rs, i) -> stock(rs));
+    }
+
+    /** Stock solo de los productos indicados (después de un commit de venta/compra) */
+    public List<StockProducto> stockDe(Collection<Long> productoIds) {
+        if (productoIds.isEmpty()) return List.of();
+        final String sql = """
+            SELECT producto_id, nombre, stock_kg, umbral_kg
+            FROM softfruver.v_inventario_umbral
+            WHERE producto_id IN (:ids)
+        """;
+        return jdbcNamed.query(sql, new MapSqlParameterSource("ids", productoIds), (rs, i) -> stock(rs));
+    }
+
+    /**
+     * Fija el umbral de un producto; null lo quita (vuelve al de por defecto).
+     * Devuelve false si el producto no existe, en vez de chocar con la FK.
+     */
+    public boolean guardarUmbral(long productoId, BigDecimal umbralKg) {
+        if (umbralKg == null) {
+            return jdbc.update("DELETE FROM softfruver.producto_umbral WHERE producto_id = ?", productoId) > 0
+                    || Boolean.TRUE.equals(jdbc.queryForObject(
+                            "SELECT EXISTS (SELECT 1 FROM softfruver.producto WHERE id = ?)", Boolean.class, productoId));
+        }
+        final String sql = """
+            INSERT INTO softfruver.producto_umbral (producto_id, umbral_kg)
+            SELECT p.id, ? FROM softfruver.producto p WHERE p.id = ?
+            ON CONFLICT (producto_id) DO UPDATE
+               SET umbral_kg = EXCLUDED.umbral_kg,
+                   actualizado_en = now()
+        """;
+        return jdbc.update(sql, umbralKg, productoId) > 0;
+    }
 }
@@ -0,0 +1,165 @@
+package com.softfruver.inventario.repository;
+
+import com.softfruver.inventario.repository.projection.ClienteListado;
+import com.softfruver.inventario.repository.projection.ProveedorListado;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listados de clientes y proveedores por deuda con paginación por cursor
+ * (keyset), sin OFFSET ni COUNT(*).
+ *
+ * El orden es (saldo DESC, nombre, id) y se lee del índice de saldo_cliente /
+ * saldo_proveedor (V13). El cursor lleva los valores de esa clave de la primera
+ * o la última fila de la página que se está viendo ({@link Cursor}), no solo su
+ * id: la búsqueda sigue desde ahí aunque esa fila se haya archivado, borrado o
+ * cambiado de saldo entre una página y otra. "Siguiente" y "Anterior" cuestan
+ * lo mismo en cualquier página.
+ */
+@Repository
+public class ListadoSaldosRepository {
+
+    private final NamedParameterJdbcTemplate jdbcNamed;
+
+    public ListadoSaldosRepository(NamedParameterJdbcTemplate jdbcNamed) {
+        this.jdbcNamed = jdbcNamed;
+    }
+
+    public enum Listado {
+        CLIENTES("softfruver.cliente", "softfruver.saldo_cliente", "cliente_id", "saldo_total"),
+        PROVEEDORES("softfruver.proveedor", "softfruver.saldo_proveedor", "proveedor_id", "deuda_total");
+
+        final String tabla;
+        final String saldos;
+        final String id;
+        final String saldo;
+
+        Listado(String tabla, String saldos, String id, String saldo) {
+            this.tabla = tabla;
+            this.saldos = saldos;
+            this.id = id;
+            this.saldo = saldo;
+        }
+    }
+
+    /** Sirve de ClienteListado (saldoTotal) y de ProveedorListado (deudaTotal) */
+    public record Fila(Long id, String nombre, String telefono, BigDecimal saldo)
+            implements ClienteListado, ProveedorListado {
+        @Override public Long getId() { return id; }
+        @Override public String getNombre() { return nombre; }
+        @Override public String getTelefono() { return telefono; }
+        @Override public BigDecimal getSaldoTotal() { return saldo; }
+        @Override public BigDecimal getDeudaTotal() { return saldo; }
+    }
+
+    /**
+     * Posición en el orden (saldo DESC, nombre, id). Viaja en la URL como
+     * {@link #texto()}; no es secreto (son datos que la página ya muestra).
+     */
+    public record Cursor(BigDecimal saldo, String nombre, long id) {
+
+        static Cursor de(Fila f) {
+            return new Cursor(f.saldo(), f.nombre(), f.id());
+        }
+
+        public String texto() {
+            String s = saldo.toPlainString() + ":" + id + ":" + nombre;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** null si el texto falta o no es un cursor válido (se muestra la primera página) */
+        public static Cursor leer(String texto) {
+            if (texto == null || texto.isBlank()) return null;
+            try {
+                String[] c = new String(Base64.getUrlDecoder().decode(texto), StandardCharsets.UTF_8).split(":", 3);
+                if (c.length != 3) return null;
+                return new Cursor(new BigDecimal(c[0]), c[2], Long.parseLong(c[1]));
+            } catch (IllegalArgumentException ex) { // también NumberFormatException
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Una página. anterior/siguiente son los cursores (texto) para pedir la
+     * página de antes o la de después (null si no hay). totalEstimado es la
+     * estimación del planificador, o null si no se pidió.
+     */
+    public record Pagina(List<Fila> filas, String anterior, String siguiente, Long totalEstimado) {}
+
+    /**
+     * @param despuesDe última fila de la página anterior (o null)
+     * @param antesDe   primera fila de la página siguiente (o null);
+     *                  si vienen los dos manda despuesDe
+     */
+    public Pagina pagina(Listado l, boolean archivados, String q, Cursor despuesDe, Cursor antesDe,
+                         int limite, boolean estimarTotal) {
+        boolean haciaAtras = despuesDe == null && antesDe != null;
+        Cursor cursor = haciaAtras ? antesDe : despuesDe;
+
+        StringBuilder sql = new StringBuilder("""
+                select s.%1$s as id, s.nombre, t.telefono, s.%2$s as saldo
+                from %3$s s
+                join %4$s t on t.id = s.%1$s
+                where s.archivado = :arch
+                """.formatted(l.id, l.saldo, l.saldos, l.tabla));
+        if (q != null) {
+            sql.append("  and softfruver.imm_unaccent(lower(t.nombre)) like concat('%', softfruver.imm_unaccent(lower(:q)), '%')\n");
+        }
+        if (cursor != null) {
+            sql.append("  and (-s.%2$s, s.nombre, s.%1$s) %3$s (-cast(:cSaldo as numeric), cast(:cNombre as text), cast(:cId as bigint))\n"
+                    .formatted(l.id, l.saldo, haciaAtras ? "<" : ">"));
+        }
+        String dir = haciaAtras ? "desc" : "asc";
+        sql.append("order by -s.%2$s %3$s, s.nombre %3$s, s.%1$s %3$s\nlimit :lim".formatted(l.id, l.saldo, dir));
+
+        // Una fila extra para saber si hay más en esa dirección
+        var params = new MapSqlParameterSource()
+                .addValue("arch", archivados)
+                .addValue("q", q)
+                .addValue("cSaldo", cursor == null ? null : cursor.saldo())
+                .addValue("cNombre", cursor == null ? null : cursor.nombre())
+                .addValue("cId", cursor == null ? null : cursor.id())
+                .addValue("lim", limite + 1);
+        List<Fila> filas = new ArrayList<>(jdbcNamed.query(sql.toString(), params, (rs, i) -> new Fila(
+                rs.getLong("id"),
+                rs.getString("nombre"),
+                rs.getString("telefono"),
+                rs.getBigDecimal("saldo"))));
+
+        boolean hayMas = filas.size() > limite;
+        if (hayMas) filas.remove(filas.size() - 1);
+        if (haciaAtras) Collections.reverse(filas);
+
+        boolean hayAntes = haciaAtras ? hayMas : cursor != null;
+        boolean hayDespues = haciaAtras || hayMas;
+        String anterior = hayAntes && !filas.isEmpty() ? Cursor.de(filas.get(0)).texto() : null;
+        String siguiente = hayDespues && !filas.isEmpty() ? Cursor.de(filas.get(filas.size() - 1)).texto() : null;
+
+        return new Pagina(List.copyOf(filas), anterior, siguiente,
+                estimarTotal ? totalEstimado(l, archivados, q) : null);
+    }
+
+    // EXPLAIN en vez de COUNT(*): no recorre la tabla. El texto de la búsqueda entra como literal (%L).
+    private Long totalEstimado(Listado l, boolean archivados, String q) {
+        String consulta = "select 1 from %1$s s join %2$s t on t.id = s.%3$s where s.archivado = %%L"
+                .formatted(l.saldos, l.tabla, l.id);
+        if (q == null) {
+            return jdbcNamed.queryForObject("select softfruver.f_filas_estimadas(format(:consulta, :arch))",
+                    new MapSqlParameterSource().addValue("consulta", consulta).addValue("arch", archivados),
+                    Long.class);
+        }
+        consulta += " and softfruver.imm_unaccent(lower(t.nombre)) like concat('%%', softfruver.imm_unaccent(lower(%L)), '%%')";
+        return jdbcNamed.queryForObject("select softfruver.f_filas_estimadas(format(:consulta, :arch, :q))",
+                new MapSqlParameterSource().addValue("consulta", consulta).addValue("arch", archivados).addValue("q", q),
+                Long.class);
+    }
+}
@@ -0,0 +1,39 @@
+package com.softfruver.inventario.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Listas id/nombre de clientes, productos y proveedores activos para combos y
+ * autocompletar. Se leen a través de CatalogoOpciones (caché versionada), no
+ * directamente desde los controladores.
+ */
+@Repository
+public class OpcionesRepository {
+
+    private final JdbcTemplate jdbc;
+
+    public OpcionesRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record Opcion(Long id, String nombre) {}
+
+    public List<Opcion> clientes() {
+        return listar("select id, nombre from softfruver.cliente where archived_at is null order by nombre");
+    }
+
+    public List<Opcion> productos() {
+        return listar("select id, nombre from softfruver.producto where archived_at is null order by nombre");
+    }
+
+    public List<Opcion> proveedores() {
+        return listar("select id, nombre from softfruver.proveedor where archived_at is null order by nombre");
+    }
+
+    private List<Opcion> listar(String sql) {
+        return jdbc.query(sql, (rs, i) -> new Opcion(rs.getLong("id"), rs.getString("nombre")));
+    }
+}
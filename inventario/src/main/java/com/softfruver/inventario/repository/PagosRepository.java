@@ -1,17 +1,22 @@
 package com.softfruver.inventario.repository;
 
 import org.postgresql.util.PGobject;
-import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -30,12 +35,20 @@ public class PagosRepository {
     }
 
     // ====== Proyecciones ======
-    public record Opcion(Long id, String nombre) {}
+    // cobrado/pagadoAcum: acumulados desde la primera fila del listado hasta esta
     public record PagoItemListado(Long id, LocalDate fecha, String tipo, String refNombre,
-                                  BigDecimal monto, String metodo) {}
+                                  BigDecimal monto, String metodo,
+                                  BigDecimal cobradoAcum, BigDecimal pagadoAcum) {}
+    // Una fila de un lote de pagos (cobros de ruta): metodo ya validado
+    public record PagoNuevo(Long refId, LocalDate fecha, BigDecimal monto, String metodo) {}
     public record PagoCabecera(Long id, LocalDate fecha, String tipo,
                                Long refId, String refNombre, BigDecimal monto, String metodo) {}
 
+    // Página por cursor (fecha, id, tipo): si siguienteId es null no hay más filas.
+    // cobrado/pagado son los acumulados al final de la página.
+    public record PaginaPagos(List<PagoItemListado> items, LocalDateTime siguienteFecha, Long siguienteId,
+                              String siguienteTipo, BigDecimal cobrado, BigDecimal pagado) {}
+
     // ====== Helpers ======
     private Timestamp ts(LocalDate fecha) {
         return Timestamp.valueOf(fecha.atStartOfDay());
@@ -90,88 +103,119 @@ public class PagosRepository {
         }
     }
 
-    // ====== LISTA ======
-    public List<PagoItemListado> buscarPagos(LocalDate desde, LocalDate hasta, String refNombre, String tipo) {
-        String filtroCli = (tipo == null || tipo.isBlank() || "CLIENTE".equals(tipo)) ? """
-                SELECT pc.id,
-                       cast(pc.fecha_pago as date) as fecha,
-                       'CLIENTE' as tipo,
-                       c.nombre as ref_nombre,
-                       pc.monto,
-                       pc.metodo::text as metodo
-                  FROM softfruver.pago_cliente pc
-                  JOIN softfruver.cliente c ON c.id = pc.cliente_id
-                 WHERE pc.fecha_pago >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp)
-                   AND pc.fecha_pago <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp)
-                   AND (coalesce(:ref,'') = '' OR c.nombre ilike concat('%', :ref, '%'))
-            """ : "";
-
-        String filtroProv = (tipo == null || tipo.isBlank() || "PROVEEDOR".equals(tipo)) ? """
-                SELECT pp.id,
-                       cast(pp.fecha_pago as date) as fecha,
-                       'PROVEEDOR' as tipo,
-                       p.nombre as ref_nombre,
-                       pp.monto,
-                       pp.metodo::text as metodo
-                  FROM softfruver.pago_proveedor pp
-                  JOIN softfruver.proveedor p ON p.id = pp.proveedor_id
-                 WHERE pp.fecha_pago >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp)
-                   AND pp.fecha_pago <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp)
-                   AND (coalesce(:ref,'') = '' OR p.nombre ilike concat('%', :ref, '%'))
-            """ : "";
-
-        String sql;
-        if (!filtroCli.isBlank() && !filtroProv.isBlank()) {
-            sql = filtroCli + "\nUNION ALL\n" + filtroProv + "\nORDER BY fecha DESC, id DESC";
-        } else if (!filtroCli.isBlank()) {
-            sql = filtroCli + "\nORDER BY fecha DESC, id DESC";
-        } else {
-            sql = filtroProv + "\nORDER BY fecha DESC, id DESC";
-        }
+    // ====== LISTA PAGINADA (libro de pagos, keyset por fecha, id, tipo) ======
+    // El recorte usa el índice (fecha_pago, pago_id, tipo) de pago_libro. Los
+    // acumulados de páginas anteriores se calculan acá (una suma sobre las filas
+    // hasta el cursor, con los mismos filtros), no se reciben del navegador.
+    private static final String LIBRO_FILTRADO = """
+                  from softfruver.pago_libro l
+                  left join softfruver.cliente c   on l.tipo = 'CLIENTE'   and c.id = l.ref_id
+                  left join softfruver.proveedor p on l.tipo = 'PROVEEDOR' and p.id = l.ref_id
+                  where
+                    l.fecha_pago >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp) and
+                    l.fecha_pago <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp) and
+                    (coalesce(:tipo,'') = '' or l.tipo = :tipo) and
+                    (coalesce(:ref,'') = '' or coalesce(c.nombre, p.nombre) ilike concat('%', :ref, '%'))
+            """;
+
+    @Transactional(readOnly = true)
+    public PaginaPagos buscarPagosPagina(LocalDate desde, LocalDate hasta, String refNombre, String tipo,
+                                         LocalDateTime cursorFecha, Long cursorId, String cursorTipo, int limite) {
+        String sql = """
+                with pagina as (
+                  select l.pago_id, l.tipo, l.fecha_pago, l.monto, l.metodo,
+                         coalesce(c.nombre, p.nombre) as ref_nombre
+                """ + LIBRO_FILTRADO + """
+                    and (l.fecha_pago, l.pago_id, l.tipo) < (coalesce(cast(:cfecha as timestamp), 'infinity'::timestamp), :cid, :ctipo)
+                  order by l.fecha_pago desc, l.pago_id desc, l.tipo desc
+                  limit :lim
+                )
+                select
+                  pago_id                                   as id,
+                  fecha_pago                                as fecha_pago,
+                  cast(fecha_pago as date)                  as fecha,
+                  tipo                                      as tipo,
+                  ref_nombre                                as ref_nombre,
+                  monto                                     as monto,
+                  metodo::text                              as metodo,
+                  :cobrado + sum(case when tipo = 'CLIENTE' then monto else 0 end)
+                    over (order by fecha_pago desc, pago_id desc, tipo desc rows unbounded preceding) as cobrado_acum,
+                  :pagado + sum(case when tipo = 'PROVEEDOR' then monto else 0 end)
+                    over (order by fecha_pago desc, pago_id desc, tipo desc rows unbounded preceding) as pagado_acum
+                from pagina
+                order by fecha_pago desc, pago_id desc, tipo desc
+                """;
 
+        boolean conCursor = cursorFecha != null && cursorId != null && cursorTipo != null;
         var params = new MapSqlParameterSource()
                 .addValue("desde", desde)
                 .addValue("hasta", hasta)
-                .addValue("ref", (refNombre == null ? "" : refNombre.trim()));
-
-        return jdbcNamed.query(sql, params, (ResultSet rs, int rowNum) -> new PagoItemListado(
-                rs.getLong("id"),
-                rs.getDate("fecha").toLocalDate(),
-                rs.getString("tipo"),
-                rs.getString("ref_nombre"),
-                rs.getBigDecimal("monto"),
-                rs.getString("metodo")
-        ));
+                .addValue("tipo", tipo == null ? "" : tipo)
+                .addValue("ref", (refNombre == null ? "" : refNombre.trim()))
+                .addValue("cfecha", conCursor ? Timestamp.valueOf(cursorFecha) : null)
+                .addValue("cid", conCursor ? cursorId : Long.MAX_VALUE)
+                .addValue("ctipo", conCursor ? cursorTipo : "");
+
+        // Acumulados de las páginas anteriores: filas desde la primera hasta el cursor, inclusive
+        BigDecimal cobrado = BigDecimal.ZERO;
+        BigDecimal pagado = BigDecimal.ZERO;
+        if (conCursor) {
+            Map<String, Object> previo = jdbcNamed.queryForMap("""
+                    select coalesce(sum(case when l.tipo = 'CLIENTE' then l.monto end), 0)   as cobrado,
+                           coalesce(sum(case when l.tipo = 'PROVEEDOR' then l.monto end), 0) as pagado
+                    """ + LIBRO_FILTRADO + """
+                        and (l.fecha_pago, l.pago_id, l.tipo) >= (cast(:cfecha as timestamp), :cid, :ctipo)
+                    """, params);
+            cobrado = (BigDecimal) previo.get("cobrado");
+            pagado = (BigDecimal) previo.get("pagado");
+        }
+
+        // Pedimos una fila extra para saber si hay página siguiente
+        params.addValue("cobrado", cobrado)
+                .addValue("pagado", pagado)
+                .addValue("lim", limite + 1);
+
+        List<LocalDateTime> marcas = new ArrayList<>();
+        List<PagoItemListado> filas = jdbcNamed.query(sql, params, (ResultSet rs, int rowNum) -> {
+            marcas.add(rs.getTimestamp("fecha_pago").toLocalDateTime());
+            return new PagoItemListado(
+                    rs.getLong("id"),
+                    rs.getDate("fecha").toLocalDate(),
+                    rs.getString("tipo"),
+                    rs.getString("ref_nombre"),
+                    rs.getBigDecimal("monto"),
+                    rs.getString("metodo"),
+                    rs.getBigDecimal("cobrado_acum"),
+                    rs.getBigDecimal("pagado_acum"));
+        });
+
+        if (filas.size() <= limite) {
+            PagoItemListado ult = filas.isEmpty() ? null : filas.get(filas.size() - 1);
+            return new PaginaPagos(filas, null, null, null,
+                    ult == null ? cobrado : ult.cobradoAcum(), ult == null ? pagado : ult.pagadoAcum());
+        }
+        List<PagoItemListado> items = List.copyOf(filas.subList(0, limite));
+        PagoItemListado ult = items.get(limite - 1);
+        return new PaginaPagos(items, marcas.get(limite - 1), ult.id(), ult.tipo(), ult.cobradoAcum(), ult.pagadoAcum());
     }
 
     // ====== CABECERA ======
-    public PagoCabecera obtenerCabecera(Long id) {
+    // Una lectura por la clave completa de pago_libro (los ids se repiten entre tipos)
+    public PagoCabecera obtenerCabecera(String tipo, Long id) {
         String sql = """
-            SELECT id, fecha, tipo, ref_id, ref_nombre, monto, metodo FROM (
-              SELECT pc.id,
-                     cast(pc.fecha_pago as date) as fecha,
-                     'CLIENTE' as tipo,
-                     pc.cliente_id as ref_id,
-                     c.nombre as ref_nombre,
-                     pc.monto,
-                     pc.metodo::text as metodo
-                FROM softfruver.pago_cliente pc
-                JOIN softfruver.cliente c ON c.id = pc.cliente_id
-               WHERE pc.id = :id
-              UNION ALL
-              SELECT pp.id,
-                     cast(pp.fecha_pago as date) as fecha,
-                     'PROVEEDOR' as tipo,
-                     pp.proveedor_id as ref_id,
-                     p.nombre as ref_nombre,
-                     pp.monto,
-                     pp.metodo::text as metodo
-                FROM softfruver.pago_proveedor pp
-                JOIN softfruver.proveedor p ON p.id = pp.proveedor_id
-               WHERE pp.id = :id
-            ) t
+            SELECT l.pago_id                     as id,
+                   cast(l.fecha_pago as date)    as fecha,
+                   l.tipo                        as tipo,
+                   l.ref_id                      as ref_id,
+                   coalesce(c.nombre, p.nombre)  as ref_nombre,
+                   l.monto                       as monto,
+                   l.metodo::text                as metodo
+              FROM softfruver.pago_libro l
+              LEFT JOIN softfruver.cliente c   ON l.tipo = 'CLIENTE'   AND c.id = l.ref_id
+              LEFT JOIN softfruver.proveedor p ON l.tipo = 'PROVEEDOR' AND p.id = l.ref_id
+             WHERE l.pago_id = :id AND l.tipo = :tipo
             """;
-        var params = new MapSqlParameterSource().addValue("id", id);
+        var params = new MapSqlParameterSource().addValue("id", id).addValue("tipo", tipo);
         return jdbcNamed.query(sql, params, rs -> rs.next()
                 ? new PagoCabecera(
                         rs.getLong("id"),
@@ -184,19 +228,6 @@ public class PagosRepository {
                 : null);
     }
 
-    // ====== OPCIONES ======
-    public List<Opcion> opcionesClientes() {
-        return jdbcNamed.query(
-                "select id, nombre from softfruver.cliente where archived_at is null order by nombre",
-                (rs, i) -> new Opcion(rs.getLong("id"), rs.getString("nombre")));
-    }
-
-    public List<Opcion> opcionesProveedores() {
-        return jdbcNamed.query(
-                "select id, nombre from softfruver.proveedor where archived_at is null order by nombre",
-                (rs, i) -> new Opcion(rs.getLong("id"), rs.getString("nombre")));
-    }
-
     // ====== INSERTS (sin casts textuales) ======
     public Long insertPagoCliente(Long clienteId, LocalDate fecha, BigDecimal monto, String metodoRaw) {
         final String metodoExact = normalizeMetodo(metodoRaw);
@@ -250,6 +281,76 @@ public class PagosRepository {
         }
     }
 
+    // ====== INSERT EN LOTE ======
+    // Un solo INSERT preparado enviado en lote (executeBatch): un viaje a la BD por
+    // tabla en vez de uno por pago. El método se normaliza y se convierte a PGobject
+    // una vez por valor distinto. Devuelve los ids en el mismo orden que pagos.
+    public List<Long> insertarPagosLote(String tipo, List<PagoNuevo> pagos) {
+        if (pagos.isEmpty()) return List.of();
+        boolean cliente = "CLIENTE".equals(tipo);
+        final String sql = cliente
+                ? """
+                  insert into softfruver.pago_cliente
+                      (cliente_id, monto, metodo, fecha_pago, creado_en, actualizado_en)
+                  values (?, ?, ?, ?, now(), now())
+                  """
+                : """
+                  insert into softfruver.pago_proveedor
+                      (proveedor_id, monto, metodo, fecha_pago, creado_en, actualizado_en)
+                  values (?, ?, ?, ?, now(), now())
+                  """;
+        Map<String, PGobject> metodos = new HashMap<>();
+        for (PagoNuevo p : pagos) {
+            metodos.computeIfAbsent(p.metodo(), m -> pgEnumMetodo(normalizeMetodo(m)));
+        }
+
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbc.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PagoNuevo p = pagos.get(i);
+                ps.setLong(1, p.refId());
+                ps.setBigDecimal(2, p.monto());
+                ps.setObject(3, metodos.get(p.metodo()));
+                ps.setTimestamp(4, ts(p.fecha()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return pagos.size();
+            }
+        }, claves);
+
+        List<Long> ids = new ArrayList<>(pagos.size());
+        for (Map<String, Object> k : claves.getKeyList()) ids.add(((Number) k.get("id")).longValue());
+        if (ids.size() != pagos.size()) {
+            throw new IllegalStateException("Se insertaron " + pagos.size() + " pagos de " + tipo.toLowerCase(Locale.ROOT)
+                    + " pero se devolvieron " + ids.size() + " ids");
+        }
+        return ids;
+    }
+
+    /** Marca la planilla como enviada; false si ya lo estaba (tabla pago_lote_enviado, V17). */
+    public boolean reservarLote(UUID token) {
+        return jdbc.update("""
+                insert into softfruver.pago_lote_enviado (token) values (?)
+                on conflict (token) do nothing
+                """, token) == 1;
+    }
+
+    public void limpiarLotesEnviados() {
+        jdbc.update("delete from softfruver.pago_lote_enviado where enviado_en < now() - interval '2 days'");
+    }
+
+    /** De los ids indicados, los de clientes/proveedores que existen y no están archivados. */
+    public Set<Long> refsActivas(String tipo, Collection<Long> ids) {
+        if (ids.isEmpty()) return Set.of();
+        String tabla = "CLIENTE".equals(tipo) ? "softfruver.cliente" : "softfruver.proveedor";
+        return new HashSet<>(jdbcNamed.queryForList(
+                "select id from " + tabla + " where archived_at is null and id in (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class));
+    }
+
     // ====== UPDATES ======
     public void updatePagoCliente(Long id, Long clienteId, LocalDate fecha, BigDecimal monto, String metodoRaw) {
         final String metodoExact = normalizeMetodo(metodoRaw);
@@ -305,26 +406,11 @@ public class PagosRepository {
         }
     }
 
-    // ====== DELETES ======
-    public void deletePagoCliente(Long id) {
-        jdbc.update("delete from softfruver.pago_cliente where id = ?", id);
-    }
-
-    public void deletePagoProveedor(Long id) {
-        jdbc.update("delete from softfruver.pago_proveedor where id = ?", id);
-    }
-
-    // ====== Util ======
-    public String tipoPorId(Long id) {
-        try {
-            Integer x = jdbc.queryForObject("select 1 from softfruver.pago_cliente where id = ?", Integer.class, id);
-            if (x != null) return "CLIENTE";
-        } catch (DataAccessException ignore) {}
-        try {
-            Integer y = jdbc.queryForObject("select 1 from softfruver.pago_proveedor where id = ?", Integer.class, id);
-            if (y != null) return "PROVEEDOR";
-        } catch (DataAccessException ignore) {}
-        return null;
+    // ====== DELETE ======
+    // El trigger quita la fila del libro. Devuelve las filas borradas (0 = no existe).
+    public int eliminarPago(String tipo, Long id) {
+        String tabla = "CLIENTE".equals(tipo) ? "softfruver.pago_cliente" : "softfruver.pago_proveedor";
+        return jdbc.update("delete from " + tabla + " where id = ?", id);
     }
 
     // ====== Error con más contexto (SQLSTATE) ======
@@ -1,17 +1,27 @@
 package com.softfruver.inventario.repository;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -20,10 +30,18 @@ public class VentasRepository {
 
     private final NamedParameterJdbcTemplate jdbcNamed;
     private final JdbcTemplate jdbc;
+    // Se arma una sola vez: columnas explícitas, sin leer metadatos de la tabla en cada venta
+    private final SimpleJdbcInsert ventaInsert;
 
     public VentasRepository(NamedParameterJdbcTemplate jdbcNamed, JdbcTemplate jdbc) {
         this.jdbcNamed = jdbcNamed;
         this.jdbc = jdbc;
+        this.ventaInsert = new SimpleJdbcInsert(jdbc)
+                .withSchemaName("softfruver")
+                .withTableName("venta")
+                .usingColumns("cliente_id", "es_credito", "total", "fecha_venta", "creado_en", "actualizado_en")
+                .usingGeneratedKeyColumns("id")
+                .withoutTableColumnMetaDataAccess();
     }
 
     // ====== Proyecciones ======
@@ -33,20 +51,41 @@ public class VentasRepository {
 
     public record VentaDetalleItem(Long productoId, String producto, BigDecimal cantidadKg, BigDecimal precioUnitario) {}
 
-    public record Opcion(Long id, String nombre) {}
-
     // >>> AQUI exponemos clienteId en la cabecera <<<
     public record VentaCabecera(Long id, LocalDate fecha, Long clienteId, String cliente,
                                 BigDecimal total, boolean esCredito) {}
 
     public record NuevaVentaItem(Long productoId, BigDecimal cantidadKg, BigDecimal precioUnit) {}
 
-    // ====== LISTA ======
-    public List<VentaItemListado> buscarVentas(LocalDate desde, LocalDate hasta, String clienteNombre) {
+    // Venta lista para COPY (id ya reservado)
+    public record VentaCopia(Long id, Long clienteId, LocalDate fecha, boolean esCredito, List<NuevaVentaItem> items) {}
+
+    // Página por cursor (fecha, id): si siguienteId es null no hay más filas
+    public record PaginaVentas(List<VentaItemListado> items, LocalDateTime siguienteFecha, Long siguienteId) {}
+
+    // ====== LISTA PAGINADA (keyset por fecha, id) ======
+    // Primero se recorta la página sobre venta usando el índice (fecha_venta, id)
+    // y solo después se arma el string_agg de productos para esas filas.
+    @Transactional(readOnly = true)
+    public PaginaVentas buscarVentasPagina(LocalDate desde, LocalDate hasta, String clienteNombre,
+                                           LocalDateTime cursorFecha, Long cursorId, int limite) {
         String sql = """
+                with pagina as (
+                  select v.id, v.fecha_venta, v.cliente_id, v.total, v.es_credito
+                  from softfruver.venta v
+                  join softfruver.cliente c on c.id = v.cliente_id
+                  where
+                    v.fecha_venta >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp) and
+                    v.fecha_venta <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp) and
+                    (coalesce(:cli,'') = '' or c.nombre ilike concat('%', :cli, '%')) and
+                    (v.fecha_venta, v.id) < (coalesce(cast(:cfecha as timestamp), 'infinity'::timestamp), :cid)
+                  order by v.fecha_venta desc, v.id desc
+                  limit :lim
+                )
                 select
-                  v.id                                      as id,
-                  cast(v.fecha_venta as date)               as fecha,
+                  pg.id                                     as id,
+                  pg.fecha_venta                            as fecha_venta,
+                  cast(pg.fecha_venta as date)              as fecha,
                   c.nombre                                  as cliente,
                   coalesce(
                     string_agg(
@@ -54,32 +93,42 @@ public class VentasRepository {
                       ' · ' order by p.nombre
                     ), '—'
                   )                                         as productos,
-                  v.total                                   as total,
-                  v.es_credito                              as es_credito
-                from softfruver.venta v
-                join softfruver.cliente c on c.id = v.cliente_id
-                left join softfruver.venta_item vi on vi.venta_id = v.id
+                  pg.total                                  as total,
+                  pg.es_credito                             as es_credito
+                from pagina pg
+                join softfruver.cliente c on c.id = pg.cliente_id
+                left join softfruver.venta_item vi on vi.venta_id = pg.id
                 left join softfruver.producto p on p.id = vi.producto_id
-                where
-                  v.fecha_venta >= coalesce(cast(:desde as timestamp), '-infinity'::timestamp) and
-                  v.fecha_venta <  coalesce(cast(:hasta as timestamp) + interval '1 day', 'infinity'::timestamp) and
-                  (coalesce(:cli,'') = '' or c.nombre ilike concat('%', :cli, '%'))
-                group by v.id, cast(v.fecha_venta as date), c.nombre, v.total, v.es_credito
-                order by cast(v.fecha_venta as date) desc, v.id desc
+                group by pg.id, pg.fecha_venta, c.nombre, pg.total, pg.es_credito
+                order by pg.fecha_venta desc, pg.id desc
                 """;
 
+        // Pedimos una fila extra para saber si hay página siguiente
         var params = new MapSqlParameterSource()
                 .addValue("desde", desde)
                 .addValue("hasta", hasta)
-                .addValue("cli", (clienteNombre == null || clienteNombre.isBlank()) ? "" : clienteNombre.trim());
-
-        return jdbcNamed.query(sql, params, (ResultSet rs, int rowNum) -> new VentaItemListado(
-                rs.getLong("id"),
-                rs.getDate("fecha").toLocalDate(),
-                rs.getString("cliente"),
-                rs.getString("productos"),
-                rs.getBigDecimal("total"),
-                rs.getBoolean("es_credito")));
+                .addValue("cli", (clienteNombre == null || clienteNombre.isBlank()) ? "" : clienteNombre.trim())
+                .addValue("cfecha", (cursorFecha == null || cursorId == null) ? null : Timestamp.valueOf(cursorFecha))
+                .addValue("cid", (cursorFecha == null || cursorId == null) ? Long.MAX_VALUE : cursorId)
+                .addValue("lim", limite + 1);
+
+        List<LocalDateTime> marcas = new ArrayList<>();
+        List<VentaItemListado> filas = jdbcNamed.query(sql, params, (ResultSet rs, int rowNum) -> {
+            marcas.add(rs.getTimestamp("fecha_venta").toLocalDateTime());
+            return new VentaItemListado(
+                    rs.getLong("id"),
+                    rs.getDate("fecha").toLocalDate(),
+                    rs.getString("cliente"),
+                    rs.getString("productos"),
+                    rs.getBigDecimal("total"),
+                    rs.getBoolean("es_credito"));
+        });
+
+        if (filas.size() <= limite) {
+            return new PaginaVentas(filas, null, null);
+        }
+        List<VentaItemListado> items = List.copyOf(filas.subList(0, limite));
+        return new PaginaVentas(items, marcas.get(limite - 1), items.get(limite - 1).id());
     }
 
     // ====== CABECERA / DETALLE ======
@@ -127,25 +176,9 @@ public class VentasRepository {
                 rs.getBigDecimal("precioUnitario")));
     }
 
-    // ====== OPCIONES ======
-    public List<Opcion> opcionesClientes() {
-        String sql = "select id, nombre from softfruver.cliente where archived_at is null order by nombre";
-        return jdbcNamed.query(sql, (rs, i) -> new Opcion(rs.getLong("id"), rs.getString("nombre")));
-    }
-
-    public List<Opcion> opcionesProductos() {
-        String sql = "select id, nombre from softfruver.producto where archived_at is null order by nombre";
-        return jdbcNamed.query(sql, (rs, i) -> new Opcion(rs.getLong("id"), rs.getString("nombre")));
-    }
-
     // ====== INSERT CABECERA ======
     public Long insertCabecera(Long clienteId, LocalDate fecha, boolean esCredito) {
         try {
-            var inserter = new SimpleJdbcInsert(jdbc)
-                    .withSchemaName("softfruver")
-                    .withTableName("venta")
-                    .usingGeneratedKeyColumns("id");
-
             var now = Timestamp.from(Instant.now());
             var params = new HashMap<String, Object>();
             params.put("cliente_id", clienteId);
@@ -156,7 +189,7 @@ public class VentasRepository {
             params.put("creado_en", now);
             params.put("actualizado_en", now);
 
-            Number key = inserter.executeAndReturnKey(new MapSqlParameterSource(params));
+            Number key = ventaInsert.executeAndReturnKey(new MapSqlParameterSource(params));
             if (key == null)
                 throw new IllegalStateException("executeAndReturnKey() devolvió null");
             return key.longValue();
@@ -168,6 +201,60 @@ public class VentasRepository {
         }
     }
 
+    // ====== INSERT VENTA COMPLETA (cabecera + ítems en un solo viaje) ======
+    // CTE con INSERT ... RETURNING de la cabecera y los ítems desde arrays (unnest).
+    // Los triggers de venta_item (subtotal, stock, total) corren al final de la sentencia.
+    private static final String INSERT_VENTA_SQL = """
+            with cab as (
+              insert into softfruver.venta (cliente_id, es_credito, total, fecha_venta, creado_en, actualizado_en)
+              values (?, ?, 0, ?, now(), now())
+              returning id
+            ), det as (
+              insert into softfruver.venta_item (venta_id, producto_id, cantidad_kg, precio_unit)
+              select cab.id, u.producto_id, u.cantidad_kg, u.precio_unit
+                from cab, unnest(?::bigint[], ?::numeric[], ?::numeric[]) as u(producto_id, cantidad_kg, precio_unit)
+            )
+            select id from cab
+            """;
+
+    public Long insertVenta(Long clienteId, LocalDate fecha, boolean esCredito, List<? extends Object> items) {
+        Long[] productos = new Long[items.size()];
+        BigDecimal[] cantidades = new BigDecimal[items.size()];
+        BigDecimal[] precios = new BigDecimal[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            NuevaVentaItem it = aItem(items.get(i));
+            productos[i] = it.productoId();
+            cantidades[i] = it.cantidadKg();
+            precios[i] = it.precioUnit();
+        }
+        try {
+            Long id = jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_VENTA_SQL);
+                ps.setLong(1, clienteId);
+                ps.setBoolean(2, esCredito);
+                ps.setTimestamp(3, Timestamp.valueOf(fecha.atStartOfDay()));
+                ps.setArray(4, con.createArrayOf("bigint", productos));
+                ps.setArray(5, con.createArrayOf("numeric", cantidades));
+                ps.setArray(6, con.createArrayOf("numeric", precios));
+                return ps;
+            }, rs -> rs.next() ? rs.getLong(1) : null);
+            if (id == null)
+                throw new IllegalStateException("No se obtuvo ID generado (returning id = null).");
+            return id;
+
+        } catch (DataAccessException ex) {
+            Throwable root = ex.getMostSpecificCause() != null ? ex.getMostSpecificCause() : ex;
+            String rootMsg = root.getMessage();
+            String msg = "Error al insertar venta. cliente_id=" + clienteId + ", fecha=" + fecha +
+                    ". Detalle: " + root.getClass().getSimpleName() + (rootMsg != null ? " - " + rootMsg : "");
+            throw new RuntimeException(msg, ex);
+        } catch (Exception ex) {
+            String msg = "Error al insertar venta. cliente_id=" + clienteId + ", fecha=" + fecha + ". Causa: " +
+                    ex.getClass().getName() + " - " + ex.getMessage();
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
     // ====== INSERT ITEMS ======
     public void insertItems(Long ventaId, List<? extends Object> items) {
         final String sql = """
@@ -176,26 +263,11 @@ public class VentasRepository {
                 """;
         try {
             jdbc.batchUpdate(sql, items, items.size(), (ps, obj) -> {
-                Long productoId;
-                BigDecimal cantidadKg;
-                BigDecimal precioUnit;
-
-                if (obj instanceof NuevaVentaItem it) {
-                    productoId = it.productoId();
-                    cantidadKg = it.cantidadKg();
-                    precioUnit = it.precioUnit();
-                } else if (obj instanceof com.softfruver.inventario.service.VentasService.ItemNuevaVenta it) {
-                    productoId = it.productoId();
-                    cantidadKg = it.cantidadKg();
-                    precioUnit = it.precioKg(); // mismo valor
-                } else {
-                    throw new IllegalArgumentException("Tipo de item no soportado: " + obj);
-                }
-
+                NuevaVentaItem it = aItem(obj);
                 ps.setLong(1, ventaId);
-                ps.setLong(2, productoId);
-                ps.setBigDecimal(3, cantidadKg);
-                ps.setBigDecimal(4, precioUnit);
+                ps.setLong(2, it.productoId());
+                ps.setBigDecimal(3, it.cantidadKg());
+                ps.setBigDecimal(4, it.precioUnit());
             });
 
         } catch (DataAccessException ex) {
@@ -211,6 +283,75 @@ public class VentasRepository {
         }
     }
 
+    // Acepta NuevaVentaItem o VentasService.ItemNuevaVenta
+    private static NuevaVentaItem aItem(Object obj) {
+        if (obj instanceof NuevaVentaItem it) {
+            return it;
+        } else if (obj instanceof com.softfruver.inventario.service.VentasService.ItemNuevaVenta it) {
+            return new NuevaVentaItem(it.productoId(), it.cantidadKg(), it.precioKg()); // mismo valor
+        }
+        throw new IllegalArgumentException("Tipo de item no soportado: " + obj);
+    }
+
+    // ====== IMPORTACIÓN MASIVA (COPY) ======
+    // Reserva los ids de venta en una sola consulta para poder enlazar los ítems.
+    public List<Long> reservarIds(int cantidad) {
+        return jdbc.queryForList(
+                "select nextval(pg_get_serial_sequence('softfruver.venta','id')) from generate_series(1, ?)",
+                Long.class, cantidad);
+    }
+
+    /**
+     * Carga cabeceras e ítems con COPY FROM STDIN dentro de la transacción actual.
+     * COPY dispara los triggers de fila igual que INSERT (subtotal, stock, total y resumen).
+     * Los ids de {@code ventas} deben venir de {@link #reservarIds(int)}.
+     */
+    public void copiarVentas(List<VentaCopia> ventas) {
+        String now = Timestamp.from(Instant.now()).toString();
+        StringBuilder csvCab = new StringBuilder(ventas.size() * 64);
+        StringBuilder csvItems = new StringBuilder(ventas.size() * 96);
+        for (VentaCopia v : ventas) {
+            csvCab.append(v.id()).append(',')
+                  .append(v.clienteId()).append(',')
+                  .append(v.esCredito()).append(',')
+                  .append("0,")
+                  .append(Timestamp.valueOf(v.fecha().atStartOfDay())).append(',')
+                  .append(now).append(',')
+                  .append(now).append('\n');
+            for (NuevaVentaItem it : v.items()) {
+                csvItems.append(v.id()).append(',')
+                        .append(it.productoId()).append(',')
+                        .append(it.cantidadKg().toPlainString()).append(',')
+                        .append(it.precioUnit().toPlainString()).append('\n');
+            }
+        }
+
+        try {
+            jdbc.execute((ConnectionCallback<Void>) con -> {
+                CopyManager copy = con.unwrap(PGConnection.class).getCopyAPI();
+                try {
+                    copy.copyIn("""
+                            copy softfruver.venta (id, cliente_id, es_credito, total, fecha_venta, creado_en, actualizado_en)
+                            from stdin with (format csv)
+                            """, new StringReader(csvCab.toString()));
+                    copy.copyIn("""
+                            copy softfruver.venta_item (venta_id, producto_id, cantidad_kg, precio_unit)
+                            from stdin with (format csv)
+                            """, new StringReader(csvItems.toString()));
+                } catch (IOException ex) {
+                    throw new SQLException("Error de E/S en COPY", ex);
+                }
+                return null;
+            });
+        } catch (DataAccessException ex) {
+            Throwable root = ex.getMostSpecificCause() != null ? ex.getMostSpecificCause() : ex;
+            String rootMsg = root.getMessage();
+            String msg = "Error al importar ventas (" + ventas.size() + " ventas). Detalle: " +
+                    root.getClass().getSimpleName() + (rootMsg != null ? " - " + rootMsg : "");
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
     // ====== UPDATE / DELETE ======
     public void updateCabecera(Long ventaId, Long clienteId, LocalDate fecha, boolean esCredito) {
         final String sql = """
@@ -232,6 +373,28 @@ public class VentasRepository {
         jdbc.update("delete from softfruver.venta_item where venta_id = ?", ventaId);
     }
 
+    // Detalle "crudo" (sin join a producto) para comparar contra lo editado
+    public List<NuevaVentaItem> lineasDetalle(Long ventaId) {
+        return jdbc.query(
+                "select producto_id, cantidad_kg, precio_unit from softfruver.venta_item where venta_id = ?",
+                (rs, i) -> new NuevaVentaItem(
+                        rs.getLong("producto_id"),
+                        rs.getBigDecimal("cantidad_kg"),
+                        rs.getBigDecimal("precio_unit")),
+                ventaId);
+    }
+
+    // Borra solo las líneas de los productos indicados (triggers devuelven su stock)
+    public void deleteItemsDeProductos(Long ventaId, List<Long> productoIds) {
+        if (productoIds.isEmpty()) return;
+        var params = new MapSqlParameterSource()
+                .addValue("ventaId", ventaId)
+                .addValue("productos", productoIds);
+        jdbcNamed.update(
+                "delete from softfruver.venta_item where venta_id = :ventaId and producto_id in (:productos)",
+                params);
+    }
+
     public void deleteCabecera(Long ventaId) {
         jdbc.update("delete from softfruver.venta where id = ?", ventaId);
     }
@@ -1,6 +1,12 @@
 package com.softfruver.inventario.repository.projection;
 
 public record InventarioItem(
+    Long productoId,
     String nombre,
-    double stockKg
-) {}
+    double stockKg,
+    double umbralKg
+) {
+    public boolean enAlerta() {
+        return stockKg <= umbralKg;
+    }
+}
@@ -0,0 +1,56 @@
+package com.softfruver.inventario.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Mensaje de una sola vez para la página de login (error, captcha, expired,
+ * logout). Con captcha por sesión va en la sesión, como siempre; con captcha
+ * por token (sin sesión para anónimos) va en una cookie corta de /login.
+ */
+public final class AvisoLogin {
+    private AvisoLogin() {}
+
+    public static final String SESSION_KEY = "FLASH_LOGIN_MESSAGE";
+    private static final String COOKIE = "SF_LOGIN_AVISO";
+
+    public static void poner(HttpServletRequest request, HttpServletResponse response, String aviso, boolean sinSesion) {
+        if (!sinSesion) {
+            request.getSession(true).setAttribute(SESSION_KEY, aviso);
+            return;
+        }
+        Cookie c = cookie(request, aviso);
+        c.setMaxAge(60);
+        response.addCookie(c);
+    }
+
+    /** Devuelve el aviso pendiente (o null) y lo borra */
+    public static String tomar(HttpServletRequest request, HttpServletResponse response, boolean sinSesion) {
+        if (!sinSesion) {
+            HttpSession session = request.getSession(false);
+            Object aviso = session != null ? session.getAttribute(SESSION_KEY) : null;
+            if (aviso != null) session.removeAttribute(SESSION_KEY);
+            return aviso == null ? null : aviso.toString();
+        }
+        if (request.getCookies() == null) return null;
+        for (Cookie c : request.getCookies()) {
+            if (COOKIE.equals(c.getName())) {
+                Cookie borrar = cookie(request, "");
+                borrar.setMaxAge(0);
+                response.addCookie(borrar);
+                return c.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Cookie cookie(HttpServletRequest request, String valor) {
+        Cookie c = new Cookie(COOKIE, valor);
+        c.setPath(request.getContextPath() + "/login");
+        c.setHttpOnly(true);
+        c.setSecure(request.isSecure());
+        return c;
+    }
+}
@@ -21,6 +21,12 @@ public class CaptchaFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(CaptchaFilter.class);
 
+    private final CaptchaToken tokens;
+
+    public CaptchaFilter(CaptchaToken tokens) {
+        this.tokens = tokens;
+    }
+
     private void clearCaptcha(HttpSession session) {
         if (session != null) {
             session.removeAttribute(CAPTCHA_ANSWER_SESSION_KEY);
@@ -39,7 +45,18 @@ public class CaptchaFilter extends OncePerRequestFilter {
         final boolean isLoginPost = "POST".equalsIgnoreCase(request.getMethod())
                 && (uri.endsWith("/login") || uri.endsWith("/login/"));
 
-        if (isLoginPost) {
+        if (isLoginPost && tokens.activo()) {
+            // Sin sesión: el desafío viene firmado en el formulario
+            CaptchaToken.Resultado r = tokens.verificar(request.getParameter("captchaToken"), request.getParameter("captcha"));
+            if (log.isDebugEnabled()) {
+                log.debug("Captcha token check: uri={}, result={}", uri, r);
+            }
+            if (r != CaptchaToken.Resultado.OK) {
+                AvisoLogin.poner(request, response, r == CaptchaToken.Resultado.VENCIDO ? "expired" : "captcha", true);
+                response.sendRedirect(request.getContextPath() + "/login");
+                return;
+            }
+        } else if (isLoginPost) {
             // (logs útiles si estás depurando proxys/cookies)
             String requestedSid = request.getRequestedSessionId();
             String cookieSid = null;
@@ -72,7 +89,7 @@ public class CaptchaFilter extends OncePerRequestFilter {
             // Igualdad estricta del NONCE (anti-form reusado)
             if (session == null || nonceFromSession == null || nonceFromForm == null
                     || !Objects.equals(nonceFromSession, nonceFromForm)) {
-                if (session != null) session.setAttribute("FLASH_LOGIN_MESSAGE", "expired");
+                if (session != null) session.setAttribute(AvisoLogin.SESSION_KEY, "expired");
                 clearCaptcha(session);
                 response.sendRedirect(request.getContextPath() + "/login");
                 return;
@@ -101,7 +118,7 @@ public class CaptchaFilter extends OncePerRequestFilter {
             }
 
             if (!ok) {
-                if (session != null) session.setAttribute("FLASH_LOGIN_MESSAGE", "captcha");
+                if (session != null) session.setAttribute(AvisoLogin.SESSION_KEY, "captcha");
                 clearCaptcha(session);
                 response.sendRedirect(request.getContextPath() + "/login");
                 return;
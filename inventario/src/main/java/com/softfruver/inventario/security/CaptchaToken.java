@@ -0,0 +1,146 @@
+package com.softfruver.inventario.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Captcha sin sesión (softfruver.captcha.modo=token): el desafío viaja en el
+ * formulario como un token firmado con HMAC-SHA256, así la página de login no
+ * crea sesión para visitantes anónimos y cualquier nodo puede validar el POST.
+ *
+ * Token: {@code id:vence . firma(id:vence) . firma(id:vence:respuesta)}. La
+ * respuesta no va en el token, solo su firma; sin la clave no se puede
+ * calcular. Cada id se usa una vez (tabla captcha_usado, V15, compartida entre
+ * nodos) aunque la respuesta sea incorrecta.
+ *
+ * Todos los nodos deben tener la misma softfruver.captcha.clave.
+ */
+@Component
+public class CaptchaToken {
+
+    private static final Logger log = LoggerFactory.getLogger(CaptchaToken.class);
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    public enum Resultado { OK, INCORRECTO, VENCIDO }
+
+    public record Desafio(String pregunta, String token) {}
+
+    private final JdbcTemplate jdbc;
+    private final boolean activo;
+    private final long ttlSegundos;
+    private final SecretKeySpec clave;
+    private final SecureRandom rnd = new SecureRandom();
+
+    public CaptchaToken(JdbcTemplate jdbc,
+                        @Value("${softfruver.captcha.modo:sesion}") String modo,
+                        @Value("${softfruver.captcha.ttl-s:300}") long ttlSegundos,
+                        @Value("${softfruver.captcha.clave:}") String clave) {
+        this.jdbc = jdbc;
+        this.activo = "token".equalsIgnoreCase(modo.trim());
+        this.ttlSegundos = ttlSegundos;
+        byte[] bytes;
+        if (clave.isBlank()) {
+            bytes = new byte[32];
+            rnd.nextBytes(bytes);
+            if (activo) log.warn("Captcha: sin softfruver.captcha.clave, se usa una clave al azar (solo sirve con un nodo)");
+        } else {
+            bytes = clave.getBytes(StandardCharsets.UTF_8);
+        }
+        this.clave = new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    /** true si el login usa tokens en vez de la sesión */
+    public boolean activo() {
+        return activo;
+    }
+
+    public Desafio nuevo() {
+        int a = 2 + rnd.nextInt(8); // 2..9
+        int b = 2 + rnd.nextInt(8); // 2..9
+        String datos = UUID.randomUUID() + ":" + (Instant.now().getEpochSecond() + ttlSegundos);
+        String token = B64.encodeToString(datos.getBytes(StandardCharsets.US_ASCII))
+                + "." + firmar(datos) + "." + firmar(datos + ":" + (a + b));
+        return new Desafio(a + " + " + b + " = ?", token);
+    }
+
+    public Resultado verificar(String token, String respuesta) {
+        if (token == null) return Resultado.VENCIDO;
+        String[] partes = token.split("\\.");
+        if (partes.length != 3) return Resultado.VENCIDO;
+
+        String datos;
+        try {
+            datos = new String(B64D.decode(partes[0]), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException ex) {
+            return Resultado.VENCIDO;
+        }
+        if (!iguales(firmar(datos), partes[1])) return Resultado.VENCIDO;
+
+        String[] campos = datos.split(":");
+        if (campos.length != 2) return Resultado.VENCIDO;
+        UUID id;
+        long vence;
+        try {
+            id = UUID.fromString(campos[0]);
+            vence = Long.parseLong(campos[1]);
+        } catch (IllegalArgumentException ex) {
+            return Resultado.VENCIDO;
+        }
+        if (Instant.now().getEpochSecond() > vence) return Resultado.VENCIDO;
+
+        // Un solo uso, también entre nodos
+        int nuevo = jdbc.update("""
+                insert into softfruver.captcha_usado (id, vence) values (?, ?)
+                on conflict (id) do nothing
+                """, id, Timestamp.from(Instant.ofEpochSecond(vence)));
+        if (nuevo == 0) return Resultado.VENCIDO;
+
+        String r;
+        try {
+            r = String.valueOf(Integer.parseInt(respuesta == null ? "" : respuesta.trim()));
+        } catch (NumberFormatException ex) {
+            return Resultado.INCORRECTO;
+        }
+        return iguales(firmar(datos + ":" + r), partes[2]) ? Resultado.OK : Resultado.INCORRECTO;
+    }
+
+    @Scheduled(fixedDelayString = "${softfruver.captcha.limpiar-ms:600000}")
+    public void limpiarUsados() {
+        if (!activo) return;
+        try {
+            jdbc.update("delete from softfruver.captcha_usado where vence < now()");
+        } catch (RuntimeException ex) {
+            log.warn("Captcha: no se pudieron borrar tokens vencidos ({})", ex.toString());
+        }
+    }
+
+    private String firmar(String texto) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(clave);
+            return B64.encodeToString(mac.doFinal(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 no disponible", ex);
+        }
+    }
+
+    private static boolean iguales(String a, String b) {
+        return MessageDigest.isEqual(a.getBytes(StandardCharsets.US_ASCII), b.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -2,19 +2,25 @@ package com.softfruver.inventario.security;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 
 import java.io.IOException;
 
 public class LoginFailureHandler implements AuthenticationFailureHandler {
+
+    private final boolean sinSesion;
+
+    // sinSesion: captcha por token, el aviso va en cookie (ver AvisoLogin)
+    public LoginFailureHandler(boolean sinSesion) {
+        this.sinSesion = sinSesion;
+    }
+
     @Override
     public void onAuthenticationFailure(HttpServletRequest request,
                                         HttpServletResponse response,
                                         AuthenticationException exception) throws IOException {
-        HttpSession session = request.getSession(true);
-        session.setAttribute("FLASH_LOGIN_MESSAGE", "error");
+        AvisoLogin.poner(request, response, "error", sinSesion);
         response.sendRedirect(request.getContextPath() + "/login");
     }
 }
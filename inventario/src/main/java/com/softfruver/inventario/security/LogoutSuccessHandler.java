@@ -2,19 +2,24 @@ package com.softfruver.inventario.security;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.logout.SimpleUrlLogoutSuccessHandler;
 
 import java.io.IOException;
 
 public class LogoutSuccessHandler extends SimpleUrlLogoutSuccessHandler {
+
+    private final boolean sinSesion;
+
+    public LogoutSuccessHandler(boolean sinSesion) {
+        this.sinSesion = sinSesion;
+    }
+
     @Override
     public void onLogoutSuccess(HttpServletRequest request,
                                 HttpServletResponse response,
                                 Authentication authentication) throws IOException {
-        HttpSession session = request.getSession(true);
-        session.setAttribute("FLASH_LOGIN_MESSAGE", "logout");
+        AvisoLogin.poner(request, response, "logout", sinSesion);
         response.sendRedirect(request.getContextPath() + "/login");
     }
 }
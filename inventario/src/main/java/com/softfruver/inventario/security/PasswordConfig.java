@@ -1,5 +1,6 @@
 package com.softfruver.inventario.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -7,8 +8,11 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class PasswordConfig {
+
+    // Costo de BCrypt (4-31; cada punto duplica el tiempo de verificar una clave).
+    // Los hashes guardados con otro costo siguen validando; ver UsuarioDetailsService.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${softfruver.seguridad.bcrypt-costo:10}") int costo) {
+        return new BCryptPasswordEncoder(costo);
     }
 }
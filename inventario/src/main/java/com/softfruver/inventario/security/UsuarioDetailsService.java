@@ -2,31 +2,119 @@ package com.softfruver.inventario.security;
 
 import com.softfruver.inventario.user.Usuario;
 import com.softfruver.inventario.user.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Usuarios para el login, con una caché corta (softfruver.seguridad.usuarios-ttl-ms)
+ * para que un cambio de turno con varios logins seguidos no consulte la tabla
+ * usuario en cada intento. UsuarioService publica {@link Cambio} al cambiar
+ * clave, estado o nombre, y esa entrada se descarta en el acto, pero solo en
+ * el nodo que hizo el cambio. En los demás nodos (y para cambios hechos fuera
+ * de la app) la entrada vieja vale hasta que vence: el TTL es la demora máxima
+ * con la que un usuario desactivado o con clave nueva deja de poder entrar
+ * con la anterior.
+ *
+ * Se guarda el hash y el rol, no el UserDetails: Spring Security borra la
+ * clave del objeto que devuelve tras autenticar, así que cada llamada arma uno nuevo.
+ *
+ * Si el costo de BCrypt configurado (PasswordConfig) es mayor que el de un hash
+ * guardado, al entrar ese usuario se re-hashea su clave con el costo nuevo.
+ */
 @Service
-public class UsuarioDetailsService implements UserDetailsService {
+public class UsuarioDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
-    private final UsuarioRepository repo;
+    /** Usuario creado, modificado o borrado (nombre que tenía antes del cambio) */
+    public record Cambio(String username) {}
 
-    public UsuarioDetailsService(UsuarioRepository repo) {
-        this.repo = repo;
+    /** De dónde salen los usuarios: en la app, UsuarioRepository; en los benchmarks, JDBC */
+    public interface Fuente {
+        Optional<Usuario> buscarActivo(String username);
+
+        void guardar(Usuario u);
+    }
+
+    private record Entrada(String username, String passHash, String rol, long venceNanos) {}
+
+    private final Fuente fuente;
+    private final long ttlNanos;
+    private final int maxEntradas;
+    private final Map<String, Entrada> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UsuarioDetailsService(UsuarioRepository repo,
+                                 @Value("${softfruver.seguridad.usuarios-ttl-ms:60000}") long ttlMs,
+                                 @Value("${softfruver.seguridad.usuarios-max:200}") int maxEntradas) {
+        this(new Fuente() {
+            @Override
+            public Optional<Usuario> buscarActivo(String username) {
+                return repo.findByUsernameAndActivoTrue(username);
+            }
+
+            @Override
+            public void guardar(Usuario u) {
+                repo.save(u);
+            }
+        }, ttlMs, maxEntradas);
+    }
+
+    public UsuarioDetailsService(Fuente fuente, long ttlMs, int maxEntradas) {
+        this.fuente = fuente;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.maxEntradas = maxEntradas;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Usuario u = repo.findByUsernameAndActivoTrue(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado o inactivo"));
-
-        // Spring Security requiere el prefijo ROLE_ para las autoridades
-        String role = "ROLE_" + u.getRol().name();
-        return User.withUsername(u.getUsername())
-                .password(u.getPassHash()) // ya viene hasheado en DB (BCrypt)
-                .authorities(List.of(new SimpleGrantedAuthority(role)))
+        long ahora = System.nanoTime();
+        Entrada e = ttlNanos > 0 ? cache.get(username) : null;
+        if (e == null || ahora - e.venceNanos() > 0) {
+            Usuario u = fuente.buscarActivo(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado o inactivo"));
+            // Spring Security requiere el prefijo ROLE_ para las autoridades
+            e = new Entrada(u.getUsername(), u.getPassHash(), "ROLE_" + u.getRol().name(), ahora + ttlNanos);
+            if (ttlNanos > 0) guardar(username, e, ahora);
+        }
+        return User.withUsername(e.username())
+                .password(e.passHash()) // ya viene hasheado en DB (BCrypt)
+                .authorities(List.of(new SimpleGrantedAuthority(e.rol())))
                 .build();
     }
+
+    // Acotada: al llenarse se van las vencidas y, si no alcanza, todas
+    private void guardar(String username, Entrada e, long ahora) {
+        if (cache.size() >= maxEntradas) {
+            cache.values().removeIf(x -> ahora - x.venceNanos() > 0);
+            if (cache.size() >= maxEntradas) cache.clear();
+        }
+        cache.put(username, e);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiar(Cambio cambio) {
+        if (cambio.username() == null) return;
+        cache.keySet().removeIf(k -> k.equalsIgnoreCase(cambio.username()));
+    }
+
+    // Re-hash con el costo actual (lo llama Spring Security tras un login correcto)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        fuente.buscarActivo(user.getUsername()).ifPresent(u -> {
+            u.setPassHash(newPassword);
+            u.setActualizadoEn(OffsetDateTime.now());
+            fuente.guardar(u);
+        });
+        cache.remove(user.getUsername());
+        return User.withUserDetails(user).password(newPassword).build();
+    }
 }
@@ -0,0 +1,28 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.web.EventosSse;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Avisos de stock bajo a los navegadores abiertos (evento SSE "alerta-stock").
+ * Las alertas las detecta StockProyeccion al aplicar cada cambio; aquí solo se
+ * reparten, así nadie tiene que recargar /inventario para enterarse.
+ */
+@Service
+public class AvisosStock {
+
+    private final EventosSse eventos;
+
+    public AvisosStock(EventosSse eventos) {
+        this.eventos = eventos;
+    }
+
+    @EventListener
+    public void alertas(StockProyeccion.AlertasNuevas evento) {
+        if (eventos.suscriptores() == 0) return;
+        for (StockProyeccion.AlertaStock a : evento.alertas()) {
+            eventos.enviar("alerta-stock", a);
+        }
+    }
+}
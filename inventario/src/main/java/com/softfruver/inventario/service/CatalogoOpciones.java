@@ -0,0 +1,99 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.repository.OpcionesRepository;
+import com.softfruver.inventario.repository.OpcionesRepository.Opcion;
+import com.softfruver.inventario.service.IndicesBusqueda.Catalogo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caché de las listas de opciones (clientes, productos, proveedores activos)
+ * con un contador de versión por catálogo.
+ *
+ * Cada alta/edición/archivo de cliente o proveedor ({@link IndicesBusqueda.Cambio})
+ * sube la versión después del commit y la lista se vuelve a leer en el siguiente
+ * uso: la BD ve una lectura por cambio, no una por página. Los productos no se
+ * editan desde la app, así que cada {@code softfruver.opciones.revalidar-ms} se
+ * releen las listas cacheadas y la versión sube solo si algo cambió.
+ */
+@Service
+public class CatalogoOpciones {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoOpciones.class);
+
+    /** Opciones de un catálogo tal como estaban en {@code version} */
+    public record Lista(Catalogo catalogo, long version, List<Opcion> opciones) {}
+
+    private final OpcionesRepository repo;
+    private final AtomicLongArray versiones = new AtomicLongArray(Catalogo.values().length);
+    private final AtomicReferenceArray<Lista> listas = new AtomicReferenceArray<>(Catalogo.values().length);
+
+    public CatalogoOpciones(OpcionesRepository repo) {
+        this.repo = repo;
+    }
+
+    public Lista lista(Catalogo c) {
+        int i = c.ordinal();
+        Lista actual = listas.get(i);
+        long v = versiones.get(i);
+        if (actual != null && actual.version() == v) return actual;
+        // la versión se toma ANTES de leer: si alguien la sube mientras tanto, esta lista ya nace vieja
+        Lista nueva = new Lista(c, v, List.copyOf(leer(c)));
+        listas.compareAndSet(i, actual, nueva);
+        return nueva;
+    }
+
+    public List<Opcion> clientes() {
+        return lista(Catalogo.CLIENTES).opciones();
+    }
+
+    public List<Opcion> productos() {
+        return lista(Catalogo.PRODUCTOS).opciones();
+    }
+
+    public List<Opcion> proveedores() {
+        return lista(Catalogo.PROVEEDORES).opciones();
+    }
+
+    public void invalidar(Catalogo c) {
+        versiones.incrementAndGet(c.ordinal());
+    }
+
+    List<Opcion> leer(Catalogo c) {
+        return switch (c) {
+            case CLIENTES -> repo.clientes();
+            case PRODUCTOS -> repo.productos();
+            case PROVEEDORES -> repo.proveedores();
+        };
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiar(IndicesBusqueda.Cambio cambio) {
+        invalidar(cambio.catalogo());
+    }
+
+    // Cambios hechos fuera de la app (productos, scripts): solo se revisa lo que ya está en caché
+    @Scheduled(fixedDelayString = "${softfruver.opciones.revalidar-ms:300000}",
+               initialDelayString = "${softfruver.opciones.revalidar-ms:300000}")
+    public void revalidar() {
+        for (Catalogo c : Catalogo.values()) {
+            Lista actual = listas.get(c.ordinal());
+            if (actual == null || actual.version() != versiones.get(c.ordinal())) continue;
+            try {
+                if (!leer(c).equals(actual.opciones())) {
+                    log.info("Opciones: {} cambió fuera de la app, nueva versión", c);
+                    invalidar(c);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Opciones: no se pudo revalidar {} ({})", c, ex.toString());
+            }
+        }
+    }
+}
@@ -2,11 +2,11 @@ package com.softfruver.inventario.service;
 
 import com.softfruver.inventario.model.Cliente;
 import com.softfruver.inventario.repository.ClienteRepository;
+import com.softfruver.inventario.repository.ListadoSaldosRepository;
 import com.softfruver.inventario.repository.projection.ClienteListado;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import java.util.Objects;
 
 import java.time.OffsetDateTime;
@@ -16,9 +16,13 @@ import java.util.List;
 public class ClienteService {
 
   private final ClienteRepository repo;
+  private final ListadoSaldosRepository listados;
+  private final ApplicationEventPublisher eventos;
 
-  public ClienteService(ClienteRepository repo) {
+  public ClienteService(ClienteRepository repo, ListadoSaldosRepository listados, ApplicationEventPublisher eventos) {
     this.repo = repo;
+    this.listados = listados;
+    this.eventos = eventos;
   }
 
   // Listar activos por defecto
@@ -63,7 +67,9 @@ public class ClienteService {
     c.setTelefono(telefono != null ? telefono.trim() : null);
     c.setCreadoEn(OffsetDateTime.now());
     c.setActualizadoEn(OffsetDateTime.now());
-    return repo.save(c);
+    Cliente guardado = repo.save(c);
+    eventos.publishEvent(new IndicesBusqueda.Cambio(IndicesBusqueda.Catalogo.CLIENTES, guardado.getId(), guardado.getNombre(), true));
+    return guardado;
   }
 
   @Transactional
@@ -72,6 +78,7 @@ public class ClienteService {
     c.setArchivedAt(OffsetDateTime.now());
     c.setActualizadoEn(OffsetDateTime.now());
     repo.save(c);
+    eventos.publishEvent(new IndicesBusqueda.Cambio(IndicesBusqueda.Catalogo.CLIENTES, c.getId(), c.getNombre(), false));
   }
 
   @Transactional
@@ -80,20 +87,17 @@ public class ClienteService {
     c.setArchivedAt(null);
     c.setActualizadoEn(OffsetDateTime.now());
     repo.save(c);
+    eventos.publishEvent(new IndicesBusqueda.Cambio(IndicesBusqueda.Catalogo.CLIENTES, c.getId(), c.getNombre(), true));
   }
 
-  @org.springframework.transaction.annotation.Transactional(readOnly = true)
-public Page<com.softfruver.inventario.repository.projection.ClienteListado>
-buscarPorEstado(boolean archivados, String q, Pageable pageable) {
+// Por cursor (siguiente/anterior): sin OFFSET ni COUNT(*), total estimado opcional
+@Transactional(readOnly = true)
+public ListadoSaldosRepository.Pagina buscarPorEstado(boolean archivados, String q,
+      ListadoSaldosRepository.Cursor despuesDe, ListadoSaldosRepository.Cursor antesDe,
+      int tamano, boolean estimarTotal) {
   String term = (q == null || q.isBlank()) ? null : q.trim();
-  if (term == null) {
-    return archivados
-        ? repo.listarArchivadosOrdenPage(pageable)
-        : repo.listarVisiblesOrdenPage(pageable);
-  }
-  return archivados
-      ? repo.buscarArchivadosPage(term, pageable)
-      : repo.buscarActivosPage(term, pageable);
+  return listados.pagina(ListadoSaldosRepository.Listado.CLIENTES, archivados, term, despuesDe, antesDe,
+      tamano, estimarTotal);
 }
 
 public Cliente getById(Long id) {
@@ -101,6 +105,7 @@ public Cliente getById(Long id) {
       .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado."));
 }
 
+@Transactional
 public void actualizar(Long id, String nombre, String telefono) {
   if (nombre == null || nombre.isBlank()) {
     throw new IllegalArgumentException("El nombre es obligatorio.");
@@ -122,7 +127,9 @@ public void actualizar(Long id, String nombre, String telefono) {
   c.setTelefono((tel != null && tel.isBlank()) ? null : tel);
 
   // Si choca el único parcial (nombre activo), saltará DataIntegrityViolationException
-  repo.save(c);
+  // (flush aquí mismo, no al commit, para que el controlador la siga atrapando)
+  repo.saveAndFlush(c);
+  eventos.publishEvent(new IndicesBusqueda.Cambio(IndicesBusqueda.Catalogo.CLIENTES, c.getId(), c.getNombre(), c.getArchivedAt() == null));
 }
 
 
@@ -1,67 +1,104 @@
 package com.softfruver.inventario.service;
 
 import com.softfruver.inventario.repository.ComprasRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class ComprasService {
 
     private final ComprasRepository comprasRepository;
+    private final ApplicationEventPublisher eventos;
 
-    public ComprasService(ComprasRepository comprasRepository) {
+    public ComprasService(ComprasRepository comprasRepository, ApplicationEventPublisher eventos) {
         this.comprasRepository = comprasRepository;
+        this.eventos = eventos;
     }
 
     public record ItemNuevaCompra(Long productoId, BigDecimal cantidadKg, BigDecimal precioUnit){}
 
-    @Transactional
-    public Long registrarCompra(Long proveedorId, LocalDate fecha, List<ItemNuevaCompra> items) {
+    // Descarta filas vacías o inválidas (sin producto, cantidad <= 0 o precio < 0)
+    public static List<ItemNuevaCompra> limpiarItems(List<ItemNuevaCompra> items) {
         List<ItemNuevaCompra> limpios = new ArrayList<>();
-        for (ItemNuevaCompra it : items) {
-            if (it == null || it.productoId() == null) continue;
-            if (it.cantidadKg() == null || it.cantidadKg().signum() <= 0) continue;
-            if (it.precioUnit() == null || it.precioUnit().signum() < 0) continue;
-            limpios.add(it);
+        if (items != null) {
+            for (ItemNuevaCompra it : items) {
+                if (it == null || it.productoId() == null) continue;
+                if (it.cantidadKg() == null || it.cantidadKg().signum() <= 0) continue;
+                if (it.precioUnit() == null || it.precioUnit().signum() < 0) continue;
+                limpios.add(it);
+            }
         }
+        return limpios;
+    }
+
+    @Transactional
+    public Long registrarCompra(Long proveedorId, LocalDate fecha, List<ItemNuevaCompra> items) {
+        List<ItemNuevaCompra> limpios = limpiarItems(items);
         if (limpios.isEmpty()) {
             throw new IllegalArgumentException("La compra debe tener al menos un ítem con cantidades/precio válidos.");
         }
 
-        Long compraId = comprasRepository.insertCabecera(proveedorId, fecha);
-        comprasRepository.insertItems(compraId, limpios);
+        // Cabecera + ítems en una sola sentencia (un viaje a la BD);
         // triggers en DB actualizan inventario y total en compra
+        Long compraId = comprasRepository.insertCompra(proveedorId, fecha, limpios);
+
+        Set<Long> productos = new HashSet<>();
+        for (ItemNuevaCompra it : limpios) productos.add(it.productoId());
+        eventos.publishEvent(new StockProyeccion.Cambio(productos));
+        eventos.publishEvent(new DashboardService.Movimiento("compra"));
         return compraId;
     }
 
     @Transactional
     public void modificarCompra(Long compraId, Long proveedorId, LocalDate fecha, List<ItemNuevaCompra> items) {
-        List<ItemNuevaCompra> limpios = new ArrayList<>();
-        if (items != null) {
-            for (ItemNuevaCompra it : items) {
-                if (it == null || it.productoId() == null) continue;
-                if (it.cantidadKg() == null || it.cantidadKg().signum() <= 0) continue;
-                if (it.precioUnit() == null || it.precioUnit().signum() < 0) continue;
-                limpios.add(it);
-            }
-        }
+        List<ItemNuevaCompra> limpios = limpiarItems(items);
         if (limpios.isEmpty()) {
             throw new IllegalArgumentException("La compra debe tener al menos un ítem válido.");
         }
 
         comprasRepository.updateCabecera(compraId, proveedorId, fecha);
-        comprasRepository.deleteItems(compraId);
-        comprasRepository.insertItems(compraId, limpios);
+        eventos.publishEvent(new DashboardService.Movimiento("compra")); // la fecha puede cambiar aunque el detalle no
+
+        // Solo las líneas que cambiaron (ver DetalleDiff)
+        List<DetalleDiff.Linea> guardadas = new ArrayList<>();
+        for (ComprasRepository.NuevaCompraItem it : comprasRepository.lineasDetalle(compraId)) {
+            guardadas.add(new DetalleDiff.Linea(it.productoId(), it.cantidadKg(), it.precioUnit()));
+        }
+        List<DetalleDiff.Linea> enviadas = new ArrayList<>(limpios.size());
+        for (ItemNuevaCompra it : limpios) {
+            enviadas.add(new DetalleDiff.Linea(it.productoId(), it.cantidadKg(), it.precioUnit()));
+        }
+        DetalleDiff.Cambios cambios = DetalleDiff.calcular(guardadas, enviadas);
+        if (cambios.vacio()) return;
+
+        comprasRepository.deleteItemsDeProductos(compraId, cambios.productosABorrar());
+        List<ComprasRepository.NuevaCompraItem> nuevas = new ArrayList<>(cambios.lineasAInsertar().size());
+        for (DetalleDiff.Linea l : cambios.lineasAInsertar()) {
+            nuevas.add(new ComprasRepository.NuevaCompraItem(l.productoId(), l.cantidadKg(), l.precioUnit()));
+        }
+        if (!nuevas.isEmpty()) comprasRepository.insertItems(compraId, nuevas);
+
+        Set<Long> productos = new HashSet<>(cambios.productosABorrar());
+        for (DetalleDiff.Linea l : cambios.lineasAInsertar()) productos.add(l.productoId());
+        eventos.publishEvent(new StockProyeccion.Cambio(productos));
     }
 
     @Transactional
     public void eliminarCompra(Long compraId) {
+        Set<Long> productos = new HashSet<>();
+        for (ComprasRepository.NuevaCompraItem it : comprasRepository.lineasDetalle(compraId)) productos.add(it.productoId());
+
         comprasRepository.deleteItems(compraId);
         comprasRepository.deleteCabecera(compraId);
+        eventos.publishEvent(new StockProyeccion.Cambio(productos));
+        eventos.publishEvent(new DashboardService.Movimiento("compra"));
     }
 }
@@ -0,0 +1,135 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.repository.DashboardRepository;
+import com.softfruver.inventario.web.EventosSse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+@Service
+public class DashboardService {
+
+  private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+
+  // Día local Cúcuta/Bogotá
+  public static final ZoneId ZONA = ZoneId.of("America/Bogota");
+
+  private final DashboardRepository dashboard;
+  private final Executor executor;
+  private final String modo;
+  private final long timeoutMs;
+  private final EventosSse eventos;
+  // Hay un recálculo del resumen encolado que todavía no empezó
+  private final AtomicBoolean pendiente = new AtomicBoolean();
+
+  /**
+   * Resumen del menú. {@code parcial} indica que alguna consulta falló o no
+   * respondió antes del plazo y su valor se reemplazó por 0.
+   */
+  public record ResumenMenu(LocalDate fecha, DashboardRepository.Resumen resumen, boolean parcial) {}
+
+  /** Una venta, compra o pago se registró, modificó o eliminó (origen: "venta", "compra", "pago"). */
+  public record Movimiento(String origen) {}
+
+  // applicationTaskExecutor: el pool de tareas que crea Spring Boot
+  public DashboardService(DashboardRepository dashboard,
+                          @Qualifier("applicationTaskExecutor") Executor executor,
+                          @Value("${softfruver.dashboard.modo:resumen}") String modo,
+                          @Value("${softfruver.dashboard.timeout-ms:2000}") long timeoutMs,
+                          EventosSse eventos) {
+    this.dashboard = dashboard;
+    this.executor = executor;
+    this.modo = modo;
+    this.timeoutMs = timeoutMs;
+    this.eventos = eventos;
+  }
+
+  public ResumenMenu resumenDeHoy() {
+    LocalDate hoy = LocalDate.now(ZONA);
+    if ("paralelo".equalsIgnoreCase(modo)) {
+      return resumenParalelo(hoy);
+    }
+    // modo "resumen": una sola lectura de resumen_diario (ver V10)
+    return new ResumenMenu(hoy, dashboard.resumen(hoy, hoy), false);
+  }
+
+  // ====== Evento "resumen" (/eventos/stream) ======
+
+  // Después del commit se calcula el resumen una sola vez y se reparte a todas
+  // las pestañas abiertas, en vez de que cada una recargue y repita las consultas.
+  // El cálculo y el envío van en el hilo de EventosSse, no en el del request que
+  // confirmó; varios commits seguidos antes de que empiece se juntan en uno.
+  @TransactionalEventListener(fallbackExecution = true)
+  public void alMovimiento(Movimiento m) {
+    if (eventos.suscriptores() == 0) return;
+    if (!pendiente.compareAndSet(false, true)) return;
+    eventos.enviarCalculado("resumen", () -> {
+      pendiente.set(false);
+      return resumenDeHoy();
+    });
+  }
+
+  // Modo "paralelo": las seis consultas en vivo a la vez, con un plazo común.
+  // Lo que no llegue a tiempo (o falle) se muestra en 0 y se marca como parcial.
+  private ResumenMenu resumenParalelo(LocalDate hoy) {
+    Instant ini = hoy.atStartOfDay(ZONA).toInstant();
+    Instant fin = hoy.plusDays(1).atStartOfDay(ZONA).toInstant();
+
+    CompletableFuture<Long> ventasCount = lanzar(() -> dashboard.contarVentas(ini, fin));
+    CompletableFuture<Long> comprasCount = lanzar(() -> dashboard.contarCompras(ini, fin));
+    CompletableFuture<Long> pagosCount = lanzar(() -> dashboard.contarPagos(ini, fin));
+    CompletableFuture<BigDecimal> ventasTotal = lanzar(() -> dashboard.totalVentas(ini, fin));
+    CompletableFuture<BigDecimal> comprasTotal = lanzar(() -> dashboard.totalCompras(ini, fin));
+    CompletableFuture<BigDecimal> pagosTotal = lanzar(() -> dashboard.totalPagos(ini, fin));
+
+    long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    boolean[] parcial = { false };
+
+    var r = new DashboardRepository.Resumen(
+        esperar(ventasCount, 0L, limite, parcial, "contarVentas"),
+        esperar(ventasTotal, BigDecimal.ZERO, limite, parcial, "totalVentas"),
+        esperar(comprasCount, 0L, limite, parcial, "contarCompras"),
+        esperar(comprasTotal, BigDecimal.ZERO, limite, parcial, "totalCompras"),
+        esperar(pagosCount, 0L, limite, parcial, "contarPagos"),
+        esperar(pagosTotal, BigDecimal.ZERO, limite, parcial, "totalPagos"));
+
+    return new ResumenMenu(hoy, r, parcial[0]);
+  }
+
+  private <T> CompletableFuture<T> lanzar(Supplier<T> consulta) {
+    return CompletableFuture.supplyAsync(consulta, executor);
+  }
+
+  private <T> T esperar(CompletableFuture<T> f, T porDefecto, long limiteNanos, boolean[] parcial, String nombre) {
+    long restante = Math.max(0, limiteNanos - System.nanoTime());
+    try {
+      T v = f.get(restante, TimeUnit.NANOSECONDS);
+      return v != null ? v : porDefecto;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (TimeoutException ex) {
+      log.warn("Dashboard: {} sin resultado en {} ms", nombre, timeoutMs);
+    } catch (ExecutionException ex) {
+      log.warn("Dashboard: {} falló", nombre, ex.getCause());
+    }
+    // No detiene el SELECT (eso lo hace el queryTimeout de DashboardRepository); solo suelta el Future
+    f.cancel(true);
+    parcial[0] = true;
+    return porDefecto;
+  }
+}
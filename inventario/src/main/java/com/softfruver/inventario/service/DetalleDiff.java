@@ -0,0 +1,73 @@
+package com.softfruver.inventario.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Diferencia entre el detalle guardado y el enviado en el formulario de edición,
+ * agrupada por producto (las tablas de ítems no exponen id propio).
+ * Un producto cuyas líneas no cambiaron no se toca; uno que cambió se borra y se
+ * vuelve a insertar solo él; los nuevos se insertan y los quitados se borran.
+ */
+final class DetalleDiff {
+
+    private DetalleDiff() {}
+
+    record Linea(Long productoId, BigDecimal cantidadKg, BigDecimal precioUnit) {}
+
+    record Cambios(List<Long> productosABorrar, List<Linea> lineasAInsertar) {
+        boolean vacio() {
+            return productosABorrar.isEmpty() && lineasAInsertar.isEmpty();
+        }
+    }
+
+    private static final Comparator<Linea> ORDEN =
+            Comparator.comparing(Linea::cantidadKg).thenComparing(Linea::precioUnit);
+
+    static Cambios calcular(List<Linea> guardadas, List<Linea> enviadas) {
+        Map<Long, List<Linea>> antes = agrupar(guardadas);
+        Map<Long, List<Linea>> despues = agrupar(enviadas);
+
+        Set<Long> productos = new LinkedHashSet<>(antes.keySet());
+        productos.addAll(despues.keySet());
+
+        List<Long> borrar = new ArrayList<>();
+        List<Linea> insertar = new ArrayList<>();
+        for (Long p : productos) {
+            List<Linea> a = antes.getOrDefault(p, List.of());
+            List<Linea> d = despues.getOrDefault(p, List.of());
+            if (iguales(a, d)) continue;
+            if (!a.isEmpty()) borrar.add(p);
+            insertar.addAll(d);
+        }
+        return new Cambios(borrar, insertar);
+    }
+
+    private static Map<Long, List<Linea>> agrupar(List<Linea> lineas) {
+        Map<Long, List<Linea>> m = new LinkedHashMap<>();
+        for (Linea l : lineas) {
+            m.computeIfAbsent(l.productoId(), k -> new ArrayList<>()).add(l);
+        }
+        return m;
+    }
+
+    // Mismas líneas sin importar el orden; compareTo para que 2.50 == 2.5
+    private static boolean iguales(List<Linea> a, List<Linea> b) {
+        if (a.size() != b.size()) return false;
+        List<Linea> x = new ArrayList<>(a);
+        List<Linea> y = new ArrayList<>(b);
+        x.sort(ORDEN);
+        y.sort(ORDEN);
+        for (int i = 0; i < x.size(); i++) {
+            if (x.get(i).cantidadKg().compareTo(y.get(i).cantidadKg()) != 0) return false;
+            if (x.get(i).precioUnit().compareTo(y.get(i).precioUnit()) != 0) return false;
+        }
+        return true;
+    }
+}
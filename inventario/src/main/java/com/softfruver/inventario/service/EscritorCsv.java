@@ -0,0 +1,81 @@
+package com.softfruver.inventario.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV (RFC 4180, separador coma, UTF-8 con BOM para que Excel respete las
+ * tildes) escrito fila a fila sobre la respuesta HTTP.
+ *
+ * Los textos que empiezan por = + - @ (o tabulador / retorno) van con un
+ * apóstrofo adelante: un nombre de cliente como {@code =HYPERLINK(...)} no se
+ * ejecuta como fórmula al abrir el archivo en Excel o LibreOffice. Los números
+ * negativos no se tocan.
+ */
+final class EscritorCsv implements AutoCloseable {
+
+    private final Writer out;
+    private boolean primeraColumna = true;
+
+    EscritorCsv(OutputStream destino) {
+        this.out = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 64 * 1024);
+        escribir("\uFEFF");
+    }
+
+    EscritorCsv columna(Object valor) {
+        if (!primeraColumna) escribir(",");
+        primeraColumna = false;
+        if (valor == null) return this;
+        String s = valor instanceof BigDecimal bd ? bd.toPlainString() : valor.toString();
+        if (!(valor instanceof Number) && pareceFormula(s)) s = "'" + s;
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+            s = '"' + s.replace("\"", "\"\"") + '"';
+        }
+        escribir(s);
+        return this;
+    }
+
+    private static boolean pareceFormula(String s) {
+        if (s.isEmpty()) return false;
+        char c = s.charAt(0);
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+
+    void finFila() {
+        escribir("\r\n");
+        primeraColumna = true;
+    }
+
+    void cabecera(String... columnas) {
+        for (String c : columnas) columna(c);
+        finFila();
+        flush(); // el navegador empieza la descarga sin esperar a la primera tanda de filas
+    }
+
+    void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void escribir(String s) {
+        try {
+            out.write(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,84 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.repository.ExportacionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Exportaciones CSV de ventas (con ítems), compras (con ítems) y pagos.
+ * Cada fila del cursor se escribe en cuanto llega; la transacción de solo
+ * lectura es la que permite al driver usar cursor con fetch size
+ * (ver ExportacionRepository) y dura lo que dure la descarga.
+ */
+@Service
+public class ExportacionService {
+
+    private final ExportacionRepository repo;
+
+    public ExportacionService(ExportacionRepository repo) {
+        this.repo = repo;
+    }
+
+    @Transactional(readOnly = true)
+    public void ventas(LocalDate desde, LocalDate hasta, OutputStream destino) {
+        try (EscritorCsv csv = new EscritorCsv(destino)) {
+            csv.cabecera("venta_id", "fecha", "cliente_id", "cliente", "credito",
+                    "producto_id", "producto", "cantidad_kg", "precio_unit", "subtotal", "total_venta");
+            repo.recorrerVentas(desde, hasta, rs -> {
+                csv.columna(rs.getLong("venta_id"))
+                   .columna(rs.getDate("fecha").toLocalDate())
+                   .columna(rs.getLong("cliente_id"))
+                   .columna(rs.getString("cliente"))
+                   .columna(rs.getBoolean("es_credito"))
+                   .columna(rs.getObject("producto_id"))
+                   .columna(rs.getString("producto"))
+                   .columna(rs.getBigDecimal("cantidad_kg"))
+                   .columna(rs.getBigDecimal("precio_unit"))
+                   .columna(rs.getBigDecimal("subtotal"))
+                   .columna(rs.getBigDecimal("total_venta"));
+                csv.finFila();
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void compras(LocalDate desde, LocalDate hasta, OutputStream destino) {
+        try (EscritorCsv csv = new EscritorCsv(destino)) {
+            csv.cabecera("compra_id", "fecha", "proveedor_id", "proveedor",
+                    "producto_id", "producto", "cantidad_kg", "precio_unit", "subtotal", "total_compra");
+            repo.recorrerCompras(desde, hasta, rs -> {
+                csv.columna(rs.getLong("compra_id"))
+                   .columna(rs.getDate("fecha").toLocalDate())
+                   .columna(rs.getLong("proveedor_id"))
+                   .columna(rs.getString("proveedor"))
+                   .columna(rs.getObject("producto_id"))
+                   .columna(rs.getString("producto"))
+                   .columna(rs.getBigDecimal("cantidad_kg"))
+                   .columna(rs.getBigDecimal("precio_unit"))
+                   .columna(rs.getBigDecimal("subtotal"))
+                   .columna(rs.getBigDecimal("total_compra"));
+                csv.finFila();
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void pagos(LocalDate desde, LocalDate hasta, OutputStream destino) {
+        try (EscritorCsv csv = new EscritorCsv(destino)) {
+            csv.cabecera("pago_id", "fecha", "tipo", "ref_id", "ref_nombre", "monto", "metodo");
+            repo.recorrerPagos(desde, hasta, rs -> {
+                csv.columna(rs.getLong("pago_id"))
+                   .columna(rs.getDate("fecha").toLocalDate())
+                   .columna(rs.getString("tipo"))
+                   .columna(rs.getLong("ref_id"))
+                   .columna(rs.getString("ref_nombre"))
+                   .columna(rs.getBigDecimal("monto"))
+                   .columna(rs.getString("metodo"));
+                csv.finFila();
+            });
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.softfruver.inventario.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria de nombres para autocompletar, inmutable (cada cambio
+ * devuelve un índice nuevo; los lectores no se bloquean).
+ *
+ * Normaliza igual que lower(f_unaccent(nombre)) en la BD: sin tildes ni
+ * diéresis, ñ → n, en minúsculas. Orden de resultados:
+ *   1) el nombre empieza por el texto ("mar" → "Marta Gómez"),
+ *   2) alguna palabra empieza por el texto ("gom" → "Marta Gómez"),
+ *   3) el texto aparece en medio (solo desde 3 letras: "rta" → "Marta Gómez").
+ * 1 y 2 se resuelven con búsqueda binaria sobre arreglos ordenados; 3 con un
+ * índice de trigramas, así el costo no crece con la cantidad de nombres.
+ *
+ * Un alta, edición o archivo no rearma esos arreglos: el cambio queda en un
+ * pequeño conjunto aparte (altas/renombres y ids ocultos de la base) que la
+ * búsqueda mezcla en cada grupo. Al pasar de {@value #MAX_CAMBIOS} cambios se
+ * rearma la base una vez con todo.
+ */
+public final class IndiceNombres {
+
+    public record Coincidencia(long id, String nombre) {}
+
+    static final int MAX_CAMBIOS = 64;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private record Entrada(long id, String nombre, String norm) {}
+
+    private record Palabra(String sufijo, int dueno) {}
+
+    // candidato del grupo 2: el sufijo que coincidió y su entrada
+    private record EnPalabra(String sufijo, Entrada entrada) {}
+
+    private static final Comparator<Entrada> POR_NORM =
+            Comparator.comparing(Entrada::norm).thenComparingLong(Entrada::id);
+    private static final Comparator<EnPalabra> POR_SUFIJO =
+            Comparator.comparing(EnPalabra::sufijo).thenComparing(EnPalabra::entrada, POR_NORM);
+
+    private final Base base;
+    private final Map<Long, Entrada> extra;   // altas y renombres desde que se armó la base
+    private final Set<Long> ocultos;          // ids de la base quitados o renombrados
+
+    public static IndiceNombres vacio() {
+        return new IndiceNombres(Map.of());
+    }
+
+    public IndiceNombres(Map<Long, String> entradas) {
+        this(new Base(ordenar(entradas)), Map.of(), Set.of());
+    }
+
+    private IndiceNombres(Base base, Map<Long, Entrada> extra, Set<Long> ocultos) {
+        this.base = base;
+        this.extra = extra;
+        this.ocultos = ocultos;
+    }
+
+    private static Entrada[] ordenar(Map<Long, String> entradas) {
+        Entrada[] r = new Entrada[entradas.size()];
+        int j = 0;
+        for (Map.Entry<Long, String> e : entradas.entrySet()) {
+            r[j++] = new Entrada(e.getKey(), e.getValue(), normalizar(e.getValue()));
+        }
+        Arrays.sort(r, POR_NORM);
+        return r;
+    }
+
+    /** Igual que lower(f_unaccent(s)), con espacios colapsados. */
+    public static String normalizar(String s) {
+        if (s == null) return "";
+        String base = s;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0x7f) { // solo lo que no es ASCII puede llevar tildes
+                base = MARCAS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        return ESPACIOS.matcher(base.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    // ====== Cambios (devuelven un índice nuevo sin tocar la base) ======
+
+    public IndiceNombres con(long id, String nombre) {
+        Map<Long, Entrada> e = new HashMap<>(extra);
+        e.put(id, new Entrada(id, nombre, normalizar(nombre)));
+        return cambiado(e, ocultar(id));
+    }
+
+    public IndiceNombres sin(long id) {
+        if (!extra.containsKey(id) && (ocultos.contains(id) || !base.ids.contains(id))) return this;
+        Map<Long, Entrada> e = new HashMap<>(extra);
+        e.remove(id);
+        return cambiado(e, ocultar(id));
+    }
+
+    private Set<Long> ocultar(long id) {
+        if (ocultos.contains(id) || !base.ids.contains(id)) return ocultos;
+        Set<Long> o = new HashSet<>(ocultos);
+        o.add(id);
+        return o;
+    }
+
+    private IndiceNombres cambiado(Map<Long, Entrada> e, Set<Long> o) {
+        if (e.size() + o.size() <= MAX_CAMBIOS) return new IndiceNombres(base, Map.copyOf(e), Set.copyOf(o));
+        // Demasiados cambios sueltos: se rearma la base con todo (la base ya viene ordenada)
+        List<Entrada> todas = new ArrayList<>(base.orden.length - o.size() + e.size());
+        for (Entrada x : base.orden) if (!o.contains(x.id())) todas.add(x);
+        todas.addAll(e.values());
+        Entrada[] r = todas.toArray(new Entrada[0]);
+        Arrays.sort(r, POR_NORM);
+        return new IndiceNombres(new Base(r), Map.of(), Set.of());
+    }
+
+    public int tamano() {
+        return base.orden.length - ocultos.size() + extra.size();
+    }
+
+    // ====== Búsqueda ======
+
+    public List<Coincidencia> buscar(String q, int limite) {
+        String t = normalizar(q);
+        Map<Long, Coincidencia> r = new LinkedHashMap<>(); // en orden de rango
+        // de la base se piden de más: algunas pueden estar ocultas o ya incluidas
+        int pedir = limite + ocultos.size();
+
+        // 1) prefijo del nombre completo (texto vacío: todos, en orden)
+        List<Entrada> g1 = new ArrayList<>();
+        for (int i = desde(base.norm, t); i < base.norm.length && g1.size() < pedir && base.norm[i].startsWith(t); i++) {
+            g1.add(base.orden[i]);
+        }
+        for (Entrada e : extra.values()) if (e.norm().startsWith(t)) g1.add(e);
+        agregar(r, g1, POR_NORM, limite);
+        if (t.isEmpty() || r.size() >= limite) return List.copyOf(r.values());
+
+        // 2) prefijo de otra palabra (en orden de esa palabra)
+        List<EnPalabra> g2 = new ArrayList<>();
+        for (int k = desde(base.palabras, t);
+             k < base.palabras.length && g2.size() < pedir + r.size() && base.palabras[k].startsWith(t); k++) {
+            g2.add(new EnPalabra(base.palabras[k], base.orden[base.duenoPalabra[k]]));
+        }
+        for (Entrada e : extra.values()) {
+            String s = e.norm();
+            for (int p = 1; p < s.length(); p++) {
+                if (s.charAt(p - 1) == ' ' && s.startsWith(t, p)) g2.add(new EnPalabra(s.substring(p), e));
+            }
+        }
+        g2.sort(POR_SUFIJO);
+        agregar(r, g2.stream().map(EnPalabra::entrada).toList(), null, limite);
+        if (r.size() >= limite || t.length() < 3) return List.copyOf(r.values());
+
+        // 3) en medio: candidatos por la lista de trigramas más corta, luego se verifica
+        List<Entrada> g3 = new ArrayList<>();
+        base.enMedio(t, pedir + r.size(), g3);
+        for (Entrada e : extra.values()) if (e.norm().contains(t)) g3.add(e);
+        agregar(r, g3, POR_NORM, limite);
+        return List.copyOf(r.values());
+    }
+
+    // Ordena el grupo (si hace falta) y suma lo que no esté oculto ni incluido, hasta el límite
+    private void agregar(Map<Long, Coincidencia> r, List<Entrada> grupo, Comparator<Entrada> orden, int limite) {
+        List<Entrada> g = grupo;
+        if (orden != null && !extra.isEmpty()) {
+            g = new ArrayList<>(grupo);
+            g.sort(orden);
+        }
+        for (Entrada e : g) {
+            if (r.size() >= limite) return;
+            if (r.containsKey(e.id())) continue;
+            // una entrada de la base con id oculto quedó vieja (renombrada o quitada)
+            if (ocultos.contains(e.id()) && extra.get(e.id()) != e) continue;
+            r.put(e.id(), new Coincidencia(e.id(), e.nombre()));
+        }
+    }
+
+    // Primera posición cuyo valor es >= t (los que empiezan por t quedan contiguos desde ahí)
+    private static int desde(String[] orden, String t) {
+        int i = Arrays.binarySearch(orden, t);
+        if (i >= 0) {
+            while (i > 0 && orden[i - 1].equals(t)) i--;
+            return i;
+        }
+        return -i - 1;
+    }
+
+    // ====== Base: arreglos ordenados e índice de trigramas, se arman una vez ======
+    private static final class Base {
+        private final Entrada[] orden;              // por nombre normalizado, luego id
+        private final Set<Long> ids;
+        private final String[] norm;
+        private final String[] palabras;            // sufijos que empiezan en palabra 2, 3...
+        private final int[] duenoPalabra;           // posición en orden del sufijo
+        // trigrama -> código; las posiciones del código c son posTri[iniTri[c] .. iniTri[c+1])
+        private final CodigosTrigrama codTri;
+        private final int[] iniTri;
+        private final int[] posTri;
+
+        // orden ya viene ordenado por POR_NORM
+        Base(Entrada[] orden) {
+            this.orden = orden;
+            int n = orden.length;
+            ids = new HashSet<>(n * 2);
+            norm = new String[n];
+            List<Palabra> pal = new ArrayList<>();
+            int totalTri = 0;
+            for (int i = 0; i < n; i++) {
+                ids.add(orden[i].id());
+                norm[i] = orden[i].norm();
+                String s = norm[i];
+                for (int p = 1; p < s.length(); p++) {
+                    if (s.charAt(p - 1) == ' ') pal.add(new Palabra(s.substring(p), i));
+                }
+                totalTri += Math.max(0, s.length() - 2);
+            }
+
+            Palabra[] ps = pal.toArray(new Palabra[0]);
+            Arrays.sort(ps, Comparator.comparing(Palabra::sufijo).thenComparingInt(Palabra::dueno));
+            palabras = new String[ps.length];
+            duenoPalabra = new int[ps.length];
+            for (int k = 0; k < ps.length; k++) {
+                palabras[k] = ps[k].sufijo();
+                duenoPalabra[k] = ps[k].dueno();
+            }
+
+            // (código << 32 | posición) ordenado deja juntas, y ascendentes, las posiciones de cada trigrama
+            codTri = new CodigosTrigrama(Math.max(16, totalTri / 4));
+            long[] pares = new long[totalTri];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                String s = norm[i];
+                for (int p = 0; p + 3 <= s.length(); p++) {
+                    pares[m++] = ((long) codTri.codigo(trigrama(s, p), true) << 32) | i;
+                }
+            }
+            Arrays.sort(pares, 0, m);
+            iniTri = new int[codTri.tamano() + 1];
+            int[] pos = new int[m];
+            int k = 0;
+            long previo = -1;
+            for (int x = 0; x < m; x++) {
+                if (pares[x] == previo) continue; // mismo trigrama repetido en un nombre
+                previo = pares[x];
+                pos[k++] = (int) pares[x];
+                iniTri[(int) (pares[x] >>> 32) + 1] = k;
+            }
+            // los códigos son densos y cada uno tiene al menos una posición: iniTri[c] es el fin de c-1
+            posTri = Arrays.copyOf(pos, k);
+        }
+
+        // Posiciones que contienen t (de 3 letras o más), en orden, hasta max
+        void enMedio(String t, int max, List<Entrada> r) {
+            int menor = -1;
+            for (int p = 0; p + 3 <= t.length(); p++) {
+                int c = codTri.codigo(trigrama(t, p), false);
+                if (c < 0) return;
+                if (menor < 0 || largo(c) < largo(menor)) menor = c;
+            }
+            for (int x = iniTri[menor]; x < iniTri[menor + 1] && r.size() < max; x++) {
+                int i = posTri[x];
+                if (norm[i].contains(t)) r.add(orden[i]);
+            }
+        }
+
+        private int largo(int codigo) {
+            return iniTri[codigo + 1] - iniTri[codigo];
+        }
+    }
+
+    private static long trigrama(String s, int p) {
+        return ((long) s.charAt(p) << 32) | ((long) s.charAt(p + 1) << 16) | s.charAt(p + 2);
+    }
+
+    // Tabla de direccionamiento abierto trigrama -> código denso (0, 1, 2...), sin cajas Long/Integer
+    private static final class CodigosTrigrama {
+        private long[] claves;
+        private int[] codigos;
+        private int tamano;
+
+        CodigosTrigrama(int capacidad) {
+            int c = Integer.highestOneBit(Math.max(16, capacidad) * 2);
+            claves = new long[c];
+            codigos = new int[c];
+            Arrays.fill(codigos, -1);
+        }
+
+        int tamano() {
+            return tamano;
+        }
+
+        // -1 si no está y crear == false
+        int codigo(long clave, boolean crear) {
+            int mask = claves.length - 1;
+            int i = (int) (mezclar(clave) & mask);
+            while (codigos[i] >= 0) {
+                if (claves[i] == clave) return codigos[i];
+                i = (i + 1) & mask;
+            }
+            if (!crear) return -1;
+            claves[i] = clave;
+            codigos[i] = tamano++;
+            if (tamano * 2 > claves.length) crecer();
+            return tamano - 1;
+        }
+
+        private void crecer() {
+            long[] k = claves;
+            int[] c = codigos;
+            claves = new long[k.length * 2];
+            codigos = new int[k.length * 2];
+            Arrays.fill(codigos, -1);
+            int mask = claves.length - 1;
+            for (int j = 0; j < k.length; j++) {
+                if (c[j] < 0) continue;
+                int i = (int) (mezclar(k[j]) & mask);
+                while (codigos[i] >= 0) i = (i + 1) & mask;
+                claves[i] = k[j];
+                codigos[i] = c[j];
+            }
+        }
+
+        private static long mezclar(long x) {
+            x ^= x >>> 33;
+            x *= 0xff51afd7ed558ccdL;
+            x ^= x >>> 33;
+            return x;
+        }
+    }
+}
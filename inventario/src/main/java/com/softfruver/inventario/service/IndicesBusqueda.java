@@ -0,0 +1,125 @@
+package com.softfruver.inventario.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Autocompletar de clientes, productos y proveedores activos sin ir a la BD en
+ * cada tecla (ver {@link IndiceNombres}). Se carga al arrancar, se actualiza
+ * después del commit de cada alta/edición/archivo ({@link Cambio}) y se recarga
+ * completo cada {@code softfruver.busqueda.recargar-ms} desde {@link CatalogoOpciones}
+ * (los productos no se editan desde la app: les llega por la revalidación de esa caché).
+ *
+ * Cada índice lleva una versión que sube al reemplazarlo; {@link #etag} la usa
+ * para que el autocompletar conteste 304 mientras no cambie.
+ *
+ * La recarga arma el índice nuevo fuera del candado; los cambios que llegan
+ * mientras tanto se anotan y se vuelven a aplicar sobre él antes de publicarlo,
+ * así una recarga con datos leídos antes del commit no los pisa. Si la lista de
+ * {@link CatalogoOpciones} no cambió desde la última carga no se reemplaza nada.
+ */
+@Service
+public class IndicesBusqueda {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicesBusqueda.class);
+
+    public enum Catalogo { CLIENTES, PRODUCTOS, PROVEEDORES }
+
+    /** Registro creado/editado/restaurado (activo=true) o archivado (activo=false) */
+    public record Cambio(Catalogo catalogo, Long id, String nombre, boolean activo) {}
+
+    private final CatalogoOpciones opciones;
+    // distingue versiones de un arranque a otro (el contador vuelve a 0)
+    private static final String ARRANQUE = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicReferenceArray<IndiceNombres> indices = new AtomicReferenceArray<>(Catalogo.values().length);
+    private final AtomicLongArray versiones = new AtomicLongArray(Catalogo.values().length);
+    // Protegidos por this: cambios llegados durante la recarga de cada catálogo, y
+    // versión de CatalogoOpciones con la que se armó cada índice
+    private final Map<Catalogo, List<Cambio>> pendientes = new EnumMap<>(Catalogo.class);
+    private final long[] cargadas = new long[Catalogo.values().length];
+
+    public IndicesBusqueda(CatalogoOpciones opciones) {
+        this.opciones = opciones;
+        for (Catalogo c : Catalogo.values()) {
+            indices.set(c.ordinal(), IndiceNombres.vacio());
+            cargadas[c.ordinal()] = -1;
+        }
+    }
+
+    public List<IndiceNombres.Coincidencia> buscar(Catalogo catalogo, String q, int limite) {
+        return indices.get(catalogo.ordinal()).buscar(q, limite);
+    }
+
+    /** ETag de las búsquedas en el catálogo: cambia cada vez que cambia su índice */
+    public String etag(Catalogo catalogo) {
+        return "\"" + catalogo.name().toLowerCase(Locale.ROOT) + "-" + ARRANQUE + "-"
+                + versiones.get(catalogo.ordinal()) + "\"";
+    }
+
+    // La versión sube después de publicar el índice: un ETag nuevo nunca acompaña datos viejos
+    private void reemplazar(Catalogo c, IndiceNombres nuevo) {
+        indices.set(c.ordinal(), nuevo);
+        versiones.incrementAndGet(c.ordinal());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${softfruver.busqueda.recargar-ms:600000}",
+               initialDelayString = "${softfruver.busqueda.recargar-ms:600000}")
+    public void recargar() {
+        for (Catalogo c : Catalogo.values()) {
+            synchronized (this) {
+                pendientes.put(c, new ArrayList<>());
+            }
+            try {
+                CatalogoOpciones.Lista lista = opciones.lista(c);
+                synchronized (this) {
+                    if (lista.version() == cargadas[c.ordinal()]) continue;
+                }
+                IndiceNombres nuevo = new IndiceNombres(cargar(lista));
+                synchronized (this) {
+                    for (Cambio p : pendientes.get(c)) nuevo = aplicar(nuevo, p);
+                    cargadas[c.ordinal()] = lista.version();
+                    reemplazar(c, nuevo);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Búsqueda: no se pudo cargar el índice de {} ({})", c, ex.toString());
+            } finally {
+                synchronized (this) {
+                    pendientes.remove(c);
+                }
+            }
+        }
+    }
+
+    private static Map<Long, String> cargar(CatalogoOpciones.Lista lista) {
+        Map<Long, String> m = new HashMap<>();
+        lista.opciones().forEach(o -> m.put(o.id(), o.nombre()));
+        return m;
+    }
+
+    private static IndiceNombres aplicar(IndiceNombres indice, Cambio c) {
+        return c.activo() ? indice.con(c.id(), c.nombre()) : indice.sin(c.id());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void alCambiar(Cambio c) {
+        List<Cambio> enRecarga = pendientes.get(c.catalogo());
+        if (enRecarga != null) enRecarga.add(c);
+        reemplazar(c.catalogo(), aplicar(indices.get(c.catalogo().ordinal()), c));
+    }
+}
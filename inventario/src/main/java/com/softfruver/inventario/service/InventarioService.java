@@ -0,0 +1,37 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.repository.InventarioRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+@Service
+public class InventarioService {
+
+    private final InventarioRepository inventarioRepository;
+    private final ApplicationEventPublisher eventos;
+
+    public InventarioService(InventarioRepository inventarioRepository, ApplicationEventPublisher eventos) {
+        this.inventarioRepository = inventarioRepository;
+        this.eventos = eventos;
+    }
+
+    /** Umbral de stock bajo de un producto; null vuelve al de por defecto (20 kg). */
+    @Transactional
+    public void guardarUmbral(Long productoId, BigDecimal umbralKg) {
+        if (productoId == null) {
+            throw new IllegalArgumentException("Producto requerido.");
+        }
+        if (umbralKg != null && umbralKg.signum() < 0) {
+            throw new IllegalArgumentException("El umbral no puede ser negativo.");
+        }
+        if (!inventarioRepository.guardarUmbral(productoId, umbralKg)) {
+            throw new IllegalArgumentException("El producto " + productoId + " no existe.");
+        }
+        // La proyección relee el producto y, si cruzó el nuevo umbral, avisa
+        eventos.publishEvent(new StockProyeccion.Cambio(Set.of(productoId)));
+    }
+}
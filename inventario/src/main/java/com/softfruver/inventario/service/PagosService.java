@@ -1,19 +1,38 @@
 package com.softfruver.inventario.service;
 
 import com.softfruver.inventario.repository.PagosRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class PagosService {
 
+    private static final Logger log = LoggerFactory.getLogger(PagosService.class);
+
+    /** Pagos por lote como máximo (una planilla de cobro trae 40–80) */
+    public static final int MAX_LOTE = 500;
+
     private final PagosRepository repo;
+    private final ApplicationEventPublisher eventos;
 
-    public PagosService(PagosRepository repo) {
+    public PagosService(PagosRepository repo, ApplicationEventPublisher eventos) {
         this.repo = repo;
+        this.eventos = eventos;
     }
 
     private static String validarMetodo(String metodo) {
@@ -25,6 +44,120 @@ public class PagosService {
         return m;
     }
 
+    // ====== Lote (planilla de cobro de una ruta) ======
+    public record PagoLote(String tipo, Long refId, LocalDate fecha, BigDecimal monto, String metodo) {}
+
+    public record ErrorFila(int fila, String mensaje) {}
+
+    /** ids en el orden de la planilla; vacío si hubo errores (no se guardó nada) */
+    public record ResultadoLote(List<Long> ids, List<ErrorFila> errores) {
+        public boolean ok() {
+            return errores.isEmpty();
+        }
+    }
+
+    /**
+     * Valida toda la planilla y, si no hay errores, la guarda en una sola
+     * transacción con un INSERT en lote por tabla. Con cualquier error no se
+     * guarda nada y se devuelven todos los errores por fila (numeradas desde 1).
+     */
+    @Transactional
+    public ResultadoLote registrarLote(List<PagoLote> pagos) {
+        return registrarLote(null, pagos);
+    }
+
+    /**
+     * Igual, con el token de la planilla: se reserva en la misma transacción que
+     * los INSERT, así que un reenvío (aunque llegue a otro nodo, o a la vez) no
+     * guarda nada; si la planilla falla, el token queda libre para corregirla.
+     */
+    @Transactional
+    public ResultadoLote registrarLote(UUID token, List<PagoLote> pagos) {
+        List<ErrorFila> errores = new ArrayList<>();
+        if (pagos == null || pagos.isEmpty()) {
+            return new ResultadoLote(List.of(), List.of(new ErrorFila(0, "La planilla no tiene pagos.")));
+        }
+        if (pagos.size() > MAX_LOTE) {
+            return new ResultadoLote(List.of(), List.of(new ErrorFila(0,
+                    "La planilla tiene " + pagos.size() + " pagos; el máximo por lote es " + MAX_LOTE + ".")));
+        }
+
+        // 1) Campos de cada fila
+        String[] tipos = new String[pagos.size()];
+        String[] metodos = new String[pagos.size()];
+        Map<String, Set<Long>> refsPorTipo = new HashMap<>();
+        for (int i = 0; i < pagos.size(); i++) {
+            PagoLote p = pagos.get(i);
+            int fila = i + 1;
+            if (p == null) {
+                errores.add(new ErrorFila(fila, "Fila vacía."));
+                continue;
+            }
+            String t = (p.tipo() == null || p.tipo().isBlank()) ? "CLIENTE" : p.tipo().trim().toUpperCase();
+            if (!t.equals("CLIENTE") && !t.equals("PROVEEDOR")) {
+                errores.add(new ErrorFila(fila, "Tipo inválido: " + p.tipo()));
+                continue;
+            }
+            tipos[i] = t;
+            if (p.refId() == null) errores.add(new ErrorFila(fila, "Debe seleccionar cliente/proveedor."));
+            else refsPorTipo.computeIfAbsent(t, k -> new HashSet<>()).add(p.refId());
+            if (p.fecha() == null) errores.add(new ErrorFila(fila, "La fecha es obligatoria."));
+            if (p.monto() == null || p.monto().signum() <= 0) errores.add(new ErrorFila(fila, "El monto debe ser mayor a 0."));
+            try {
+                metodos[i] = validarMetodo(p.metodo());
+            } catch (IllegalArgumentException ex) {
+                errores.add(new ErrorFila(fila, ex.getMessage()));
+            }
+        }
+
+        // 2) Clientes/proveedores: una consulta por tipo para toda la planilla
+        Map<String, Set<Long>> activos = new HashMap<>();
+        refsPorTipo.forEach((t, ids) -> activos.put(t, repo.refsActivas(t, ids)));
+        for (int i = 0; i < pagos.size(); i++) {
+            PagoLote p = pagos.get(i);
+            if (tipos[i] == null || p.refId() == null) continue;
+            if (!activos.get(tipos[i]).contains(p.refId())) {
+                errores.add(new ErrorFila(i + 1, (tipos[i].equals("CLIENTE") ? "Cliente" : "Proveedor")
+                        + " " + p.refId() + " no existe o está archivado."));
+            }
+        }
+        if (!errores.isEmpty()) {
+            errores.sort((a, b) -> Integer.compare(a.fila(), b.fila()));
+            return new ResultadoLote(List.of(), errores);
+        }
+
+        if (token != null && !repo.reservarLote(token)) {
+            return new ResultadoLote(List.of(), List.of(new ErrorFila(0,
+                    "Esta planilla ya se guardó. Revise el listado de pagos; para cargar otra, abra una planilla nueva.")));
+        }
+
+        // 3) Un INSERT en lote por tabla; los ids vuelven a su fila
+        Long[] ids = new Long[pagos.size()];
+        for (String t : List.of("CLIENTE", "PROVEEDOR")) {
+            List<Integer> filas = new ArrayList<>();
+            List<PagosRepository.PagoNuevo> nuevos = new ArrayList<>();
+            for (int i = 0; i < pagos.size(); i++) {
+                if (!t.equals(tipos[i])) continue;
+                PagoLote p = pagos.get(i);
+                filas.add(i);
+                nuevos.add(new PagosRepository.PagoNuevo(p.refId(), p.fecha(), p.monto(), metodos[i]));
+            }
+            List<Long> generados = repo.insertarPagosLote(t, nuevos);
+            for (int k = 0; k < filas.size(); k++) ids[filas.get(k)] = generados.get(k);
+        }
+        eventos.publishEvent(new DashboardService.Movimiento("pago"));
+        return new ResultadoLote(Arrays.asList(ids), List.of());
+    }
+
+    @Scheduled(fixedDelayString = "${softfruver.pagos.limpiar-lotes-ms:3600000}")
+    public void limpiarLotesEnviados() {
+        try {
+            repo.limpiarLotesEnviados();
+        } catch (RuntimeException ex) {
+            log.warn("Pagos: no se pudieron borrar tokens de planillas viejas ({})", ex.toString());
+        }
+    }
+
     @Transactional
     public Long registrarPago(String tipo, Long refId, LocalDate fecha, BigDecimal monto, String metodo) {
         if (refId == null) throw new IllegalArgumentException("Debe seleccionar cliente/proveedor.");
@@ -33,11 +166,13 @@ public class PagosService {
 
         String m = validarMetodo(metodo);
         String t = (tipo == null ? "" : tipo.trim().toUpperCase());
-        return switch (t) {
+        Long id = switch (t) {
             case "CLIENTE"   -> repo.insertPagoCliente(refId, fecha, monto, m);
             case "PROVEEDOR" -> repo.insertPagoProveedor(refId, fecha, monto, m);
             default -> throw new IllegalArgumentException("Tipo inválido: " + tipo);
         };
+        eventos.publishEvent(new DashboardService.Movimiento("pago"));
+        return id;
     }
 
     @Transactional
@@ -54,13 +189,14 @@ public class PagosService {
             case "PROVEEDOR" -> repo.updatePagoProveedor(id, refId, fecha, monto, m);
             default -> throw new IllegalArgumentException("Tipo inválido: " + tipo);
         }
+        eventos.publishEvent(new DashboardService.Movimiento("pago"));
     }
 
     @Transactional
-    public void eliminarPago(Long id) {
-        String tipo = repo.tipoPorId(id);
-        if (tipo == null) throw new IllegalArgumentException("Pago no encontrado: " + id);
-        if ("CLIENTE".equals(tipo)) repo.deletePagoCliente(id);
-        else repo.deletePagoProveedor(id);
+    public void eliminarPago(String tipo, Long id) {
+        String t = (tipo == null ? "" : tipo.trim().toUpperCase());
+        if (!t.equals("CLIENTE") && !t.equals("PROVEEDOR")) throw new IllegalArgumentException("Tipo inválido: " + tipo);
+        if (repo.eliminarPago(t, id) == 0) throw new IllegalArgumentException("Pago no encontrado: " + id);
+        eventos.publishEvent(new DashboardService.Movimiento("pago"));
     }
 }
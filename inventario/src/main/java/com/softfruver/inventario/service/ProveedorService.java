@@ -1,11 +1,10 @@
 package com.softfruver.inventario.service;
 
 import com.softfruver.inventario.model.Proveedor;
+import com.softfruver.inventario.repository.ListadoSaldosRepository;
 import com.softfruver.inventario.repository.ProveedorRepository;
-import com.softfruver.inventario.repository.projection.ProveedorListado;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,23 +15,23 @@ import java.util.Objects;
 public class ProveedorService {
 
   private final ProveedorRepository repo;
+  private final ListadoSaldosRepository listados;
+  private final ApplicationEventPublisher eventos;
 
-  public ProveedorService(ProveedorRepository repo) {
+  public ProveedorService(ProveedorRepository repo, ListadoSaldosRepository listados, ApplicationEventPublisher eventos) {
     this.repo = repo;
+    this.listados = listados;
+    this.eventos = eventos;
   }
 
-  // ===== Listado paginado con búsqueda =====
+  // ===== Listado por cursor (siguiente/anterior): sin OFFSET ni COUNT(*), total estimado opcional =====
   @Transactional(readOnly = true)
-  public Page<ProveedorListado> buscarPorEstado(boolean archivados, String q, Pageable pageable) {
+  public ListadoSaldosRepository.Pagina buscarPorEstado(boolean archivados, String q,
+      ListadoSaldosRepository.Cursor despuesDe, ListadoSaldosRepository.Cursor antesDe,
+      int tamano, boolean estimarTotal) {
     String term = (q == null || q.isBlank()) ? null : q.trim();
-    if (term == null) {
-      return archivados
-          ? repo.listarArchivadosOrdenPage(pageable)
-          : repo.listarVisiblesOrdenPage(pageable);
-    }
-    return archivados
-        ? repo.buscarArchivadosPage(term, pageable)
-        : repo.buscarActivosPage(term, pageable);
+    return listados.pagina(ListadoSaldosRepository.Listado.PROVEEDORES, archivados, term, despuesDe, antesDe,
+        tamano, estimarTotal);
   }
 
   // ===== Crear =====
@@ -61,7 +60,9 @@ public class ProveedorService {
     p.setArchivedAt(null);
     p.setCreadoEn(OffsetDateTime.now());
     p.setActualizadoEn(OffsetDateTime.now());
-    repo.save(p);
+    Proveedor guardado = repo.save(p);
+    eventos.publishEvent(new IndicesBusqueda.Cambio(
+        IndicesBusqueda.Catalogo.PROVEEDORES, guardado.getId(), guardado.getNombre(), true));
   }
 
   // ===== Archivar / Restaurar =====
@@ -73,6 +74,7 @@ public class ProveedorService {
       p.setArchivedAt(OffsetDateTime.now());
       p.setActualizadoEn(OffsetDateTime.now());
       repo.save(p);
+      eventos.publishEvent(new IndicesBusqueda.Cambio(IndicesBusqueda.Catalogo.PROVEEDORES, p.getId(), p.getNombre(), false));
     }
   }
 
@@ -84,6 +86,7 @@ public class ProveedorService {
       p.setArchivedAt(null);
       p.setActualizadoEn(OffsetDateTime.now());
       repo.save(p);
+      eventos.publishEvent(new IndicesBusqueda.Cambio(IndicesBusqueda.Catalogo.PROVEEDORES, p.getId(), p.getNombre(), true));
     }
   }
 
@@ -124,5 +127,7 @@ public class ProveedorService {
     p.setTelefono((tel != null && tel.isBlank()) ? null : tel);
     p.setActualizadoEn(OffsetDateTime.now());
     repo.save(p);
+    eventos.publishEvent(new IndicesBusqueda.Cambio(
+        IndicesBusqueda.Catalogo.PROVEEDORES, p.getId(), p.getNombre(), p.getArchivedAt() == null));
   }
 }
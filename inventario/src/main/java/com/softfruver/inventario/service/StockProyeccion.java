@@ -0,0 +1,294 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.repository.InventarioRepository;
+import com.softfruver.inventario.repository.InventarioRepository.StockProducto;
+import com.softfruver.inventario.repository.projection.InventarioItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock de todos los productos en memoria, para que /inventario (lista, búsqueda
+ * y contadores) no consulte la BD en cada visita.
+ *
+ * Se carga al arrancar, se refresca después de cada commit que toca ítems de
+ * venta/compra (solo los productos afectados, releyendo v_inventario_umbral:
+ * los triggers siguen siendo la fuente de verdad) y se reconcilia completa cada
+ * {@code softfruver.inventario.reconciliar-ms} por si algo cambió fuera de la app.
+ *
+ * Los lectores ven una foto inmutable (ids ordenados en long[] + búsqueda binaria);
+ * los cambios construyen una foto nueva y la publican de una vez. Si solo cambió
+ * el stock o el umbral de productos que ya estaban, la foto nueva copia los
+ * arreglos y reemplaza esas posiciones, sin volver a ordenar; un producto nuevo
+ * o renombrado sí la rearma.
+ *
+ * El stock se relee fuera del candado, así que dos commits seguidos pueden
+ * aplicar sus lecturas en desorden. Cada lectura toma un número antes de ir a
+ * la BD y cada producto recuerda el de la última que lo aplicó: una lectura que
+ * empezó antes que la ya aplicada no lo pisa (la que empezó después vio, como
+ * mínimo, los mismos commits). La reconciliación también lee fuera del candado
+ * con su propio número; al publicar conserva los productos que una lectura
+ * posterior ya aplicó.
+ *
+ * Al aplicar un cambio solo se evalúan los productos que cambiaron contra su
+ * umbral (producto_umbral, V11); los que pasan a estar en alerta se publican
+ * como {@link AlertasNuevas} (ver AvisosStock).
+ */
+@Service
+public class StockProyeccion {
+
+    private static final Logger log = LoggerFactory.getLogger(StockProyeccion.class);
+
+    /** Productos cuyo stock (o umbral) cambió en la transacción que lo publica */
+    public record Cambio(Set<Long> productoIds) {}
+
+    /** Producto que acaba de quedar en o por debajo de su umbral */
+    public record AlertaStock(long productoId, String nombre, double stockKg, double umbralKg) {}
+
+    public record AlertasNuevas(List<AlertaStock> alertas) {}
+
+    private final InventarioRepository repo;
+    private final ApplicationEventPublisher eventos;
+    private final boolean activa;
+    private final Comparator<Object> orden = Collator.getInstance(new Locale("es"));
+
+    private volatile Foto foto; // null = aún no cargada (o desactivada)
+
+    // Número de cada lectura de stock, tomado antes de la consulta
+    private final AtomicLong lecturas = new AtomicLong();
+    // Protegidos por this: lectura de la última reconciliación, y de las aplicadas después por producto
+    private long lecturaBase;
+    private final Map<Long, Long> lecturaPorProducto = new HashMap<>();
+
+    public StockProyeccion(InventarioRepository repo, ApplicationEventPublisher eventos,
+                           @Value("${softfruver.inventario.proyeccion:true}") boolean activa) {
+        this.repo = repo;
+        this.eventos = eventos;
+        this.activa = activa;
+    }
+
+    // ====== Lectura ======
+
+    /** false si está desactivada o la carga inicial falló; el llamador consulta la BD. */
+    public boolean disponible() {
+        return foto != null;
+    }
+
+    public List<InventarioItem> listar() {
+        return foto.ordenados;
+    }
+
+    /** Igual que el ILIKE '%q%' de InventarioRepository.buscar */
+    public List<InventarioItem> buscar(String q) {
+        Foto f = foto;
+        String needle = q.toLowerCase(Locale.ROOT);
+        List<InventarioItem> r = new ArrayList<>();
+        for (int i = 0; i < f.ordenados.size(); i++) {
+            if (f.nombresMin[i].contains(needle)) r.add(f.ordenados.get(i));
+        }
+        return r;
+    }
+
+    public long totalProductos() {
+        return foto.ids.length;
+    }
+
+    public long totalAlertas() {
+        return foto.alertas;
+    }
+
+    /** Stock de un producto, o NaN si no está en la proyección. */
+    public double stockKg(long productoId) {
+        Foto f = foto;
+        int i = Arrays.binarySearch(f.ids, productoId);
+        return i >= 0 ? f.stock[i] : Double.NaN;
+    }
+
+    // ====== Mantenimiento ======
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        if (!activa) return;
+        try {
+            reconciliar();
+        } catch (RuntimeException ex) {
+            log.warn("Inventario: no se pudo cargar la proyección de stock, se consulta la BD ({})", ex.toString());
+        }
+    }
+
+    // Después del commit: en rollback el stock no cambió y no hay nada que refrescar
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiar(Cambio cambio) {
+        if (foto == null || cambio.productoIds().isEmpty()) return;
+        try {
+            long lectura = lecturas.incrementAndGet();
+            aplicar(lectura, repo.stockDe(cambio.productoIds()));
+        } catch (RuntimeException ex) {
+            // la próxima reconciliación lo corrige
+            log.warn("Inventario: no se pudo refrescar stock de {} ({})", cambio.productoIds(), ex.toString());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${softfruver.inventario.reconciliar-ms:300000}",
+               initialDelayString = "${softfruver.inventario.reconciliar-ms:300000}")
+    public void reconciliarProgramado() {
+        if (!activa) return;
+        try {
+            reconciliar();
+        } catch (RuntimeException ex) {
+            log.warn("Inventario: reconciliación de stock falló ({})", ex.toString());
+        }
+    }
+
+    void reconciliar() {
+        // la consulta completa no bloquea los refrescos: los que apliquen mientras tanto se conservan abajo
+        long lectura = lecturas.incrementAndGet();
+        List<StockProducto> todos = repo.stockTodos();
+        List<AlertaStock> nuevas;
+        synchronized (this) {
+            if (lecturaBase > lectura) return; // ya se publicó una reconciliación que empezó después
+            Foto anterior = foto;
+            Collection<StockProducto> filas = anterior == null ? todos : conservarPosteriores(anterior, todos, lectura);
+            foto = construir(filas);
+            lecturaBase = lectura;
+            lecturaPorProducto.values().removeIf(l -> l <= lectura);
+            if (anterior == null) return; // carga inicial: no es un cruce de umbral
+            int difieren = contarDiferencias(anterior, foto);
+            if (difieren > 0) log.info("Inventario: reconciliación corrigió {} producto(s)", difieren);
+            nuevas = alertasNuevas(anterior, filas);
+        }
+        if (!nuevas.isEmpty()) eventos.publishEvent(new AlertasNuevas(nuevas));
+    }
+
+    // Con el candado tomado: los productos que aplicó una lectura posterior a la reconciliación quedan como están
+    private Collection<StockProducto> conservarPosteriores(Foto f, List<StockProducto> todos, long lectura) {
+        Map<Long, StockProducto> m = new HashMap<>(todos.size() * 2);
+        for (StockProducto p : todos) m.put(p.productoId(), p);
+        for (Map.Entry<Long, Long> e : lecturaPorProducto.entrySet()) {
+            if (e.getValue() <= lectura) continue;
+            int i = Arrays.binarySearch(f.ids, e.getKey());
+            if (i >= 0) m.put(f.ids[i], new StockProducto(f.ids[i], f.nombres[i], f.stock[i], f.umbral[i]));
+        }
+        return m.values();
+    }
+
+    private void aplicar(long lectura, Collection<StockProducto> filas) {
+        List<AlertaStock> nuevas;
+        synchronized (this) {
+            List<StockProducto> vigentes = new ArrayList<>(filas.size());
+            for (StockProducto p : filas) {
+                if (lecturaPorProducto.getOrDefault(p.productoId(), lecturaBase) > lectura) continue; // ya hay una más nueva
+                lecturaPorProducto.put(p.productoId(), lectura);
+                vigentes.add(p);
+            }
+            if (vigentes.isEmpty()) return;
+            Foto f = foto;
+            Foto nueva = conCambios(f, vigentes);
+            foto = nueva != null ? nueva : construir(unir(f, vigentes));
+            nuevas = alertasNuevas(f, vigentes);
+        }
+        if (!nuevas.isEmpty()) eventos.publishEvent(new AlertasNuevas(nuevas));
+    }
+
+    // Solo stock/umbral de productos existentes: copia y reemplaza en su lugar. null si hay que rearmar.
+    private static Foto conCambios(Foto f, List<StockProducto> filas) {
+        double[] stock = f.stock.clone();
+        double[] umbral = f.umbral.clone();
+        List<InventarioItem> ordenados = new ArrayList<>(f.ordenados);
+        int alertas = f.alertas;
+        for (StockProducto p : filas) {
+            int i = Arrays.binarySearch(f.ids, p.productoId());
+            if (i < 0 || !f.nombres[i].equals(p.nombre())) return null; // nuevo o renombrado: cambia el orden
+            if (stock[i] <= umbral[i]) alertas--;
+            if (p.enAlerta()) alertas++;
+            stock[i] = p.stockKg();
+            umbral[i] = p.umbralKg();
+            ordenados.set(f.posNombre[i], new InventarioItem(p.productoId(), p.nombre(), p.stockKg(), p.umbralKg()));
+        }
+        return new Foto(f.ids, stock, umbral, f.nombres, f.posNombre, List.copyOf(ordenados), f.nombresMin, alertas);
+    }
+
+    private static Collection<StockProducto> unir(Foto f, List<StockProducto> filas) {
+        Map<Long, StockProducto> m = new HashMap<>(f.ids.length * 2);
+        for (int i = 0; i < f.ids.length; i++) {
+            m.put(f.ids[i], new StockProducto(f.ids[i], f.nombres[i], f.stock[i], f.umbral[i]));
+        }
+        for (StockProducto p : filas) m.put(p.productoId(), p);
+        return m.values();
+    }
+
+    // Solo las filas indicadas: en alerta ahora y no antes (o producto nuevo)
+    private static List<AlertaStock> alertasNuevas(Foto antes, Collection<StockProducto> filas) {
+        List<AlertaStock> r = new ArrayList<>();
+        for (StockProducto p : filas) {
+            if (!p.enAlerta()) continue;
+            int i = Arrays.binarySearch(antes.ids, p.productoId());
+            boolean estaba = i >= 0 && antes.stock[i] <= antes.umbral[i];
+            if (!estaba) r.add(new AlertaStock(p.productoId(), p.nombre(), p.stockKg(), p.umbralKg()));
+        }
+        return r;
+    }
+
+    private Foto construir(Collection<StockProducto> filas) {
+        StockProducto[] porId = filas.toArray(new StockProducto[0]);
+        Arrays.sort(porId, Comparator.comparingLong(StockProducto::productoId));
+
+        long[] ids = new long[porId.length];
+        double[] stock = new double[porId.length];
+        double[] umbral = new double[porId.length];
+        String[] nombres = new String[porId.length];
+        int alertas = 0;
+        for (int i = 0; i < porId.length; i++) {
+            ids[i] = porId[i].productoId();
+            stock[i] = porId[i].stockKg();
+            umbral[i] = porId[i].umbralKg();
+            nombres[i] = porId[i].nombre();
+            if (porId[i].enAlerta()) alertas++;
+        }
+
+        StockProducto[] porNombre = porId.clone();
+        Arrays.sort(porNombre, (a, b) -> orden.compare(a.nombre(), b.nombre()));
+        List<InventarioItem> ordenados = new ArrayList<>(porNombre.length);
+        String[] nombresMin = new String[porNombre.length];
+        int[] posNombre = new int[porId.length];
+        for (int i = 0; i < porNombre.length; i++) {
+            StockProducto p = porNombre[i];
+            ordenados.add(new InventarioItem(p.productoId(), p.nombre(), p.stockKg(), p.umbralKg()));
+            nombresMin[i] = porNombre[i].nombre().toLowerCase(Locale.ROOT);
+            posNombre[Arrays.binarySearch(ids, p.productoId())] = i;
+        }
+        return new Foto(ids, stock, umbral, nombres, posNombre, List.copyOf(ordenados), nombresMin, alertas);
+    }
+
+    private static int contarDiferencias(Foto a, Foto b) {
+        if (a.ids.length != b.ids.length) return Math.abs(a.ids.length - b.ids.length);
+        int n = 0;
+        for (int i = 0; i < a.ids.length; i++) {
+            if (a.ids[i] != b.ids[i] || Double.compare(a.stock[i], b.stock[i]) != 0
+                    || Double.compare(a.umbral[i], b.umbral[i]) != 0) n++;
+        }
+        return n;
+    }
+
+    // ids/stock/umbral/nombres/posNombre por id (posNombre: posición en ordenados); ordenados/nombresMin por nombre
+    private record Foto(long[] ids, double[] stock, double[] umbral, String[] nombres, int[] posNombre,
+                        List<InventarioItem> ordenados, String[] nombresMin, int alertas) {}
+}
@@ -1,8 +1,10 @@
 package com.softfruver.inventario.service;
 
+import com.softfruver.inventario.security.UsuarioDetailsService;
 import com.softfruver.inventario.user.RolUsuario;
 import com.softfruver.inventario.user.Usuario;
 import com.softfruver.inventario.user.UsuarioRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -16,10 +18,12 @@ public class UsuarioService {
 
   private final UsuarioRepository repo;
   private final PasswordEncoder passwordEncoder;
+  private final ApplicationEventPublisher eventos;
 
-  public UsuarioService(UsuarioRepository repo, PasswordEncoder passwordEncoder) {
+  public UsuarioService(UsuarioRepository repo, PasswordEncoder passwordEncoder, ApplicationEventPublisher eventos) {
     this.repo = repo;
     this.passwordEncoder = passwordEncoder;
+    this.eventos = eventos;
   }
 
   // ====== Utilidades ======
@@ -63,6 +67,7 @@ public class UsuarioService {
     u.setPassHash(passwordEncoder.encode(nuevaPassword));
     u.setActualizadoEn(OffsetDateTime.now());
     repo.save(u);
+    eventos.publishEvent(new UsuarioDetailsService.Cambio(u.getUsername()));
   }
 
   // ====== Cambiar mi contraseña (admin actual) ======
@@ -82,6 +87,7 @@ public class UsuarioService {
     yo.setPassHash(passwordEncoder.encode(nuevaPassword));
     yo.setActualizadoEn(OffsetDateTime.now());
     repo.save(yo);
+    eventos.publishEvent(new UsuarioDetailsService.Cambio(yo.getUsername()));
   }
 
   // ====== Activar / Desactivar ======
@@ -100,6 +106,7 @@ public class UsuarioService {
     u.setActivo(activo);
     u.setActualizadoEn(OffsetDateTime.now());
     repo.save(u);
+    eventos.publishEvent(new UsuarioDetailsService.Cambio(u.getUsername()));
   }
 
   // ====== Actualizar username y/o password (opcionales, funciona aunque esté inactivo) ======
@@ -111,6 +118,7 @@ public class UsuarioService {
       throw new IllegalArgumentException("Debes proporcionar nuevo usuario y/o nueva contraseña.");
 
     Usuario u = getById(idUsuario);
+    String anterior = u.getUsername(); // la caché del login va por el nombre viejo
 
     if (hayUsername) {
       String u2 = nuevoUsername.trim();
@@ -127,6 +135,7 @@ public class UsuarioService {
 
     u.setActualizadoEn(OffsetDateTime.now());
     repo.save(u);
+    eventos.publishEvent(new UsuarioDetailsService.Cambio(anterior));
   }
 
   // ====== Borrado duro (solo SECRETARIA) ======
@@ -135,5 +144,6 @@ public class UsuarioService {
     if (u.getRol() == RolUsuario.ADMIN)
       throw new IllegalArgumentException("No se puede borrar al ADMIN.");
     repo.delete(u);
+    eventos.publishEvent(new UsuarioDetailsService.Cambio(u.getUsername()));
   }
 }
@@ -0,0 +1,173 @@
+package com.softfruver.inventario.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.softfruver.inventario.repository.VentasRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación de ventas del cierre del día (las que se anotan en papel).
+ * Acepta CSV (una fila por ítem) o JSON (una entrada por venta) y carga todo
+ * con COPY en una sola transacción: o entran todas las ventas o ninguna.
+ */
+@Service
+public class VentasImportService {
+
+    public static final String CSV_CABECERA = "venta,fecha,cliente_id,credito,producto_id,cantidad_kg,precio_unit";
+
+    private final VentasRepository ventasRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventos;
+
+    public VentasImportService(VentasRepository ventasRepository, ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventos) {
+        this.ventasRepository = ventasRepository;
+        this.objectMapper = objectMapper;
+        this.eventos = eventos;
+    }
+
+    public record VentaImportada(LocalDate fecha, Long clienteId, boolean credito,
+                                 List<VentasService.ItemNuevaVenta> items) {}
+
+    public record Resultado(int ventas, int items, List<String> errores) {
+        public boolean ok() {
+            return errores.isEmpty();
+        }
+    }
+
+    // ====== Lectura ======
+    public List<VentaImportada> leer(String nombreArchivo, InputStream in, List<String> errores) throws IOException {
+        String nombre = nombreArchivo == null ? "" : nombreArchivo.toLowerCase(Locale.ROOT);
+        if (nombre.endsWith(".json")) {
+            return objectMapper.readValue(in, new TypeReference<List<VentaImportada>>() {});
+        }
+        return leerCsv(in, errores);
+    }
+
+    // CSV: la columna "venta" es una referencia libre que agrupa las filas de una misma venta
+    private List<VentaImportada> leerCsv(InputStream in, List<String> errores) throws IOException {
+        Map<String, VentaImportada> ventas = new LinkedHashMap<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String cabecera = br.readLine();
+            if (cabecera == null || !cabecera.replace("\uFEFF", "").trim().equalsIgnoreCase(CSV_CABECERA)) {
+                errores.add("La primera línea debe ser: " + CSV_CABECERA);
+                return List.of();
+            }
+            String linea;
+            int n = 1;
+            while ((linea = br.readLine()) != null) {
+                n++;
+                if (linea.isBlank()) continue;
+                String[] c = linea.split(",", -1);
+                if (c.length != 7) {
+                    errores.add("Línea " + n + ": se esperaban 7 columnas y hay " + c.length + ".");
+                    continue;
+                }
+                try {
+                    String ref = c[0].trim();
+                    LocalDate fecha = LocalDate.parse(c[1].trim());
+                    Long clienteId = Long.valueOf(c[2].trim());
+                    boolean credito = Boolean.parseBoolean(c[3].trim()) || "1".equals(c[3].trim());
+                    var item = new VentasService.ItemNuevaVenta(
+                            Long.valueOf(c[4].trim()), new BigDecimal(c[5].trim()), new BigDecimal(c[6].trim()));
+                    String invalido = itemInvalido(item);
+                    if (invalido != null) {
+                        errores.add("Línea " + n + ": " + invalido);
+                        continue;
+                    }
+
+                    VentaImportada v = ventas.get(ref);
+                    if (v == null) {
+                        v = new VentaImportada(fecha, clienteId, credito, new ArrayList<>());
+                        ventas.put(ref, v);
+                    } else if (!v.fecha().equals(fecha) || !v.clienteId().equals(clienteId) || v.credito() != credito) {
+                        errores.add("Línea " + n + ": la venta '" + ref + "' tiene fecha/cliente/crédito distintos a su primera fila.");
+                        continue;
+                    }
+                    v.items().add(item);
+                } catch (RuntimeException ex) {
+                    errores.add("Línea " + n + ": valor inválido (" + ex.getMessage() + ").");
+                }
+            }
+        }
+        return new ArrayList<>(ventas.values());
+    }
+
+    // ====== Carga ======
+    @Transactional
+    public Resultado importar(List<VentaImportada> ventas) {
+        List<String> errores = new ArrayList<>();
+        List<VentaImportada> validas = new ArrayList<>();
+        for (int i = 0; i < ventas.size(); i++) {
+            VentaImportada v = ventas.get(i);
+            if (v == null || v.fecha() == null || v.clienteId() == null) {
+                errores.add("Venta " + (i + 1) + ": fecha y cliente son obligatorios.");
+                continue;
+            }
+            if (v.items() == null || v.items().isEmpty()) {
+                errores.add("Venta " + (i + 1) + ": debe tener al menos un ítem.");
+                continue;
+            }
+            // A diferencia del formulario, aquí no se descartan ítems: un ítem inválido rechaza el archivo
+            boolean itemsOk = true;
+            for (int j = 0; j < v.items().size(); j++) {
+                String invalido = itemInvalido(v.items().get(j));
+                if (invalido != null) {
+                    errores.add("Venta " + (i + 1) + ", ítem " + (j + 1) + ": " + invalido);
+                    itemsOk = false;
+                }
+            }
+            if (itemsOk) validas.add(v);
+        }
+        if (!errores.isEmpty() || validas.isEmpty()) {
+            if (validas.isEmpty() && errores.isEmpty()) errores.add("El archivo no tiene ventas.");
+            return new Resultado(0, 0, errores);
+        }
+
+        List<Long> ids = ventasRepository.reservarIds(validas.size());
+        List<VentasRepository.VentaCopia> copias = new ArrayList<>(validas.size());
+        int items = 0;
+        Set<Long> productos = new HashSet<>();
+        for (int i = 0; i < validas.size(); i++) {
+            VentaImportada v = validas.get(i);
+            List<VentasRepository.NuevaVentaItem> det = new ArrayList<>(v.items().size());
+            for (VentasService.ItemNuevaVenta it : v.items()) {
+                det.add(new VentasRepository.NuevaVentaItem(it.productoId(), it.cantidadKg(), it.precioKg()));
+                productos.add(it.productoId());
+            }
+            items += det.size();
+            copias.add(new VentasRepository.VentaCopia(ids.get(i), v.clienteId(), v.fecha(), v.credito(), det));
+        }
+
+        // Triggers: subtotal, validar stock y mover inventario, total de la venta
+        ventasRepository.copiarVentas(copias);
+        eventos.publishEvent(new StockProyeccion.Cambio(productos));
+        eventos.publishEvent(new DashboardService.Movimiento("venta"));
+        return new Resultado(copias.size(), items, List.of());
+    }
+
+    // Mismas reglas que VentasService.limpiarItems, pero con el motivo en vez de descartar el ítem
+    static String itemInvalido(VentasService.ItemNuevaVenta it) {
+        if (it == null || it.productoId() == null) return "falta el producto.";
+        if (it.cantidadKg() == null || it.cantidadKg().signum() <= 0) return "la cantidad debe ser mayor que 0.";
+        if (it.precioKg() == null || it.precioKg().signum() < 0) return "el precio no puede ser negativo.";
+        return null;
+    }
+}
@@ -1,29 +1,33 @@
 package com.softfruver.inventario.service;
 
 import com.softfruver.inventario.repository.VentasRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class VentasService {
 
     private final VentasRepository ventasRepository;
+    private final ApplicationEventPublisher eventos;
 
-    public VentasService(VentasRepository ventasRepository) {
+    public VentasService(VentasRepository ventasRepository, ApplicationEventPublisher eventos) {
         this.ventasRepository = ventasRepository;
+        this.eventos = eventos;
     }
 
     public record ItemNuevaVenta(Long productoId, BigDecimal cantidadKg, BigDecimal precioKg) {
     }
 
-    @Transactional
-    public Long registrarVenta(Long clienteId, LocalDate fecha, boolean esCredito, List<ItemNuevaVenta> items) {
-        // Limpieza: descarta filas vacías o inválidas
+    // Descarta filas vacías o inválidas (sin producto, cantidad <= 0 o precio < 0)
+    public static List<ItemNuevaVenta> limpiarItems(List<ItemNuevaVenta> items) {
         List<ItemNuevaVenta> limpios = new ArrayList<>();
         if (items != null) {
             for (ItemNuevaVenta it : items) {
@@ -36,18 +40,25 @@ public class VentasService {
                 limpios.add(it);
             }
         }
+        return limpios;
+    }
+
+    @Transactional
+    public Long registrarVenta(Long clienteId, LocalDate fecha, boolean esCredito, List<ItemNuevaVenta> items) {
+        // Limpieza: descarta filas vacías o inválidas
+        List<ItemNuevaVenta> limpios = limpiarItems(items);
         if (limpios.isEmpty()) {
             throw new IllegalArgumentException("La venta debe tener al menos un ítem con cantidades/precio válidos.");
         }
 
-        // Inserta cabecera; triggers manejarán mayor si es crédito y total se recalcula
-        // con items
-        Long ventaId = ventasRepository.insertCabecera(clienteId, fecha, esCredito);
-
-        // Inserta ítems (triggers: subtotal en item, validar stock y mover inventario,
-        // y total)
-        ventasRepository.insertItems(ventaId, limpios);
+        // Inserta cabecera e ítems en una sola sentencia (triggers: subtotal en item,
+        // validar stock y mover inventario, total; mayor si es crédito)
+        Long ventaId = ventasRepository.insertVenta(clienteId, fecha, esCredito, limpios);
 
+        Set<Long> productos = new HashSet<>();
+        for (ItemNuevaVenta it : limpios) productos.add(it.productoId());
+        eventos.publishEvent(new StockProyeccion.Cambio(productos));
+        eventos.publishEvent(new DashboardService.Movimiento("venta"));
         return ventaId;
     }
 
@@ -55,34 +66,49 @@ public class VentasService {
     public void modificarVenta(Long ventaId, Long clienteId, LocalDate fecha, boolean esCredito,
             List<ItemNuevaVenta> items) {
         // limpiar items
-        List<ItemNuevaVenta> limpios = new ArrayList<>();
-        if (items != null) {
-            for (ItemNuevaVenta it : items) {
-                if (it == null || it.productoId() == null)
-                    continue;
-                if (it.cantidadKg() == null || it.cantidadKg().signum() <= 0)
-                    continue;
-                if (it.precioKg() == null || it.precioKg().signum() < 0)
-                    continue;
-                limpios.add(it);
-            }
-        }
+        List<ItemNuevaVenta> limpios = limpiarItems(items);
         if (limpios.isEmpty()) {
             throw new IllegalArgumentException("La venta debe tener al menos un ítem válido.");
         }
 
         // actualizar cabecera
         ventasRepository.updateCabecera(ventaId, clienteId, fecha, esCredito);
+        eventos.publishEvent(new DashboardService.Movimiento("venta")); // la fecha puede cambiar aunque el detalle no
 
-        // reemplazar detalle completo
-        ventasRepository.deleteItems(ventaId);
-        ventasRepository.insertItems(ventaId, limpios);
+        // aplicar solo las líneas que cambiaron (ver DetalleDiff)
+        List<DetalleDiff.Linea> guardadas = new ArrayList<>();
+        for (VentasRepository.NuevaVentaItem it : ventasRepository.lineasDetalle(ventaId)) {
+            guardadas.add(new DetalleDiff.Linea(it.productoId(), it.cantidadKg(), it.precioUnit()));
+        }
+        List<DetalleDiff.Linea> enviadas = new ArrayList<>(limpios.size());
+        for (ItemNuevaVenta it : limpios) {
+            enviadas.add(new DetalleDiff.Linea(it.productoId(), it.cantidadKg(), it.precioKg()));
+        }
+        DetalleDiff.Cambios cambios = DetalleDiff.calcular(guardadas, enviadas);
+        if (cambios.vacio()) return;
+
+        // primero borrar: así el stock de lo quitado vuelve antes de validar lo nuevo
+        ventasRepository.deleteItemsDeProductos(ventaId, cambios.productosABorrar());
+        List<VentasRepository.NuevaVentaItem> nuevas = new ArrayList<>(cambios.lineasAInsertar().size());
+        for (DetalleDiff.Linea l : cambios.lineasAInsertar()) {
+            nuevas.add(new VentasRepository.NuevaVentaItem(l.productoId(), l.cantidadKg(), l.precioUnit()));
+        }
+        if (!nuevas.isEmpty()) ventasRepository.insertItems(ventaId, nuevas);
+
+        Set<Long> productos = new HashSet<>(cambios.productosABorrar());
+        for (DetalleDiff.Linea l : cambios.lineasAInsertar()) productos.add(l.productoId());
+        eventos.publishEvent(new StockProyeccion.Cambio(productos));
     }
 
     @Transactional
     public void eliminarVenta(Long ventaId) {
+        Set<Long> productos = new HashSet<>();
+        for (VentasRepository.NuevaVentaItem it : ventasRepository.lineasDetalle(ventaId)) productos.add(it.productoId());
+
         ventasRepository.deleteItems(ventaId);
         ventasRepository.deleteCabecera(ventaId);
+        eventos.publishEvent(new StockProyeccion.Cambio(productos));
+        eventos.publishEvent(new DashboardService.Movimiento("venta"));
     }
 
 }
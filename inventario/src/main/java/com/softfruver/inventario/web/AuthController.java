@@ -1,5 +1,8 @@
 package com.softfruver.inventario.web;
 
+import com.softfruver.inventario.security.AvisoLogin;
+import com.softfruver.inventario.security.CaptchaToken;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
@@ -17,6 +20,11 @@ import static com.softfruver.inventario.security.CaptchaConstants.CAPTCHA_QUESTI
 public class AuthController {
 
     private final SecureRandom rnd = new SecureRandom();
+    private final CaptchaToken captchaToken;
+
+    public AuthController(CaptchaToken captchaToken) {
+        this.captchaToken = captchaToken;
+    }
 
     @GetMapping({ "/", "" })
     public String root() {
@@ -24,22 +32,27 @@ public class AuthController {
     }
 
     @GetMapping("/login")
-    public String login(Model model, HttpSession session, HttpServletResponse response) {
+    public String login(Model model, HttpServletRequest request, HttpServletResponse response) {
         // No cachear la página de login
         response.setHeader("Cache-Control", "no-store, no-cache, must-revalidate, max-age=0");
         response.setHeader("Pragma", "no-cache");
 
-        // Consumir flash de sesión (una sola vez)
-        Object flash = session.getAttribute("FLASH_LOGIN_MESSAGE");
-        if (flash != null) {
-            String key = flash.toString();
-            if ("error".equals(key) || "captcha".equals(key) || "expired".equals(key) || "logout".equals(key)) {
-                model.addAttribute(key, true);
-            }
-            session.removeAttribute("FLASH_LOGIN_MESSAGE");
+        // Consumir aviso pendiente (una sola vez)
+        String key = AvisoLogin.tomar(request, response, captchaToken.activo());
+        if ("error".equals(key) || "captcha".equals(key) || "expired".equals(key) || "logout".equals(key)) {
+            model.addAttribute(key, true);
+        }
+
+        // Captcha por token: sin sesión
+        if (captchaToken.activo()) {
+            CaptchaToken.Desafio d = captchaToken.nuevo();
+            model.addAttribute("captchaPregunta", d.pregunta());
+            model.addAttribute("captchaToken", d.token());
+            return "login";
         }
 
         // Generar captcha + nonce
+        HttpSession session = request.getSession();
         int a = 2 + rnd.nextInt(8); // 2..9
         int b = 2 + rnd.nextInt(8); // 2..9
         String pregunta = a + " + " + b + " = ?";
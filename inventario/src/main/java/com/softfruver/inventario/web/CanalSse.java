@@ -0,0 +1,66 @@
+package com.softfruver.inventario.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Conjunto de navegadores suscritos a un mismo flujo Server-Sent Events.
+ * Quien publica calcula el dato una vez y lo reparte a todos; los emisores que
+ * fallan al escribir (pestaña cerrada) se quitan solos. EventSource reconecta
+ * por su cuenta cuando vence el timeout.
+ */
+public class CanalSse {
+
+    private static final Logger log = LoggerFactory.getLogger(CanalSse.class);
+
+    private final String nombre;
+    private final long timeoutMs;
+    private final List<SseEmitter> emisores = new CopyOnWriteArrayList<>();
+
+    public CanalSse(String nombre, long timeoutMs) {
+        this.nombre = nombre;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public SseEmitter suscribir() {
+        SseEmitter e = new SseEmitter(timeoutMs);
+        emisores.add(e);
+        e.onCompletion(() -> emisores.remove(e));
+        e.onTimeout(() -> emisores.remove(e));
+        e.onError(ex -> emisores.remove(e));
+        return e;
+    }
+
+    /** Envía un evento con nombre y datos en JSON a todos los suscritos. */
+    public void enviar(String evento, Object datos) {
+        for (SseEmitter e : emisores) {
+            try {
+                e.send(SseEmitter.event().name(evento).data(datos, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException ex) {
+                emisores.remove(e);
+                log.debug("SSE {}: suscriptor descartado ({})", nombre, ex.toString());
+            }
+        }
+    }
+
+    /** Comentario vacío para que proxies no corten la conexión y detectar pestañas cerradas. */
+    public void ping() {
+        for (SseEmitter e : emisores) {
+            try {
+                e.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException ex) {
+                emisores.remove(e);
+            }
+        }
+    }
+
+    public int suscriptores() {
+        return emisores.size();
+    }
+}
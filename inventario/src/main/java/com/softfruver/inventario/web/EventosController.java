@@ -0,0 +1,24 @@
+package com.softfruver.inventario.web;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Controller
+public class EventosController {
+
+    private final EventosSse eventos;
+
+    public EventosController(EventosSse eventos) {
+        this.eventos = eventos;
+    }
+
+    // Una conexión por pestaña para todos los avisos en vivo (la abre /js/eventos.js)
+    @GetMapping(path = "/eventos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter stream() {
+        return eventos.suscribir();
+    }
+}
@@ -0,0 +1,82 @@
+package com.softfruver.inventario.web;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * El único flujo SSE de la app (/eventos/stream): cada pestaña abre una sola
+ * conexión y recibe todos los eventos con nombre ("alerta-stock", "resumen");
+ * cada pantalla escucha los que le interesan.
+ *
+ * Los envíos van a un hilo propio, en orden: quien publica (casi siempre un
+ * listener después del commit, en el hilo del request) no espera a que se
+ * escriba en cada navegador ni a calcular el dato.
+ */
+@Component
+public class EventosSse {
+
+    private static final Logger log = LoggerFactory.getLogger(EventosSse.class);
+
+    private final CanalSse canal;
+    private final ExecutorService envios = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sse-envios");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public EventosSse(@Value("${softfruver.sse.timeout-ms:1800000}") long timeoutMs) {
+        this.canal = new CanalSse("eventos", timeoutMs);
+    }
+
+    public SseEmitter suscribir() {
+        return canal.suscribir();
+    }
+
+    public int suscriptores() {
+        return canal.suscriptores();
+    }
+
+    /** Encola el evento para todos los suscritos. */
+    public void enviar(String evento, Object datos) {
+        encolar(evento, () -> canal.enviar(evento, datos));
+    }
+
+    /** Igual, pero el dato se calcula en el hilo de envíos (si falla, no se envía). */
+    public void enviarCalculado(String evento, Supplier<?> datos) {
+        encolar(evento, () -> canal.enviar(evento, datos.get()));
+    }
+
+    @Scheduled(fixedDelayString = "${softfruver.sse.ping-ms:25000}")
+    public void ping() {
+        encolar("ping", canal::ping);
+    }
+
+    private void encolar(String evento, Runnable envio) {
+        try {
+            envios.execute(() -> {
+                try {
+                    envio.run();
+                } catch (RuntimeException ex) {
+                    log.warn("SSE: no se pudo enviar {}", evento, ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.debug("SSE: {} descartado, apagando", evento);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        envios.shutdownNow();
+    }
+}
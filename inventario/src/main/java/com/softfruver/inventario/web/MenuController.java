@@ -2,21 +2,19 @@
 package com.softfruver.inventario.web;
 
 import com.softfruver.inventario.repository.DashboardRepository;
+import com.softfruver.inventario.service.DashboardService;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.math.BigDecimal;
-import java.time.*;
-
 @Controller
 public class MenuController {
 
-    private final DashboardRepository dashboard;
+    private final DashboardService dashboardService;
 
-    public MenuController(DashboardRepository dashboard) {
-        this.dashboard = dashboard;
+    public MenuController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
     }
 
     @GetMapping({"/", "/menu"})
@@ -24,27 +22,19 @@ public class MenuController {
 
         model.addAttribute("usuario", auth != null ? auth.getName() : "Invitado");
 
-        // Día local Cúcuta/Bogotá
-        ZoneId ZONA = ZoneId.of("America/Bogota");
-        LocalDate hoy = LocalDate.now(ZONA);
-        Instant ini = hoy.atStartOfDay(ZONA).toInstant();
-        Instant fin = hoy.plusDays(1).atStartOfDay(ZONA).toInstant();
-
-        long ventasCount   = dashboard.contarVentas(ini, fin);
-        long comprasCount  = dashboard.contarCompras(ini, fin);
-        long pagosCount    = dashboard.contarPagos(ini, fin);
-
-        BigDecimal ventasTotal  = dashboard.totalVentas(ini, fin);
-        BigDecimal comprasTotal = dashboard.totalCompras(ini, fin);
-        BigDecimal pagosTotal   = dashboard.totalPagos(ini, fin);
-
-        model.addAttribute("hoy", hoy);
-        model.addAttribute("ventasCount", ventasCount);
-        model.addAttribute("comprasCount", comprasCount);
-        model.addAttribute("pagosCount", pagosCount);
-        model.addAttribute("ventasTotal", ventasTotal);
-        model.addAttribute("comprasTotal", comprasTotal);
-        model.addAttribute("pagosTotal", pagosTotal);
+        // Modo según softfruver.dashboard.modo: "resumen" (tabla resumen_diario)
+        // o "paralelo" (consultas en vivo concurrentes con plazo)
+        DashboardService.ResumenMenu menu = dashboardService.resumenDeHoy();
+        DashboardRepository.Resumen r = menu.resumen();
+
+        model.addAttribute("hoy", menu.fecha());
+        model.addAttribute("ventasCount", r.ventasCount());
+        model.addAttribute("comprasCount", r.comprasCount());
+        model.addAttribute("pagosCount", r.pagosCount());
+        model.addAttribute("ventasTotal", r.ventasTotal());
+        model.addAttribute("comprasTotal", r.comprasTotal());
+        model.addAttribute("pagosTotal", r.pagosTotal());
+        model.addAttribute("resumenParcial", menu.parcial());
 
         return "menu"; // templates/menu.html
     }
@@ -0,0 +1,22 @@
+package com.softfruver.inventario.web;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Respuesta JSON con ETag (la versión del índice o catálogo de donde sale).
+ * El navegador revalida siempre (no-cache); el controlador llama antes a
+ * {@code WebRequest.checkNotModified(etag)} y, si coincide, contesta 304 sin
+ * calcular nada.
+ */
+public final class RespuestaOpciones {
+
+    private RespuestaOpciones() {}
+
+    public static <T> ResponseEntity<T> conEtag(String etag, T cuerpo) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(cuerpo);
+    }
+}
@@ -0,0 +1,151 @@
+-- V10__resumen_diario.sql
+
+-- Resumen por día de ventas, compras y pagos para el menú.
+-- Se mantiene con triggers sobre las tablas de cabecera (venta, compra,
+-- pago_cliente, pago_proveedor), igual que los totales e inventario.
+-- El día es el de Bogotá (f_dia_negocio), el mismo que usa el dashboard en
+-- vivo, sin depender del TimeZone de la sesión que escribe.
+CREATE TABLE IF NOT EXISTS softfruver.resumen_diario (
+  fecha          date          PRIMARY KEY,
+  ventas_count   bigint        NOT NULL DEFAULT 0,
+  ventas_total   numeric(14,2) NOT NULL DEFAULT 0,
+  compras_count  bigint        NOT NULL DEFAULT 0,
+  compras_total  numeric(14,2) NOT NULL DEFAULT 0,
+  pagos_count    bigint        NOT NULL DEFAULT 0,
+  pagos_total    numeric(14,2) NOT NULL DEFAULT 0
+);
+
+-- Día de negocio (America/Bogota) de una fecha guardada. Con timestamptz se
+-- convierte a la hora de Bogotá; con timestamp (sin zona) ya es hora local y
+-- se toma tal cual. Ninguna de las dos depende del TimeZone de la sesión.
+CREATE OR REPLACE FUNCTION softfruver.f_dia_negocio(p timestamptz)
+RETURNS date
+LANGUAGE sql IMMUTABLE
+AS $$ SELECT (p AT TIME ZONE 'America/Bogota')::date $$;
+
+CREATE OR REPLACE FUNCTION softfruver.f_dia_negocio(p timestamp)
+RETURNS date
+LANGUAGE sql IMMUTABLE
+AS $$ SELECT p::date $$;
+
+-- Suma deltas al día indicado (crea la fila si no existe; ignora fechas nulas)
+CREATE OR REPLACE FUNCTION softfruver.f_resumen_diario_aplicar(
+  p_fecha date,
+  p_ventas_count bigint,  p_ventas_total numeric,
+  p_compras_count bigint, p_compras_total numeric,
+  p_pagos_count bigint,   p_pagos_total numeric)
+RETURNS void
+LANGUAGE sql
+AS $$
+  INSERT INTO softfruver.resumen_diario AS r
+         (fecha, ventas_count, ventas_total, compras_count, compras_total, pagos_count, pagos_total)
+  SELECT p_fecha, p_ventas_count, p_ventas_total, p_compras_count, p_compras_total, p_pagos_count, p_pagos_total
+   WHERE p_fecha IS NOT NULL
+  ON CONFLICT (fecha) DO UPDATE
+     SET ventas_count  = r.ventas_count  + EXCLUDED.ventas_count,
+         ventas_total  = r.ventas_total  + EXCLUDED.ventas_total,
+         compras_count = r.compras_count + EXCLUDED.compras_count,
+         compras_total = r.compras_total + EXCLUDED.compras_total,
+         pagos_count   = r.pagos_count   + EXCLUDED.pagos_count,
+         pagos_total   = r.pagos_total   + EXCLUDED.pagos_total;
+$$;
+
+-- ========================= VENTA =========================
+CREATE OR REPLACE FUNCTION softfruver.trg_resumen_diario_venta()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM softfruver.f_resumen_diario_aplicar(softfruver.f_dia_negocio(OLD.fecha_venta),
+            -1, -COALESCE(OLD.total, 0), 0, 0, 0, 0);
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_resumen_diario_aplicar(softfruver.f_dia_negocio(NEW.fecha_venta),
+            1, COALESCE(NEW.total, 0), 0, 0, 0, 0);
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_resumen_diario_venta ON softfruver.venta;
+CREATE TRIGGER tg_resumen_diario_venta
+  AFTER INSERT OR DELETE OR UPDATE OF fecha_venta, total ON softfruver.venta
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_resumen_diario_venta();
+
+-- ========================= COMPRA =========================
+CREATE OR REPLACE FUNCTION softfruver.trg_resumen_diario_compra()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM softfruver.f_resumen_diario_aplicar(softfruver.f_dia_negocio(OLD.fecha_compra),
+            0, 0, -1, -COALESCE(OLD.total, 0), 0, 0);
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_resumen_diario_aplicar(softfruver.f_dia_negocio(NEW.fecha_compra),
+            0, 0, 1, COALESCE(NEW.total, 0), 0, 0);
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_resumen_diario_compra ON softfruver.compra;
+CREATE TRIGGER tg_resumen_diario_compra
+  AFTER INSERT OR DELETE OR UPDATE OF fecha_compra, total ON softfruver.compra
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_resumen_diario_compra();
+
+-- ========================= PAGOS (cliente + proveedor) =========================
+CREATE OR REPLACE FUNCTION softfruver.trg_resumen_diario_pago()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM softfruver.f_resumen_diario_aplicar(softfruver.f_dia_negocio(OLD.fecha_pago),
+            0, 0, 0, 0, -1, -COALESCE(OLD.monto, 0));
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_resumen_diario_aplicar(softfruver.f_dia_negocio(NEW.fecha_pago),
+            0, 0, 0, 0, 1, COALESCE(NEW.monto, 0));
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_resumen_diario_pago_cliente ON softfruver.pago_cliente;
+CREATE TRIGGER tg_resumen_diario_pago_cliente
+  AFTER INSERT OR DELETE OR UPDATE OF fecha_pago, monto ON softfruver.pago_cliente
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_resumen_diario_pago();
+
+DROP TRIGGER IF EXISTS tg_resumen_diario_pago_proveedor ON softfruver.pago_proveedor;
+CREATE TRIGGER tg_resumen_diario_pago_proveedor
+  AFTER INSERT OR DELETE OR UPDATE OF fecha_pago, monto ON softfruver.pago_proveedor
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_resumen_diario_pago();
+
+-- ========================= Carga inicial =========================
+TRUNCATE softfruver.resumen_diario;
+
+INSERT INTO softfruver.resumen_diario
+       (fecha, ventas_count, ventas_total, compras_count, compras_total, pagos_count, pagos_total)
+SELECT fecha,
+       SUM(ventas_count), SUM(ventas_total),
+       SUM(compras_count), SUM(compras_total),
+       SUM(pagos_count), SUM(pagos_total)
+FROM (
+  SELECT softfruver.f_dia_negocio(fecha_venta) AS fecha, COUNT(*) AS ventas_count, COALESCE(SUM(total),0) AS ventas_total,
+         0 AS compras_count, 0 AS compras_total, 0 AS pagos_count, 0 AS pagos_total
+    FROM softfruver.venta GROUP BY 1
+  UNION ALL
+  SELECT softfruver.f_dia_negocio(fecha_compra), 0, 0, COUNT(*), COALESCE(SUM(total),0), 0, 0
+    FROM softfruver.compra GROUP BY 1
+  UNION ALL
+  SELECT softfruver.f_dia_negocio(fecha_pago), 0, 0, 0, 0, COUNT(*), COALESCE(SUM(monto),0)
+    FROM softfruver.pago_cliente GROUP BY 1
+  UNION ALL
+  SELECT softfruver.f_dia_negocio(fecha_pago), 0, 0, 0, 0, COUNT(*), COALESCE(SUM(monto),0)
+    FROM softfruver.pago_proveedor GROUP BY 1
+) t
+WHERE fecha IS NOT NULL
+GROUP BY fecha;
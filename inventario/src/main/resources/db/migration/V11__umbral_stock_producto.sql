@@ -0,0 +1,24 @@
+-- V11__umbral_stock_producto.sql
+
+-- Umbral de stock bajo por producto. Sin fila => 20 kg, el umbral fijo que
+-- usaban v_stock_alerta y la pantalla de inventario.
+CREATE TABLE IF NOT EXISTS softfruver.producto_umbral (
+  producto_id     bigint        PRIMARY KEY REFERENCES softfruver.producto(id) ON DELETE CASCADE,
+  umbral_kg       numeric(12,3) NOT NULL CHECK (umbral_kg >= 0),
+  actualizado_en  timestamptz   NOT NULL DEFAULT now()
+);
+
+-- Inventario con el umbral efectivo de cada producto
+CREATE OR REPLACE VIEW softfruver.v_inventario_umbral AS
+SELECT i.producto_id,
+       i.nombre,
+       i.stock_kg,
+       COALESCE(u.umbral_kg, 20) AS umbral_kg
+FROM softfruver.v_inventario_listado i
+LEFT JOIN softfruver.producto_umbral u ON u.producto_id = i.producto_id;
+
+-- Las alertas pasan a usar el umbral de cada producto (mismas columnas que en V8)
+CREATE OR REPLACE VIEW softfruver.v_inventario_alerta AS
+SELECT producto_id, nombre, stock_kg
+FROM softfruver.v_inventario_umbral
+WHERE stock_kg <= umbral_kg;
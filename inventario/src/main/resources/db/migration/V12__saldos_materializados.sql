@@ -0,0 +1,197 @@
+-- V12__saldos_materializados.sql
+
+-- Saldo de cada cliente y deuda de cada proveedor guardados en tablas, para
+-- que los listados ordenados por deuda no recalculen v_saldo_cliente /
+-- v_saldo_proveedor (todas las ventas a crédito, compras y pagos) en cada página.
+--
+-- Se mantienen con triggers en la misma transacción que el movimiento, igual
+-- que resumen_diario (V10):
+--   saldo_cliente.saldo_total   = ventas a crédito - pagos del cliente
+--   saldo_proveedor.deuda_total = compras          - pagos al proveedor
+-- Cada cliente/proveedor tiene su fila (0 si no debe nada), así el listado
+-- puede recorrer el índice por saldo y cortar con LIMIT.
+CREATE TABLE IF NOT EXISTS softfruver.saldo_cliente (
+  cliente_id   bigint        PRIMARY KEY,
+  saldo_total  numeric(14,2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS softfruver.saldo_proveedor (
+  proveedor_id bigint        PRIMARY KEY,
+  deuda_total  numeric(14,2) NOT NULL DEFAULT 0
+);
+
+-- Sin índice por saldo: el de los listados (archivado, -saldo, nombre, id) va en V13
+
+-- Suman deltas (crean la fila si no existe; ignoran ids nulos o deltas en 0)
+CREATE OR REPLACE FUNCTION softfruver.f_saldo_cliente_aplicar(p_cliente_id bigint, p_delta numeric)
+RETURNS void
+LANGUAGE sql
+AS $$
+  INSERT INTO softfruver.saldo_cliente AS s (cliente_id, saldo_total)
+  SELECT p_cliente_id, p_delta
+   WHERE p_cliente_id IS NOT NULL AND p_delta <> 0
+  ON CONFLICT (cliente_id) DO UPDATE
+     SET saldo_total = s.saldo_total + EXCLUDED.saldo_total;
+$$;
+
+CREATE OR REPLACE FUNCTION softfruver.f_saldo_proveedor_aplicar(p_proveedor_id bigint, p_delta numeric)
+RETURNS void
+LANGUAGE sql
+AS $$
+  INSERT INTO softfruver.saldo_proveedor AS s (proveedor_id, deuda_total)
+  SELECT p_proveedor_id, p_delta
+   WHERE p_proveedor_id IS NOT NULL AND p_delta <> 0
+  ON CONFLICT (proveedor_id) DO UPDATE
+     SET deuda_total = s.deuda_total + EXCLUDED.deuda_total;
+$$;
+
+-- ========================= VENTA (solo a crédito) =========================
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_venta()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.es_credito THEN
+    PERFORM softfruver.f_saldo_cliente_aplicar(OLD.cliente_id, -COALESCE(OLD.total, 0));
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.es_credito THEN
+    PERFORM softfruver.f_saldo_cliente_aplicar(NEW.cliente_id, COALESCE(NEW.total, 0));
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_venta ON softfruver.venta;
+CREATE TRIGGER tg_saldo_venta
+  AFTER INSERT OR DELETE OR UPDATE OF cliente_id, es_credito, total ON softfruver.venta
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_venta();
+
+-- ========================= COMPRA =========================
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_compra()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM softfruver.f_saldo_proveedor_aplicar(OLD.proveedor_id, -COALESCE(OLD.total, 0));
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_saldo_proveedor_aplicar(NEW.proveedor_id, COALESCE(NEW.total, 0));
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_compra ON softfruver.compra;
+CREATE TRIGGER tg_saldo_compra
+  AFTER INSERT OR DELETE OR UPDATE OF proveedor_id, total ON softfruver.compra
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_compra();
+
+-- ========================= PAGOS =========================
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_pago_cliente()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM softfruver.f_saldo_cliente_aplicar(OLD.cliente_id, COALESCE(OLD.monto, 0));
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_saldo_cliente_aplicar(NEW.cliente_id, -COALESCE(NEW.monto, 0));
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_pago_cliente ON softfruver.pago_cliente;
+CREATE TRIGGER tg_saldo_pago_cliente
+  AFTER INSERT OR DELETE OR UPDATE OF cliente_id, monto ON softfruver.pago_cliente
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_pago_cliente();
+
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_pago_proveedor()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM softfruver.f_saldo_proveedor_aplicar(OLD.proveedor_id, COALESCE(OLD.monto, 0));
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_saldo_proveedor_aplicar(NEW.proveedor_id, -COALESCE(NEW.monto, 0));
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_pago_proveedor ON softfruver.pago_proveedor;
+CREATE TRIGGER tg_saldo_pago_proveedor
+  AFTER INSERT OR DELETE OR UPDATE OF proveedor_id, monto ON softfruver.pago_proveedor
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_pago_proveedor();
+
+-- ========================= Alta / baja de cliente y proveedor =========================
+-- Fila en 0 al crear, para que aparezca en el listado recorriendo el índice
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_cliente_alta()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO softfruver.saldo_cliente (cliente_id) VALUES (NEW.id) ON CONFLICT DO NOTHING;
+  ELSE
+    DELETE FROM softfruver.saldo_cliente WHERE cliente_id = OLD.id;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_cliente_alta ON softfruver.cliente;
+CREATE TRIGGER tg_saldo_cliente_alta
+  AFTER INSERT OR DELETE ON softfruver.cliente
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_cliente_alta();
+
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_proveedor_alta()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO softfruver.saldo_proveedor (proveedor_id) VALUES (NEW.id) ON CONFLICT DO NOTHING;
+  ELSE
+    DELETE FROM softfruver.saldo_proveedor WHERE proveedor_id = OLD.id;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_proveedor_alta ON softfruver.proveedor;
+CREATE TRIGGER tg_saldo_proveedor_alta
+  AFTER INSERT OR DELETE ON softfruver.proveedor
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_proveedor_alta();
+
+-- ========================= Carga inicial (desde las vistas de siempre) =========================
+TRUNCATE softfruver.saldo_cliente;
+INSERT INTO softfruver.saldo_cliente (cliente_id, saldo_total)
+SELECT c.id, COALESCE(vs.saldo_total, 0)
+FROM softfruver.cliente c
+LEFT JOIN softfruver.v_saldo_cliente vs ON vs.cliente_id = c.id;
+
+TRUNCATE softfruver.saldo_proveedor;
+INSERT INTO softfruver.saldo_proveedor (proveedor_id, deuda_total)
+SELECT p.id, COALESCE(vs.deuda_total, 0)
+FROM softfruver.proveedor p
+LEFT JOIN softfruver.v_saldo_proveedor vs ON vs.proveedor_id = p.id;
+
+-- La vista de V2 pasa a leer la tabla (mismas columnas)
+CREATE OR REPLACE VIEW softfruver.vw_cliente_saldo AS
+SELECT
+  c.id         AS cliente_id,
+  c.nombre     AS nombre,
+  c.telefono   AS telefono,
+  GREATEST(COALESCE(s.saldo_total, 0), 0)::numeric(14,2) AS saldo,
+  CASE
+    WHEN COALESCE(s.saldo_total, 0) > 0 THEN 'CON CRÉDITO'
+    ELSE 'AL DÍA'
+  END AS estado
+FROM softfruver.cliente c
+LEFT JOIN softfruver.saldo_cliente s ON s.cliente_id = c.id
+WHERE c.archived_at IS NULL;
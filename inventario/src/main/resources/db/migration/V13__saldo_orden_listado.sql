@@ -0,0 +1,94 @@
+-- V13__saldo_orden_listado.sql
+
+-- Paginación por cursor de clientes y proveedores. El orden de los listados
+-- (saldo DESC, nombre, id) cruza dos tablas, así que saldo_cliente y
+-- saldo_proveedor llevan también el nombre y si está archivado: con eso un
+-- solo índice cubre filtro + orden y la página N se lee igual que la primera.
+--
+-- El índice usa -saldo para que el orden quede todo ascendente y el recorte
+-- "(-saldo, nombre, id) > cursor" sea una condición de índice.
+ALTER TABLE softfruver.saldo_cliente
+  ADD COLUMN IF NOT EXISTS nombre    text,
+  ADD COLUMN IF NOT EXISTS archivado boolean NOT NULL DEFAULT false;
+
+ALTER TABLE softfruver.saldo_proveedor
+  ADD COLUMN IF NOT EXISTS nombre    text,
+  ADD COLUMN IF NOT EXISTS archivado boolean NOT NULL DEFAULT false;
+
+UPDATE softfruver.saldo_cliente s
+   SET nombre = c.nombre, archivado = c.archived_at IS NOT NULL
+  FROM softfruver.cliente c
+ WHERE c.id = s.cliente_id;
+
+UPDATE softfruver.saldo_proveedor s
+   SET nombre = p.nombre, archivado = p.archived_at IS NOT NULL
+  FROM softfruver.proveedor p
+ WHERE p.id = s.proveedor_id;
+
+CREATE INDEX IF NOT EXISTS ix_saldo_cliente_listado
+  ON softfruver.saldo_cliente (archivado, (-saldo_total), nombre, cliente_id);
+
+CREATE INDEX IF NOT EXISTS ix_saldo_proveedor_listado
+  ON softfruver.saldo_proveedor (archivado, (-deuda_total), nombre, proveedor_id);
+
+-- ========================= Alta / cambios / baja =========================
+-- Reemplazan los de V12: además de crear la fila copian nombre y archivado
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_cliente_alta()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    DELETE FROM softfruver.saldo_cliente WHERE cliente_id = OLD.id;
+  ELSE
+    INSERT INTO softfruver.saldo_cliente AS s (cliente_id, nombre, archivado)
+    VALUES (NEW.id, NEW.nombre, NEW.archived_at IS NOT NULL)
+    ON CONFLICT (cliente_id) DO UPDATE
+       SET nombre = EXCLUDED.nombre, archivado = EXCLUDED.archivado;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_cliente_alta ON softfruver.cliente;
+CREATE TRIGGER tg_saldo_cliente_alta
+  AFTER INSERT OR DELETE OR UPDATE OF nombre, archived_at ON softfruver.cliente
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_cliente_alta();
+
+CREATE OR REPLACE FUNCTION softfruver.trg_saldo_proveedor_alta()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    DELETE FROM softfruver.saldo_proveedor WHERE proveedor_id = OLD.id;
+  ELSE
+    INSERT INTO softfruver.saldo_proveedor AS s (proveedor_id, nombre, archivado)
+    VALUES (NEW.id, NEW.nombre, NEW.archived_at IS NOT NULL)
+    ON CONFLICT (proveedor_id) DO UPDATE
+       SET nombre = EXCLUDED.nombre, archivado = EXCLUDED.archivado;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_saldo_proveedor_alta ON softfruver.proveedor;
+CREATE TRIGGER tg_saldo_proveedor_alta
+  AFTER INSERT OR DELETE OR UPDATE OF nombre, archived_at ON softfruver.proveedor
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_saldo_proveedor_alta();
+
+-- ========================= Total estimado =========================
+-- Filas que el planificador estima para una consulta, sin ejecutarla (en vez de
+-- COUNT(*)). La consulta la arma la aplicación; los valores del usuario van
+-- siempre como literales con format('%L').
+CREATE OR REPLACE FUNCTION softfruver.f_filas_estimadas(p_consulta text)
+RETURNS bigint
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  plan json;
+BEGIN
+  EXECUTE 'EXPLAIN (FORMAT JSON) ' || p_consulta INTO plan;
+  RETURN (plan -> 0 -> 'Plan' ->> 'Plan Rows')::numeric::bigint;
+END;
+$$;
@@ -0,0 +1,94 @@
+-- V14__libro_pagos.sql
+
+-- Libro único de pagos (cobros a clientes y pagos a proveedores). Lo usan el
+-- listado, el detalle y el borrado de /pagos en vez de un UNION ALL de
+-- pago_cliente y pago_proveedor ordenado completo en cada consulta.
+--
+-- Las tablas de siempre siguen siendo la fuente de verdad (los triggers de
+-- resumen_diario y saldos cuelgan de ellas); el libro se mantiene con triggers
+-- en la misma transacción.
+--
+-- La clave es (pago_id, tipo): los ids vienen de dos tablas y se repiten, así
+-- que el detalle y el borrado buscan siempre por los dos (/pagos/{tipo}/{id}).
+CREATE TABLE IF NOT EXISTS softfruver.pago_libro (
+  pago_id     bigint      NOT NULL,
+  tipo        text        NOT NULL CHECK (tipo IN ('CLIENTE', 'PROVEEDOR')),
+  ref_id      bigint      NOT NULL,
+  fecha_pago  timestamp,
+  monto       numeric     NOT NULL DEFAULT 0,
+  metodo      softfruver.metodo_pago,
+  PRIMARY KEY (pago_id, tipo)
+);
+
+-- Listado por cursor: (fecha_pago, pago_id, tipo) < cursor order by ... desc limit n
+CREATE INDEX IF NOT EXISTS ix_pago_libro_fecha
+  ON softfruver.pago_libro (fecha_pago DESC, pago_id DESC, tipo DESC);
+
+-- ========================= Mantenimiento =========================
+-- fecha_pago es timestamp sin zona en las tablas: la función la recibe igual,
+-- sin pasar por la zona de la sesión
+CREATE OR REPLACE FUNCTION softfruver.f_pago_libro_guardar(
+  p_tipo text, p_pago_id bigint, p_ref_id bigint, p_fecha timestamp, p_monto numeric,
+  p_metodo softfruver.metodo_pago)
+RETURNS void
+LANGUAGE sql
+AS $$
+  INSERT INTO softfruver.pago_libro (pago_id, tipo, ref_id, fecha_pago, monto, metodo)
+  VALUES (p_pago_id, p_tipo, p_ref_id, p_fecha, COALESCE(p_monto, 0), p_metodo)
+  ON CONFLICT (pago_id, tipo) DO UPDATE
+     SET ref_id     = EXCLUDED.ref_id,
+         fecha_pago = EXCLUDED.fecha_pago,
+         monto      = EXCLUDED.monto,
+         metodo     = EXCLUDED.metodo;
+$$;
+
+CREATE OR REPLACE FUNCTION softfruver.trg_pago_libro_cliente()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND NEW.id <> OLD.id) THEN
+    DELETE FROM softfruver.pago_libro WHERE pago_id = OLD.id AND tipo = 'CLIENTE';
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_pago_libro_guardar('CLIENTE', NEW.id, NEW.cliente_id, NEW.fecha_pago, NEW.monto, NEW.metodo);
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_pago_libro_cliente ON softfruver.pago_cliente;
+CREATE TRIGGER tg_pago_libro_cliente
+  AFTER INSERT OR UPDATE OR DELETE ON softfruver.pago_cliente
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_pago_libro_cliente();
+
+CREATE OR REPLACE FUNCTION softfruver.trg_pago_libro_proveedor()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND NEW.id <> OLD.id) THEN
+    DELETE FROM softfruver.pago_libro WHERE pago_id = OLD.id AND tipo = 'PROVEEDOR';
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM softfruver.f_pago_libro_guardar('PROVEEDOR', NEW.id, NEW.proveedor_id, NEW.fecha_pago, NEW.monto, NEW.metodo);
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS tg_pago_libro_proveedor ON softfruver.pago_proveedor;
+CREATE TRIGGER tg_pago_libro_proveedor
+  AFTER INSERT OR UPDATE OR DELETE ON softfruver.pago_proveedor
+  FOR EACH ROW EXECUTE FUNCTION softfruver.trg_pago_libro_proveedor();
+
+-- ========================= Carga inicial =========================
+TRUNCATE softfruver.pago_libro;
+
+INSERT INTO softfruver.pago_libro (pago_id, tipo, ref_id, fecha_pago, monto, metodo)
+SELECT id, 'CLIENTE', cliente_id, fecha_pago, COALESCE(monto, 0), metodo
+FROM softfruver.pago_cliente;
+
+INSERT INTO softfruver.pago_libro (pago_id, tipo, ref_id, fecha_pago, monto, metodo)
+SELECT id, 'PROVEEDOR', proveedor_id, fecha_pago, COALESCE(monto, 0), metodo
+FROM softfruver.pago_proveedor;
@@ -0,0 +1,12 @@
+-- V15__captcha_usado.sql
+
+-- Captcha por token (softfruver.captcha.modo=token): ids de los tokens ya
+-- usados, para que cada uno sirva una sola vez aunque el POST llegue a otro
+-- nodo. Se borran al vencer (CaptchaToken.limpiarUsados).
+CREATE TABLE IF NOT EXISTS softfruver.captcha_usado (
+  id     uuid        PRIMARY KEY,
+  vence  timestamptz NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_captcha_usado_vence
+  ON softfruver.captcha_usado (vence);
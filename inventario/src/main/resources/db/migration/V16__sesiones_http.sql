@@ -0,0 +1,31 @@
+-- V16__sesiones_http.sql
+
+-- Sesiones HTTP compartidas entre instancias (softfruver.sesion.almacen=jdbc,
+-- Spring Session JDBC). Mismo esquema que el schema-postgresql.sql de Spring
+-- Session, en softfruver y creado por Flyway (Spring Session no crea tablas).
+-- Con almacen=memoria las tablas quedan vacías y las sesiones siguen en Tomcat.
+CREATE TABLE IF NOT EXISTS softfruver.spring_session (
+  primary_id             char(36)     NOT NULL,
+  session_id             char(36)     NOT NULL,
+  creation_time          bigint       NOT NULL,
+  last_access_time       bigint       NOT NULL,
+  max_inactive_interval  int          NOT NULL,
+  expiry_time            bigint       NOT NULL,
+  principal_name         varchar(100),
+  CONSTRAINT spring_session_pk PRIMARY KEY (primary_id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS spring_session_ix1 ON softfruver.spring_session (session_id);
+-- Limpieza de vencidas por tandas (SesionJdbcConfig)
+CREATE INDEX IF NOT EXISTS spring_session_ix2 ON softfruver.spring_session (expiry_time);
+CREATE INDEX IF NOT EXISTS spring_session_ix3 ON softfruver.spring_session (principal_name);
+
+-- Los atributos se borran con su sesión
+CREATE TABLE IF NOT EXISTS softfruver.spring_session_attributes (
+  session_primary_id  char(36)      NOT NULL,
+  attribute_name      varchar(200)  NOT NULL,
+  attribute_bytes     bytea         NOT NULL,
+  CONSTRAINT spring_session_attributes_pk PRIMARY KEY (session_primary_id, attribute_name),
+  CONSTRAINT spring_session_attributes_fk FOREIGN KEY (session_primary_id)
+    REFERENCES softfruver.spring_session (primary_id) ON DELETE CASCADE
+);
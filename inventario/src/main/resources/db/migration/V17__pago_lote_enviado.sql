@@ -0,0 +1,13 @@
+-- V17__pago_lote_enviado.sql
+
+-- Planillas de cobros de ruta ya guardadas (token del formulario de /pagos/lote).
+-- El token se inserta en la misma transacción que los pagos: si el POST se
+-- reenvía (F5, doble clic, otro nodo) el segundo choca con la clave y no guarda
+-- nada. Se borran a los dos días (PagosService.limpiarLotesEnviados).
+CREATE TABLE IF NOT EXISTS softfruver.pago_lote_enviado (
+  token       uuid        PRIMARY KEY,
+  enviado_en  timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS ix_pago_lote_enviado_fecha
+  ON softfruver.pago_lote_enviado (enviado_en);
@@ -0,0 +1,7 @@
+-- V9__indice_venta_fecha_id.sql
+
+-- Soporta la paginación por cursor (fecha, id) del listado de ventas:
+-- el recorte "(fecha_venta, id) < cursor order by fecha_venta desc, id desc limit n"
+-- se resuelve con un recorrido del índice en vez de ordenar toda la tabla.
+CREATE INDEX IF NOT EXISTS ix_venta_fecha_id
+  ON softfruver.venta (fecha_venta DESC, id DESC);
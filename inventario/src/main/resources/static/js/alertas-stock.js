@@ -0,0 +1,29 @@
+// Avisos de stock bajo en vivo: escucha el evento "alerta-stock" de /eventos/stream (eventos.js)
+// y muestra una tarjeta por producto que acaba de quedar en o bajo su umbral.
+(function () {
+  const es = window.sfEventos;
+  if (!es) return;
+  const cont = document.getElementById('sf-avisos-stock');
+  if (!cont) return;
+
+  const kg = (n) => Number(n).toLocaleString('es-CO', { minimumFractionDigits: 0, maximumFractionDigits: 3 });
+
+  function mostrar(a) {
+    const el = document.createElement('a');
+    el.href = '/inventario?q=' + encodeURIComponent(a.nombre);
+    el.className = 'sf-alert sf-alert-warn shadow';
+    el.style.display = 'block';
+    el.style.minWidth = '260px';
+    el.textContent = 'Stock bajo: ' + a.nombre + ' — ' + kg(a.stockKg) + ' kg (umbral ' + kg(a.umbralKg) + ' kg)';
+    cont.appendChild(el);
+    setTimeout(() => el.remove(), 15000);
+  }
+
+  es.addEventListener('alerta-stock', (ev) => {
+    try {
+      mostrar(JSON.parse(ev.data));
+    } catch (e) {
+      // dato inesperado: se ignora
+    }
+  });
+})();
@@ -1,16 +1,5 @@
 (function () {
-  function cloneSelectProducto() {
-    const proto = document.getElementById('protoSelectProducto');
-    const sel = proto.cloneNode(true);
-    sel.removeAttribute('id');
-    sel.className = 'sf-input';
-    sel.name = 'productoId';
-    sel.required = true;
-    return sel;
-  }
-
   function wireFila(tr) {
-    const selProd = tr.querySelector('select[name="productoId"]');
     const inCant  = tr.querySelector('input[name="cantidadKg"]');
     const inPrec  = tr.querySelector('input[name="precioUnit"]');
     const tdSub   = tr.querySelector('.subtotal');
@@ -33,7 +22,7 @@
         if (filas.length > 1) {
           tr.remove();
         } else {
-          if (selProd) selProd.value = '';
+          window.SfBuscar.limpiar(tr);
           if (inCant)  inCant.value = '';
           if (inPrec)  inPrec.value = '';
           if (tdSub)   tdSub.textContent = '0.00';
@@ -50,10 +39,6 @@
     const tr = trProto.cloneNode(true);
     tr.removeAttribute('id');
 
-    const td0 = tr.children[0];
-    td0.innerHTML = '';
-    td0.appendChild(cloneSelectProducto());
-
     const inCant = tr.querySelector('input[name="cantidadKg"]');
     const inPrec = tr.querySelector('input[name="precioUnit"]');
     const tdSub  = tr.querySelector('.subtotal');
@@ -64,6 +49,8 @@
     wireFila(tr);
 
     document.getElementById('tbodyItems').appendChild(tr);
+    // Autocompletar de producto (js/typeahead.js)
+    window.SfBuscar.conectar(tr);
   }
 
   document.addEventListener('DOMContentLoaded', function () {
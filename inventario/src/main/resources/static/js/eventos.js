@@ -0,0 +1,6 @@
+// Una sola conexión SSE por pestaña (/eventos/stream) para todos los avisos en
+// vivo; cada script escucha sus eventos con nombre en window.sfEventos.
+(function () {
+  if (!window.EventSource || window.sfEventos) return;
+  window.sfEventos = new EventSource('/eventos/stream');
+})();
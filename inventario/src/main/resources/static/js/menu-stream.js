@@ -0,0 +1,31 @@
+// Resumen del día en vivo: /eventos/stream (eventos.js) trae un evento "resumen" cada vez
+// que se confirma una venta, compra o pago; aquí solo se actualizan los números.
+(function () {
+  const es = window.sfEventos;
+  if (!es) return;
+  const $ = (id) => document.getElementById(id);
+
+  const dinero = (n) => Number(n || 0).toLocaleString('es-CO', { minimumFractionDigits: 2, maximumFractionDigits: 2 });
+
+  function pintar(tipo, count, total) {
+    const c = $(tipo + '-count');
+    const t = $(tipo + '-total');
+    if (c) c.textContent = count;
+    if (t) t.textContent = 'Total: $' + dinero(total);
+  }
+
+  es.addEventListener('resumen', (ev) => {
+    let m;
+    try {
+      m = JSON.parse(ev.data);
+    } catch (e) {
+      return;
+    }
+    const r = m.resumen || {};
+    pintar('ventas', r.ventasCount, r.ventasTotal);
+    pintar('compras', r.comprasCount, r.comprasTotal);
+    pintar('pagos', r.pagosCount, r.pagosTotal);
+    const p = $('resumen-parcial');
+    if (p) p.classList.toggle('hidden', !m.parcial);
+  });
+})();
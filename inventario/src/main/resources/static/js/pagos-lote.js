@@ -0,0 +1,57 @@
+(function () {
+  // --- Total de la planilla ---
+  function recalcTotal() {
+    let total = 0;
+    document.querySelectorAll('#tbodyItems input[name="monto"]').forEach(function (inp) {
+      const v = parseFloat(inp.value || '0');
+      if (isFinite(v)) total += v;
+    });
+    const td = document.getElementById('totalLote');
+    if (td) td.textContent = total.toFixed(2);
+  }
+
+  // --- Conecta eventos a una fila ---
+  function wireFila(tr) {
+    const inMonto = tr.querySelector('input[name="monto"]');
+    const btnQuit = tr.querySelector('.btn-quitar');
+
+    if (inMonto) inMonto.addEventListener('input', recalcTotal);
+
+    if (btnQuit) {
+      btnQuit.addEventListener('click', function () {
+        const tbody = document.getElementById('tbodyItems');
+        const filas = tbody ? tbody.querySelectorAll('tr.fila-item') : [];
+        // Evita quedarse sin filas
+        if (filas.length > 1) {
+          tr.remove();
+        } else {
+          window.SfBuscar.limpiar(tr);
+          if (inMonto) inMonto.value = '';
+        }
+        recalcTotal();
+      });
+    }
+  }
+
+  function nuevaFila() {
+    const tr = document.getElementById('protoFila').cloneNode(true);
+    tr.removeAttribute('id');
+
+    wireFila(tr);
+    document.getElementById('tbodyItems').appendChild(tr);
+    // Autocompletar de cliente (js/typeahead.js)
+    window.SfBuscar.conectar(tr);
+
+    const inCliente = tr.querySelector('input[data-buscar]');
+    if (inCliente) inCliente.focus();
+  }
+
+  document.addEventListener('DOMContentLoaded', function () {
+    const btnAdd = document.getElementById('agregarFila');
+    if (btnAdd) btnAdd.addEventListener('click', nuevaFila);
+
+    // Filas ya presentes (la inicial o las devueltas con error)
+    document.querySelectorAll('#tbodyItems tr.fila-item').forEach(wireFila);
+    recalcTotal();
+  });
+})();
@@ -0,0 +1,105 @@
+// Autocompletar contra /api/buscar/{catalogo} (productos, clientes, proveedores).
+//
+// Marcado:
+//   <input class="sf-input" type="text" data-buscar="productos" required>
+//   <input type="hidden" name="productoId">
+// El texto se completa con un <datalist> que se llena bajo demanda; el id
+// elegido va en el hidden siguiente. Si el texto no coincide con una opción
+// sugerida, el campo queda inválido y el formulario no se envía.
+// Nombres repetidos (dos clientes "Juan Pérez") se sugieren como
+// "Juan Pérez (#12)": el nombre solo no elige a ninguno.
+// Con data-buscar-libre (filtros de listas) solo sugiere y no hay hidden.
+//
+// Filas clonadas: SfBuscar.conectar(tr) y SfBuscar.limpiar(tr).
+(function () {
+  const ESPERA_MS = 150;
+  const LIMITE = 15;
+  let secuencia = 0;
+
+  function conectarInput(input) {
+    if (input.dataset.buscarListo || input.closest('#prototipos')) return; // los prototipos se conectan al clonarse
+    input.dataset.buscarListo = '1';
+    input.setAttribute('autocomplete', 'off');
+
+    const catalogo = input.dataset.buscar;
+    const libre = input.hasAttribute('data-buscar-libre');
+    const oculto = libre ? null : input.parentElement.querySelector('input[type="hidden"]');
+
+    const dl = document.createElement('datalist');
+    dl.id = 'sf-buscar-' + (++secuencia);
+    input.after(dl);
+    input.setAttribute('list', dl.id);
+
+    // texto -> id de lo último sugerido
+    let ids = new Map();
+    // última opción que coincidió con el texto; la precargada (editar) vale aunque su nombre se repita
+    const inicial = oculto && oculto.value && input.value ? { texto: input.value, id: oculto.value } : null;
+    let elegido = inicial;
+    let temporizador = null;
+    let pedido = null;
+
+    function validar() {
+      if (!oculto) return;
+      let id = ids.get(input.value);
+      if (id) elegido = { texto: input.value, id };
+      else if (elegido && elegido.texto === input.value) id = elegido.id;
+      oculto.value = id || '';
+      input.setCustomValidity(id || !input.value ? '' : 'Seleccione una opción de la lista.');
+    }
+
+    function pedir() {
+      if (pedido) pedido.abort();
+      pedido = new AbortController();
+      const url = '/api/buscar/' + catalogo + '?limite=' + LIMITE + '&q=' + encodeURIComponent(input.value);
+      fetch(url, { signal: pedido.signal, headers: { 'Accept': 'application/json' } })
+        .then((r) => (r.ok ? r.json() : []))
+        .then((lista) => {
+          const veces = new Map();
+          lista.forEach((c) => veces.set(c.nombre, (veces.get(c.nombre) || 0) + 1));
+          const nuevos = new Map();
+          const frag = document.createDocumentFragment();
+          lista.forEach((c) => {
+            const repetido = veces.get(c.nombre) > 1;
+            if (repetido && libre && nuevos.has(c.nombre)) return; // en filtros basta el nombre una vez
+            const texto = repetido && !libre ? c.nombre + ' (#' + c.id + ')' : c.nombre;
+            nuevos.set(texto, String(c.id));
+            const op = document.createElement('option');
+            op.value = texto;
+            frag.appendChild(op);
+          });
+          // el nombre solo resultó repetido: lo que coincidió antes pudo ser el otro
+          if (elegido && elegido !== inicial && veces.get(input.value) > 1) elegido = null;
+          ids = nuevos;
+          dl.replaceChildren(frag);
+          validar();
+        })
+        .catch(() => { /* abortado o sin red: se queda la lista anterior */ });
+    }
+
+    input.addEventListener('input', () => {
+      validar();
+      clearTimeout(temporizador);
+      temporizador = setTimeout(pedir, ESPERA_MS);
+    });
+    input.addEventListener('focus', () => {
+      if (!dl.children.length) pedir();
+    });
+    validar();
+  }
+
+  function conectar(raiz) {
+    (raiz || document).querySelectorAll('input[data-buscar]').forEach(conectarInput);
+  }
+
+  function limpiar(raiz) {
+    raiz.querySelectorAll('input[data-buscar]').forEach((input) => {
+      input.value = '';
+      input.setCustomValidity('');
+      const oculto = input.parentElement.querySelector('input[type="hidden"]');
+      if (oculto) oculto.value = '';
+    });
+  }
+
+  window.SfBuscar = { conectar, limpiar };
+  document.addEventListener('DOMContentLoaded', () => conectar(document));
+})();
@@ -1,17 +1,6 @@
 (function () {
-  function cloneSelectProducto() {
-    const proto = document.getElementById('protoSelectProducto');
-    const sel = proto.cloneNode(true);
-    sel.removeAttribute('id');
-    sel.className = 'sf-input';
-    sel.name = 'productoId';
-    sel.required = true;
-    return sel;
-  }
-
   // --- Conecta eventos a una fila y calcula su subtotal ---
   function wireFila(tr) {
-    const selProd = tr.querySelector('select[name="productoId"]');
     const inCant  = tr.querySelector('input[name="cantidadKg"]');
     const inPrec  = tr.querySelector('input[name="precioUnit"]');
     const tdSub   = tr.querySelector('.subtotal');
@@ -35,7 +24,7 @@
         if (filas.length > 1) {
           tr.remove();
         } else {
-          if (selProd) selProd.value = '';
+          window.SfBuscar.limpiar(tr);
           if (inCant)  inCant.value = '';
           if (inPrec)  inPrec.value = '';
           if (tdSub)   tdSub.textContent = '0.00';
@@ -52,11 +41,6 @@
     const tr = trProto.cloneNode(true);
     tr.removeAttribute('id');
 
-    // Insertar select de producto en la primera celda
-    const td0 = tr.children[0];
-    td0.innerHTML = '';
-    td0.appendChild(cloneSelectProducto());
-
     // Limpiar inputs de la nueva fila
     const inCant = tr.querySelector('input[name="cantidadKg"]');
     const inPrec = tr.querySelector('input[name="precioUnit"]');
@@ -69,6 +53,8 @@
     wireFila(tr);
 
     document.getElementById('tbodyItems').appendChild(tr);
+    // Autocompletar de producto (js/typeahead.js)
+    window.SfBuscar.conectar(tr);
   }
 
   // Hook de "Agregar ítem" y wiring de TODAS las filas existentes
@@ -0,0 +1,91 @@
+package com.softfruver.inventario.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PerfiladorSqlTest {
+
+	@Test
+	void normalizarReemplazaLiteralesYColapsaEspacios() {
+		assertThat(PerfiladorSql.normalizar("select *\n  from t where id = 42 and nombre = 'O''Brien'"))
+				.isEqualTo("select * from t where id = ? and nombre = ?");
+	}
+
+	@Test
+	void normalizarJuntaListasIn() {
+		assertThat(PerfiladorSql.normalizar("select 1 from t where id in (1, 2, 3) or x in (?,?)"))
+				.isEqualTo("select ? from t where id in (?, ...) or x in (?, ...)");
+	}
+
+	@Test
+	void normalizarQuitaComentariosPeroNoIdentificadores() {
+		assertThat(PerfiladorSql.normalizar("/* hint */ select col1, t2.x from tabla_3 -- fin\nwhere a = -5.5"))
+				.isEqualTo("select col1, t2.x from tabla_3 where a = ?");
+	}
+
+	@Test
+	void normalizarDaLaMismaFormaConDistintosValores() {
+		assertThat(PerfiladorSql.normalizar("update venta set total = 10 where id = 7"))
+				.isEqualTo(PerfiladorSql.normalizar("update venta   set total = 99.5 where id = 1234"));
+	}
+
+	@Test
+	void describirOcultaParametrosDeTablasSensibles() {
+		List<Object> params = List.of("$2a$10$hash", "admin");
+		assertThat(PerfiladorSql.describir("update softfruver.usuario set pass_hash=? where username=?", params))
+				.isEqualTo("(2 ocultos)")
+				.doesNotContain("hash");
+		assertThat(PerfiladorSql.describir("UPDATE SPRING_SESSION_ATTRIBUTES SET ATTRIBUTE_BYTES = ?", List.of("x")))
+				.isEqualTo("(1 ocultos)");
+	}
+
+	@Test
+	void describirMuestraParametrosComunesYSoloElTamanoDeBinarios() {
+		assertThat(PerfiladorSql.describir("select * from softfruver.venta where id = ?",
+				Arrays.asList(5L, null, new byte[16])))
+				.isEqualTo("[5, null, (16 bytes)]");
+	}
+
+	@Test
+	void dataSourcePerfiladoMideSentenciasYCuentaFilas() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(true, true, true, false);
+		PreparedStatement ps = mock(PreparedStatement.class);
+		when(ps.executeQuery()).thenReturn(rs);
+		Connection con = mock(Connection.class);
+		when(con.prepareStatement(anyString())).thenReturn(ps);
+		DataSource pool = mock(DataSource.class);
+		when(pool.getConnection()).thenReturn(con);
+
+		PerfiladorSql perfilador = new PerfiladorSql(10_000, 100);
+		DataSource ds = new DataSourcePerfilado(pool, perfilador);
+		for (long id : new long[]{1, 2}) {
+			try (Connection c = ds.getConnection();
+				 PreparedStatement st = c.prepareStatement("select nombre from t where id = " + id)) {
+				ResultSet r = st.executeQuery();
+				while (r.next()) { }
+				r.close();
+			}
+		}
+
+		assertThat(perfilador.top(10, PerfiladorSql.Orden.EJECUCIONES))
+				.singleElement()
+				.satisfies(f -> {
+					assertThat(f.sql()).isEqualTo("select nombre from t where id = ?");
+					assertThat(f.ejecuciones()).isEqualTo(2);
+					assertThat(f.filas()).isEqualTo(3);
+				});
+	}
+}
@@ -0,0 +1,135 @@
+package com.softfruver.inventario.repository;
+
+import com.softfruver.inventario.repository.ListadoSaldosRepository.Cursor;
+import com.softfruver.inventario.repository.ListadoSaldosRepository.Fila;
+import com.softfruver.inventario.repository.ListadoSaldosRepository.Listado;
+import com.softfruver.inventario.repository.ListadoSaldosRepository.Pagina;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ListadoSaldosRepositoryTest {
+
+	private NamedParameterJdbcTemplate jdbc;
+	private ListadoSaldosRepository repo;
+
+	@BeforeEach
+	void preparar() {
+		jdbc = mock(NamedParameterJdbcTemplate.class);
+		repo = new ListadoSaldosRepository(jdbc);
+	}
+
+	private static Fila fila(long id, String nombre, String saldo) {
+		return new Fila(id, nombre, null, new BigDecimal(saldo));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void devuelve(Fila... filas) {
+		when(jdbc.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+				.thenReturn(new ArrayList<>(List.of(filas)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private String sqlUsado(ArgumentCaptor<SqlParameterSource> params) {
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+		return sql.getValue();
+	}
+
+	@Test
+	void cursorIdaYVueltaConDosPuntosYTildes() {
+		Cursor c = new Cursor(new BigDecimal("-1250.50"), "Peña: frutas", 42L);
+
+		assertThat(Cursor.leer(c.texto())).isEqualTo(c);
+	}
+
+	@Test
+	void cursorInvalidoEsPrimeraPagina() {
+		assertThat(Cursor.leer(null)).isNull();
+		assertThat(Cursor.leer(" ")).isNull();
+		assertThat(Cursor.leer("no es base64!")).isNull();
+		assertThat(Cursor.leer("MTI")).isNull(); // "12": faltan campos
+		assertThat(Cursor.leer("eDo1OmFuYQ")).isNull(); // "x:5:ana": saldo no numérico
+	}
+
+	@Test
+	void primeraPaginaSinCursorYConSiguiente() {
+		devuelve(fila(1, "Ana", "300"), fila(2, "Beto", "200"), fila(3, "Caro", "100"));
+
+		Pagina p = repo.pagina(Listado.CLIENTES, false, null, null, null, 2, false);
+
+		ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+		assertThat(sqlUsado(params)).doesNotContain(":cSaldo").contains("limit :lim");
+		assertThat(params.getValue().getValue("lim")).isEqualTo(3);
+		assertThat(p.filas()).extracting(Fila::id).containsExactly(1L, 2L);
+		assertThat(p.anterior()).isNull();
+		assertThat(Cursor.leer(p.siguiente())).isEqualTo(new Cursor(new BigDecimal("200"), "Beto", 2L));
+		assertThat(p.totalEstimado()).isNull();
+	}
+
+	@Test
+	void siguienteBuscaPorLosValoresDelCursorNoPorSuFila() {
+		devuelve(fila(3, "Caro", "100"));
+		Cursor despues = new Cursor(new BigDecimal("200"), "Beto", 2L);
+
+		Pagina p = repo.pagina(Listado.PROVEEDORES, false, null, despues, null, 2, false);
+
+		ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+		String sql = sqlUsado(params);
+		// la fila del cursor puede ya no existir: no se vuelve a leer
+		assertThat(sql).contains("> (-cast(:cSaldo as numeric)").doesNotContain("where c.");
+		assertThat(sql).contains("order by -s.deuda_total asc");
+		assertThat(params.getValue().getValue("cSaldo")).isEqualTo(new BigDecimal("200"));
+		assertThat(params.getValue().getValue("cNombre")).isEqualTo("Beto");
+		assertThat(params.getValue().getValue("cId")).isEqualTo(2L);
+		assertThat(Cursor.leer(p.anterior())).isEqualTo(new Cursor(new BigDecimal("100"), "Caro", 3L));
+		assertThat(p.siguiente()).isNull();
+	}
+
+	@Test
+	void anteriorLeeAlRevesYDevuelveEnOrden() {
+		// en orden inverso, con una fila extra: hay más páginas antes
+		devuelve(fila(4, "Dora", "50"), fila(3, "Caro", "100"), fila(2, "Beto", "200"));
+		Cursor antes = new Cursor(new BigDecimal("40"), "Eva", 5L);
+
+		Pagina p = repo.pagina(Listado.CLIENTES, false, null, null, antes, 2, false);
+
+		ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+		String sql = sqlUsado(params);
+		assertThat(sql).contains("< (-cast(:cSaldo as numeric)").contains("order by -s.saldo_total desc");
+		assertThat(p.filas()).extracting(Fila::id).containsExactly(3L, 4L);
+		assertThat(Cursor.leer(p.anterior()).id()).isEqualTo(3L);
+		assertThat(Cursor.leer(p.siguiente()).id()).isEqualTo(4L);
+	}
+
+	@Test
+	void despuesMandaSiVienenLosDosCursores() {
+		devuelve();
+		Cursor despues = new Cursor(BigDecimal.ONE, "A", 1L);
+		Cursor antes = new Cursor(BigDecimal.TEN, "B", 2L);
+
+		Pagina p = repo.pagina(Listado.CLIENTES, true, "ana", despues, antes, 10, false);
+
+		ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+		assertThat(sqlUsado(params)).contains("> (-cast(:cSaldo as numeric)");
+		assertThat(params.getValue().getValue("cId")).isEqualTo(1L);
+		assertThat(params.getValue().getValue("arch")).isEqualTo(true);
+		assertThat(p.filas()).isEmpty();
+		assertThat(p.anterior()).isNull();
+		assertThat(p.siguiente()).isNull();
+	}
+}
@@ -0,0 +1,116 @@
+package com.softfruver.inventario.security;
+
+import com.softfruver.inventario.security.CaptchaToken.Desafio;
+import com.softfruver.inventario.security.CaptchaToken.Resultado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CaptchaTokenTest {
+
+	private static final String CLAVE = "clave-de-prueba-compartida";
+
+	private JdbcTemplate jdbc;
+	private CaptchaToken captcha;
+
+	@BeforeEach
+	void preparar() {
+		jdbc = mock(JdbcTemplate.class);
+		// primer uso de cada id: se inserta; la BD compartida dice 0 filas si ya estaba.
+		// (Object) para que sea update(String, Object...) y no update(String, Object[], int[])
+		when(jdbc.update(anyString(), (Object) any(), (Object) any())).thenReturn(1);
+		captcha = new CaptchaToken(jdbc, "token", 300, CLAVE);
+	}
+
+	private static String respuesta(Desafio d) {
+		String[] p = d.pregunta().split(" ");
+		return String.valueOf(Integer.parseInt(p[0]) + Integer.parseInt(p[2]));
+	}
+
+	@Test
+	void respuestaCorrectaEsOk() {
+		Desafio d = captcha.nuevo();
+
+		assertThat(captcha.activo()).isTrue();
+		assertThat(captcha.verificar(d.token(), " " + respuesta(d) + " ")).isEqualTo(Resultado.OK);
+	}
+
+	@Test
+	void otroNodoConLaMismaClaveLoValida() {
+		Desafio d = captcha.nuevo();
+		CaptchaToken otroNodo = new CaptchaToken(jdbc, "token", 300, CLAVE);
+
+		assertThat(otroNodo.verificar(d.token(), respuesta(d))).isEqualTo(Resultado.OK);
+	}
+
+	@Test
+	void respuestaIncorrectaONoNumerica() {
+		Desafio d1 = captcha.nuevo();
+		Desafio d2 = captcha.nuevo();
+
+		assertThat(captcha.verificar(d1.token(), String.valueOf(Integer.parseInt(respuesta(d1)) + 1)))
+				.isEqualTo(Resultado.INCORRECTO);
+		assertThat(captcha.verificar(d2.token(), "diez")).isEqualTo(Resultado.INCORRECTO);
+	}
+
+	@Test
+	void vencidoNoLlegaALaBd() {
+		CaptchaToken yaVencido = new CaptchaToken(jdbc, "token", -1, CLAVE);
+		Desafio d = yaVencido.nuevo();
+
+		assertThat(yaVencido.verificar(d.token(), respuesta(d))).isEqualTo(Resultado.VENCIDO);
+		verify(jdbc, never()).update(anyString(), (Object) any(), (Object) any());
+	}
+
+	@Test
+	void reusoDelMismoTokenSeRechazaAunqueLaRespuestaSeaCorrecta() {
+		Desafio d = captcha.nuevo();
+		when(jdbc.update(anyString(), (Object) any(), (Object) any())).thenReturn(1, 0);
+
+		assertThat(captcha.verificar(d.token(), "0")).isEqualTo(Resultado.INCORRECTO);
+		assertThat(captcha.verificar(d.token(), respuesta(d))).isEqualTo(Resultado.VENCIDO);
+	}
+
+	@Test
+	void firmaAlteradaOVencimientoCambiadoSeRechazan() {
+		Desafio d = captcha.nuevo();
+		String[] partes = d.token().split("\\.");
+
+		// vencimiento estirado sin volver a firmar
+		String datos = new String(Base64.getUrlDecoder().decode(partes[0]), StandardCharsets.US_ASCII);
+		String id = datos.substring(0, datos.indexOf(':'));
+		String estirado = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((id + ":" + Long.MAX_VALUE).getBytes(StandardCharsets.US_ASCII));
+		assertThat(captcha.verificar(estirado + "." + partes[1] + "." + partes[2], respuesta(d)))
+				.isEqualTo(Resultado.VENCIDO);
+
+		// firma de los datos tocada
+		String firma = (partes[1].charAt(0) == 'A' ? "B" : "A") + partes[1].substring(1);
+		assertThat(captcha.verificar(partes[0] + "." + firma + "." + partes[2], respuesta(d)))
+				.isEqualTo(Resultado.VENCIDO);
+
+		// firmado con otra clave
+		CaptchaToken otraClave = new CaptchaToken(jdbc, "token", 300, "otra-clave");
+		assertThat(otraClave.verificar(d.token(), respuesta(d))).isEqualTo(Resultado.VENCIDO);
+		verify(jdbc, never()).update(anyString(), (Object) any(), (Object) any());
+	}
+
+	@Test
+	void tokenMalFormado() {
+		assertThat(captcha.verificar(null, "5")).isEqualTo(Resultado.VENCIDO);
+		assertThat(captcha.verificar("", "5")).isEqualTo(Resultado.VENCIDO);
+		assertThat(captcha.verificar("a.b", "5")).isEqualTo(Resultado.VENCIDO);
+		assertThat(captcha.verificar("%%%.b.c", "5")).isEqualTo(Resultado.VENCIDO);
+	}
+}
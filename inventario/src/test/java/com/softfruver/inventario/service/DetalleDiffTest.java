@@ -0,0 +1,84 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.service.DetalleDiff.Cambios;
+import com.softfruver.inventario.service.DetalleDiff.Linea;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetalleDiffTest {
+
+	private static Linea l(long producto, String kg, String precio) {
+		return new Linea(producto, new BigDecimal(kg), new BigDecimal(precio));
+	}
+
+	@Test
+	void sinCambiosNoTocaNada() {
+		List<Linea> guardadas = List.of(l(1, "10", "2500"), l(2, "3.5", "4000"));
+
+		Cambios c = DetalleDiff.calcular(guardadas, List.of(l(1, "10", "2500"), l(2, "3.5", "4000")));
+
+		assertThat(c.vacio()).isTrue();
+	}
+
+	@Test
+	void mismoValorConOtraEscalaNoEsCambio() {
+		Cambios c = DetalleDiff.calcular(List.of(l(1, "2.50", "1000.00")), List.of(l(1, "2.5", "1000")));
+
+		assertThat(c.vacio()).isTrue();
+	}
+
+	@Test
+	void ordenDeLasLineasNoImporta() {
+		List<Linea> guardadas = List.of(l(1, "5", "100"), l(1, "7", "90"), l(2, "1", "50"));
+		List<Linea> enviadas = List.of(l(2, "1", "50"), l(1, "7", "90"), l(1, "5", "100"));
+
+		assertThat(DetalleDiff.calcular(guardadas, enviadas).vacio()).isTrue();
+	}
+
+	@Test
+	void productoCambiadoSeBorraYReinsertaSoloEl() {
+		List<Linea> guardadas = List.of(l(1, "10", "2500"), l(2, "3", "4000"), l(2, "1", "4000"));
+		List<Linea> enviadas = List.of(l(1, "10", "2500"), l(2, "3", "4100"), l(2, "1", "4000"));
+
+		Cambios c = DetalleDiff.calcular(guardadas, enviadas);
+
+		assertThat(c.productosABorrar()).containsExactly(2L);
+		assertThat(c.lineasAInsertar()).containsExactly(l(2, "3", "4100"), l(2, "1", "4000"));
+	}
+
+	@Test
+	void otraCantidadDeLineasDelMismoProductoEsCambio() {
+		Cambios c = DetalleDiff.calcular(List.of(l(1, "5", "100"), l(1, "5", "100")), List.of(l(1, "5", "100")));
+
+		assertThat(c.productosABorrar()).containsExactly(1L);
+		assertThat(c.lineasAInsertar()).containsExactly(l(1, "5", "100"));
+	}
+
+	@Test
+	void productoNuevoSoloSeInserta() {
+		Cambios c = DetalleDiff.calcular(List.of(l(1, "10", "2500")), List.of(l(1, "10", "2500"), l(3, "2", "800")));
+
+		assertThat(c.productosABorrar()).isEmpty();
+		assertThat(c.lineasAInsertar()).containsExactly(l(3, "2", "800"));
+	}
+
+	@Test
+	void productoQuitadoSoloSeBorra() {
+		Cambios c = DetalleDiff.calcular(List.of(l(1, "10", "2500"), l(2, "1", "50")), List.of(l(1, "10", "2500")));
+
+		assertThat(c.productosABorrar()).containsExactly(2L);
+		assertThat(c.lineasAInsertar()).isEmpty();
+	}
+
+	@Test
+	void detalleVaciadoBorraTodo() {
+		Cambios c = DetalleDiff.calcular(List.of(l(1, "10", "2500"), l(2, "1", "50")), List.of());
+
+		assertThat(c.productosABorrar()).containsExactly(1L, 2L);
+		assertThat(c.lineasAInsertar()).isEmpty();
+	}
+}
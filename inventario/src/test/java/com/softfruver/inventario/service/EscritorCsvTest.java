@@ -0,0 +1,43 @@
+package com.softfruver.inventario.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EscritorCsvTest {
+
+	private static String fila(Object... valores) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (EscritorCsv csv = new EscritorCsv(bytes)) {
+			for (Object v : valores) csv.columna(v);
+			csv.finFila();
+		}
+		return bytes.toString(StandardCharsets.UTF_8).substring(1); // sin BOM
+	}
+
+	@Test
+	void textosQueParecenFormulaLlevanApostrofo() {
+		assertThat(fila("=1+1", "+57 300", "-x", "@SUM(A1)", "\tTab"))
+				.isEqualTo("'=1+1,'+57 300,'-x,'@SUM(A1),'\tTab\r\n");
+	}
+
+	@Test
+	void formulaConComaSigueEntreComillas() {
+		assertThat(fila("=HYPERLINK(\"http://x\",\"clic\")"))
+				.isEqualTo("\"'=HYPERLINK(\"\"http://x\"\",\"\"clic\"\")\"\r\n");
+	}
+
+	@Test
+	void numerosNegativosNoSeTocan() {
+		assertThat(fila(new BigDecimal("-1500.50"), -3, 7L)).isEqualTo("-1500.50,-3,7\r\n");
+	}
+
+	@Test
+	void textosNormalesYNulosQuedanIgual() {
+		assertThat(fila("Marta Gómez", null, "", "a-b")).isEqualTo("Marta Gómez,,,a-b\r\n");
+	}
+}
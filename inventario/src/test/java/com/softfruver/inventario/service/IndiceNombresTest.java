@@ -0,0 +1,107 @@
+package com.softfruver.inventario.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceNombresTest {
+
+	private static final Map<Long, String> NOMBRES = Map.of(
+			1L, "Marta Gómez",
+			2L, "Mario Núñez",
+			3L, "Gómez y Cía",
+			4L, "Frutas La Martina",
+			5L, "Ana María Ruiz");
+
+	private static List<Long> ids(IndiceNombres indice, String q) {
+		return indice.buscar(q, 10).stream().map(IndiceNombres.Coincidencia::id).toList();
+	}
+
+	@Test
+	void normalizarQuitaTildesYColapsaEspacios() {
+		assertThat(IndiceNombres.normalizar("  ÁNGELA   Núñez ")).isEqualTo("angela nunez");
+		assertThat(IndiceNombres.normalizar("Pingüino")).isEqualTo("pinguino");
+	}
+
+	@Test
+	void ordenaPrefijoLuegoPalabraLuegoEnMedio() {
+		IndiceNombres indice = new IndiceNombres(NOMBRES);
+
+		// "mar": prefijo (Mario, Marta), palabra (María, Martina), en medio no aplica
+		assertThat(ids(indice, "mar")).containsExactly(2L, 1L, 5L, 4L);
+		// "gom": prefijo (Gómez y Cía), luego palabra (Marta Gómez)
+		assertThat(ids(indice, "Góm")).containsExactly(3L, 1L);
+		// "art": solo en medio
+		assertThat(ids(indice, "art")).containsExactly(4L, 1L);
+	}
+
+	@Test
+	void textoVacioDevuelveTodosEnOrdenHastaElLimite() {
+		IndiceNombres indice = new IndiceNombres(NOMBRES);
+
+		assertThat(indice.buscar("", 3)).extracting(IndiceNombres.Coincidencia::id).containsExactly(5L, 4L, 3L);
+		assertThat(indice.tamano()).isEqualTo(5);
+	}
+
+	@Test
+	void conAgregaYRenombraSinDejarElNombreViejo() {
+		IndiceNombres indice = new IndiceNombres(NOMBRES)
+				.con(6L, "Marcela Díaz")
+				.con(1L, "Teresa Gómez");
+
+		assertThat(ids(indice, "mar")).containsExactly(6L, 2L, 5L, 4L);
+		assertThat(ids(indice, "tere")).containsExactly(1L);
+		assertThat(ids(indice, "gomez")).containsExactly(3L, 1L);
+		assertThat(indice.tamano()).isEqualTo(6);
+	}
+
+	@Test
+	void sinQuitaDeLaBaseYDeLosAgregados() {
+		IndiceNombres indice = new IndiceNombres(NOMBRES)
+				.con(6L, "Marcela Díaz")
+				.sin(2L)
+				.sin(6L);
+
+		assertThat(ids(indice, "mar")).containsExactly(1L, 5L, 4L);
+		assertThat(indice.tamano()).isEqualTo(4);
+		assertThat(indice.sin(99L)).isSameAs(indice);
+	}
+
+	@Test
+	void cambiosNoTocanElIndiceAnterior() {
+		IndiceNombres antes = new IndiceNombres(NOMBRES);
+		antes.sin(1L).con(2L, "Otro");
+
+		assertThat(ids(antes, "mar")).containsExactly(2L, 1L, 5L, 4L);
+	}
+
+	@Test
+	void nombresRepetidosSeDistinguenPorId() {
+		IndiceNombres indice = new IndiceNombres(Map.of(7L, "Juan Pérez", 3L, "Juan Pérez")).con(5L, "Juan Pérez");
+
+		assertThat(ids(indice, "juan")).containsExactly(3L, 5L, 7L);
+	}
+
+	@Test
+	void muchosCambiosRearmanLaBaseConElMismoResultado() {
+		Map<Long, String> esperado = new HashMap<>(NOMBRES);
+		IndiceNombres indice = new IndiceNombres(NOMBRES);
+		for (long id = 100; id < 100 + IndiceNombres.MAX_CAMBIOS * 2; id++) {
+			indice = indice.con(id, "Cliente " + id);
+			esperado.put(id, "Cliente " + id);
+		}
+		indice = indice.sin(3L).con(1L, "Marta Gómez R");
+		esperado.remove(3L);
+		esperado.put(1L, "Marta Gómez R");
+
+		IndiceNombres desdeCero = new IndiceNombres(esperado);
+		assertThat(indice.tamano()).isEqualTo(desdeCero.tamano());
+		for (String q : List.of("", "cli", "cliente 15", "mar", "gomez", "nte 1", "r")) {
+			assertThat(indice.buscar(q, 20)).as(q).isEqualTo(desdeCero.buscar(q, 20));
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.softfruver.inventario.service;
+
+import com.softfruver.inventario.repository.InventarioRepository;
+import com.softfruver.inventario.repository.InventarioRepository.StockProducto;
+import com.softfruver.inventario.repository.projection.InventarioItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockProyeccionTest {
+
+	private InventarioRepository repo;
+	private ApplicationEventPublisher eventos;
+	private StockProyeccion proyeccion;
+
+	@BeforeEach
+	void preparar() {
+		repo = mock(InventarioRepository.class);
+		eventos = mock(ApplicationEventPublisher.class);
+		when(repo.stockTodos()).thenReturn(List.of(
+				new StockProducto(1, "Tomate", 50, 10),
+				new StockProducto(2, "Aguacate", 5, 10),
+				new StockProducto(3, "Mango", 30, 10)));
+		proyeccion = new StockProyeccion(repo, eventos, true);
+		proyeccion.cargar();
+	}
+
+	private static List<String> nombres(List<InventarioItem> items) {
+		return items.stream().map(InventarioItem::nombre).toList();
+	}
+
+	@Test
+	void cambioDeStockReemplazaEnSuLugar() {
+		when(repo.stockDe(Set.of(1L))).thenReturn(List.of(new StockProducto(1, "Tomate", 8, 10)));
+
+		proyeccion.alCambiar(new StockProyeccion.Cambio(Set.of(1L)));
+
+		assertThat(proyeccion.stockKg(1)).isEqualTo(8);
+		assertThat(nombres(proyeccion.listar())).containsExactly("Aguacate", "Mango", "Tomate");
+		assertThat(proyeccion.listar().get(2).stockKg()).isEqualTo(8);
+		assertThat(proyeccion.totalAlertas()).isEqualTo(2);
+		verify(eventos).publishEvent(new StockProyeccion.AlertasNuevas(
+				List.of(new StockProyeccion.AlertaStock(1, "Tomate", 8, 10))));
+	}
+
+	@Test
+	void productoNuevoORenombradoReordena() {
+		when(repo.stockDe(Set.of(3L, 4L))).thenReturn(List.of(
+				new StockProducto(3, "Banano", 30, 10),
+				new StockProducto(4, "Cebolla", 20, 10)));
+
+		proyeccion.alCambiar(new StockProyeccion.Cambio(Set.of(3L, 4L)));
+
+		assertThat(nombres(proyeccion.listar())).containsExactly("Aguacate", "Banano", "Cebolla", "Tomate");
+		assertThat(proyeccion.totalProductos()).isEqualTo(4);
+		assertThat(proyeccion.buscar("ceb")).extracting(InventarioItem::productoId).containsExactly(4L);
+	}
+
+	@Test
+	void lecturaViejaQueLlegaTardeNoPisaUnaMasNueva() {
+		// El primer commit lee stock; mientras tanto un segundo commit lee y aplica primero
+		AtomicInteger lecturas = new AtomicInteger();
+		when(repo.stockDe(Set.of(1L))).thenAnswer(inv -> {
+			if (lecturas.incrementAndGet() > 1) return List.of(new StockProducto(1, "Tomate", 20, 10));
+			proyeccion.alCambiar(new StockProyeccion.Cambio(Set.of(1L)));
+			return List.of(new StockProducto(1, "Tomate", 40, 10));
+		});
+
+		proyeccion.alCambiar(new StockProyeccion.Cambio(Set.of(1L)));
+
+		assertThat(proyeccion.stockKg(1)).isEqualTo(20);
+		assertThat(proyeccion.listar().get(2).stockKg()).isEqualTo(20);
+	}
+
+	@Test
+	void reconciliacionDescartaLecturasAnterioresAElla() {
+		when(repo.stockDe(Set.of(2L))).thenAnswer(inv -> {
+			when(repo.stockTodos()).thenReturn(List.of(
+					new StockProducto(1, "Tomate", 50, 10),
+					new StockProducto(2, "Aguacate", 15, 10),
+					new StockProducto(3, "Mango", 30, 10)));
+			proyeccion.reconciliar();
+			return List.of(new StockProducto(2, "Aguacate", 1, 10));
+		});
+
+		proyeccion.alCambiar(new StockProyeccion.Cambio(Set.of(2L)));
+
+		assertThat(proyeccion.stockKg(2)).isEqualTo(15);
+		assertThat(proyeccion.totalAlertas()).isZero();
+		verify(eventos, never()).publishEvent(any(StockProyeccion.AlertasNuevas.class));
+	}
+
+	@Test
+	void cambioAplicadoDuranteLaReconciliacionSeConserva() {
+		// La reconciliación lee todo; mientras tanto un commit relee y aplica el Aguacate
+		when(repo.stockDe(Set.of(2L))).thenReturn(List.of(new StockProducto(2, "Aguacate", 3, 10)));
+		when(repo.stockTodos()).thenAnswer(inv -> {
+			proyeccion.alCambiar(new StockProyeccion.Cambio(Set.of(2L)));
+			return List.of(
+					new StockProducto(1, "Tomate", 45, 10),
+					new StockProducto(2, "Aguacate", 5, 10),
+					new StockProducto(3, "Mango", 30, 10));
+		});
+
+		proyeccion.reconciliar();
+
+		assertThat(proyeccion.stockKg(1)).isEqualTo(45);
+		assertThat(proyeccion.stockKg(2)).isEqualTo(3);
+		assertThat(proyeccion.listar().get(0).stockKg()).isEqualTo(3);
+		assertThat(proyeccion.totalAlertas()).isEqualTo(1);
+	}
+}
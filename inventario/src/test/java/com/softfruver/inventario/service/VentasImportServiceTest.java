@@ -0,0 +1,61 @@
+package com.softfruver.inventario.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.softfruver.inventario.repository.VentasRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class VentasImportServiceTest {
+
+	private final VentasRepository repo = mock(VentasRepository.class);
+	private final ApplicationEventPublisher eventos = mock(ApplicationEventPublisher.class);
+	private final VentasImportService service = new VentasImportService(repo, new ObjectMapper(), eventos);
+
+	private static VentasService.ItemNuevaVenta item(Long productoId, String kg, String precio) {
+		return new VentasService.ItemNuevaVenta(productoId, new BigDecimal(kg), new BigDecimal(precio));
+	}
+
+	@Test
+	void csvConItemInvalidoReportaLaLinea() throws Exception {
+		String csv = VentasImportService.CSV_CABECERA + "\n"
+				+ "A,2026-10-01,1,false,10,2.5,4000\n"
+				+ "A,2026-10-01,1,false,11,0,4000\n"
+				+ "B,2026-10-01,2,true,12,1,-5\n";
+		List<String> errores = new ArrayList<>();
+
+		service.leer("cierre.csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), errores);
+
+		assertThat(errores).containsExactly(
+				"Línea 3: la cantidad debe ser mayor que 0.",
+				"Línea 4: el precio no puede ser negativo.");
+	}
+
+	@Test
+	void itemInvalidoRechazaTodoElArchivoSinCargarNada() {
+		List<VentasImportService.VentaImportada> ventas = List.of(
+				new VentasImportService.VentaImportada(LocalDate.of(2026, 10, 1), 1L, false,
+						List.of(item(10L, "1", "4000"))),
+				new VentasImportService.VentaImportada(LocalDate.of(2026, 10, 1), 2L, false,
+						List.of(item(10L, "1", "4000"), item(null, "1", "4000"), item(11L, "-1", "4000"))));
+
+		VentasImportService.Resultado r = service.importar(ventas);
+
+		assertThat(r.ok()).isFalse();
+		assertThat(r.ventas()).isZero();
+		assertThat(r.errores()).containsExactly(
+				"Venta 2, ítem 2: falta el producto.",
+				"Venta 2, ítem 3: la cantidad debe ser mayor que 0.");
+		verifyNoInteractions(repo, eventos);
+	}
+}